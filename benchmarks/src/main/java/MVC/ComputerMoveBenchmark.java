@@ -0,0 +1,73 @@
+package MVC;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks how the computer picks its next shot, as {@link GameController#computerMakeMove()} does,
+ * on boards where a share of the cells have already been fired at. Picking draws random cells until
+ * it finds one not fired at, so its cost grows as the board fills up.
+ * <p>
+ * Run with {@code mvn -pl benchmarks -am package && java -jar benchmarks/target/benchmarks.jar ComputerMoveBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ComputerMoveBenchmark {
+
+    @Param({"2", "4", "10", "20", "30"})
+    private int dimension;
+
+    @Param({"0", "50", "90"})
+    private int firedPercent;
+
+    private GameModel model;
+    private Random random;
+
+    /**
+     * Builds a model whose player board has the given share of its cells fired at, leaving at least one cell open.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = new GameModel();
+        model.setDimension(dimension);
+        random = new Random(42);
+
+        int cells = dimension * dimension;
+        List<Integer> order = new ArrayList<>(cells);
+        for (int cell = 0; cell < cells; cell++) {
+            order.add(cell);
+        }
+        Collections.shuffle(order, random);
+        int fired = Math.min(cells - 1, cells * firedPercent / 100);
+        for (int i = 0; i < fired; i++) {
+            model.makeMove(0, order.get(i) / dimension, order.get(i) % dimension);
+        }
+    }
+    /**
+     * One pick of a cell the computer has not fired at yet.
+     * @return The picked cell.
+     */
+    @Benchmark
+    public int pickComputerTarget() {
+        return model.pickComputerTarget(random);
+    }
+}
@@ -0,0 +1,121 @@
+package MVC;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link GameModel} operations the game runs on every move and every new layout,
+ * across board sizes. The dimension is the side of the grid, as {@link GameModel#setDimension(int)} takes it;
+ * the game offers 2 to 20, and 30 shows how the costs grow past that.
+ * <p>
+ * Run with {@code mvn -pl benchmarks -am package && java -jar benchmarks/target/benchmarks.jar GameModelBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GameModelBenchmark {
+    private static final int PROBES = 1024;  // Placement checks cycled through by canPlaceBoat
+
+    @Param({"2", "4", "10", "20", "30"})
+    private int dimension;
+
+    private GameModel model;
+    private int cell;
+    private int[] probeRows;
+    private int[] probeCols;
+    private int[] probeSizes;
+    private String[] probeOrientations;
+    private int probe;
+    private PrintStream standardOut;
+
+    /**
+     * Builds a model with a random layout and the placement checks to probe it with. The model
+     * prints every layout it places, so standard output is discarded while the benchmarks run.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        standardOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        model = new GameModel();
+        model.setDimension(dimension);
+        model.placeRandomBoats();
+
+        Random random = new Random(42);
+        probeRows = new int[PROBES];
+        probeCols = new int[PROBES];
+        probeSizes = new int[PROBES];
+        probeOrientations = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probeRows[i] = random.nextInt(dimension);
+            probeCols[i] = random.nextInt(dimension);
+            probeSizes[i] = 1 + random.nextInt(Math.max(1, dimension / 2));
+            probeOrientations[i] = random.nextBoolean() ? "horizontal" : "vertical";
+        }
+    }
+    /**
+     * Restores standard output.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(standardOut);
+    }
+    /**
+     * A move on the opponent's board, walking over every cell in turn.
+     * @return Whether the move hit a boat.
+     */
+    @Benchmark
+    public boolean makeMove() {
+        cell = cell + 1 == dimension * dimension ? 0 : cell + 1;
+        return model.makeMove(1, cell / dimension, cell % dimension);
+    }
+    /**
+     * A new random layout on both boards, including the printing the game does after placing them.
+     */
+    @Benchmark
+    public void placeRandomBoats() {
+        model.placeRandomBoats();
+    }
+    /**
+     * A new random layout on the player's board, without printing, as the server's layout pool generates them.
+     * @return The layout.
+     */
+    @Benchmark
+    public String generatePlayerLayout() {
+        return model.generatePlayerLayout();
+    }
+    /**
+     * One placement check against a populated grid.
+     * @return Whether the boat would fit.
+     */
+    @Benchmark
+    public boolean canPlaceBoat() {
+        probe = (probe + 1) & (PROBES - 1);
+        return model.canPlaceBoat(probeRows[probe], probeCols[probe], probeSizes[probe], model.getGridPlayer(), probeOrientations[probe]);
+    }
+    /**
+     * The player's layout as the string sent to the server.
+     * @return The layout.
+     */
+    @Benchmark
+    public String printGridsString() {
+        return model.printGridsString();
+    }
+}
@@ -0,0 +1,667 @@
+package MVC;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A round-trip and throughput benchmark for the game server. It starts a {@link Server} on
+ * loopback and drives it through every message of the {@link Config} protocol, once through
+ * {@link Client} as the game uses it and once over raw sockets, for each combination of board
+ * dimension and number of concurrent connections. Each connection sends its requests one after
+ * another, waiting for every response, so throughput is what that many clients can get through.
+ * <p>
+ * Every measured message gives one result with its latency percentiles, messages per second and
+ * bytes per message (request and response together), printed as a JSON object per line or as CSV
+ * so runs can be compared by scripts. The raw transport also measures P6, from a layout being
+ * sent until a spectator of the game has it, and P7, resuming the session of a dropped connection.
+ * The connect and P0 results each open a new connection for every request.
+ * <p>
+ * Usage: {@code java -cp benchmarks/target/benchmarks.jar MVC.NetworkBenchmark [--dimensions 1,5,10]
+ * [--connections 1,16,64] [--requests 1000] [--warmup 100] [--transports client,raw] [--format json|csv]
+ * [--external] [--host localhost] [--port 12345]}
+ * <p>
+ * Dimensions are protocol dimensions, half the side of the board. The embedded server runs without
+ * rate limits. With {@code --external} the benchmark drives a server that is already running, whose
+ * rate limits apply. For {@link Client} the bytes are counted by the embedded server, and cover
+ * everything the request made the client send and receive, such as the greeting of a new connection;
+ * against an external server they are only reported for the raw transport.
+ */
+public class NetworkBenchmark {
+    private static final String TRANSPORT_CLIENT = "client";
+    private static final String TRANSPORT_RAW = "raw";
+    private static final String CONNECT = "connect";
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+    private final String host;
+    private final int port;
+    private final ServerMetrics serverMetrics;  // Null when the server is not embedded
+    private final int requests;
+    private final int warmup;
+    private final boolean csv;
+    private final PrintStream output;
+
+    /**
+     * Constructs a new benchmark.
+     * @param host The server's hostname or IP address.
+     * @param port The port on which the server is listening.
+     * @param serverMetrics The metrics of the embedded server, or null when the server runs elsewhere.
+     * @param requests The number of measured requests each connection sends per message.
+     * @param warmup The number of unmeasured requests each connection sends per message first.
+     * @param csv True to print CSV, false to print a JSON object per line.
+     * @param output The stream the results are printed to.
+     */
+    public NetworkBenchmark(String host, int port, ServerMetrics serverMetrics, int requests, int warmup, boolean csv, PrintStream output) {
+        this.host = host;
+        this.port = port;
+        this.serverMetrics = serverMetrics;
+        this.requests = requests;
+        this.warmup = warmup;
+        this.csv = csv;
+        this.output = output;
+    }
+    /**
+     * Runs every message at every dimension and connection count and prints the results.
+     * @param dimensions The protocol dimensions to run at.
+     * @param connectionCounts The numbers of concurrent connections to run with.
+     * @param transports The transports to run, {@value #TRANSPORT_CLIENT} and/or {@value #TRANSPORT_RAW}.
+     * @throws Exception if the server cannot be reached.
+     */
+    public void run(int[] dimensions, int[] connectionCounts, List<String> transports) throws Exception {
+        if (csv) {
+            output.println("transport,message,dimension,connections,requests,errors,elapsed_ms,msgs_per_sec,bytes_per_msg,"
+                    + "mean_us,p50_us,p90_us,p99_us,p999_us,max_us");
+        }
+        for (int dimension : dimensions) {
+            for (int connections : connectionCounts) {
+                ExecutorService workers = Executors.newFixedThreadPool(connections);
+                try {
+                    if (transports.contains(TRANSPORT_CLIENT)) {
+                        runClient(workers, dimension, connections);
+                    }
+                    if (transports.contains(TRANSPORT_RAW)) {
+                        runRaw(workers, dimension, connections);
+                    }
+                } finally {
+                    workers.shutdownNow();
+                }
+            }
+        }
+    }
+    /**
+     * Runs the messages through {@link Client}, the way the game sends them.
+     * @param workers The threads driving the connections.
+     * @param dimension The protocol dimension.
+     * @param connections The number of concurrent connections.
+     * @throws Exception if a connection cannot be opened.
+     */
+    private void runClient(ExecutorService workers, int dimension, int connections) throws Exception {
+        Client[] clients = new Client[connections];
+        GameModel[] models = new GameModel[connections];
+        int[] moves = new int[connections];
+        int side = dimension * 2;
+        try {
+            for (int i = 0; i < connections; i++) {
+                models[i] = new GameModel();
+                models[i].setDimension(side);
+                models[i].generatePlayerLayout();
+                clients[i] = connectClient(models[i], dimension);
+            }
+            runPhase(workers, TRANSPORT_CLIENT, Config.PROTOCOL_HEARTBEAT, dimension, connections, (c, bytes) -> {
+                long start = System.nanoTime();
+                clients[c].sendHeartbeat();
+                return System.nanoTime() - start;
+            });
+            runPhase(workers, TRANSPORT_CLIENT, Config.PROTOCOL_SENDGAME, dimension, connections, (c, bytes) -> {
+                clients[c].setDeltaSync(false);
+                long start = System.nanoTime();
+                clients[c].sendGameConfiguration();
+                return System.nanoTime() - start;
+            });
+            runPhase(workers, TRANSPORT_CLIENT, Config.PROTOCOL_SENDDELTA, dimension, connections, (c, bytes) -> {
+                clients[c].setDeltaSync(true);
+                // One move between sends, as in a game; a board that has been fired at everywhere gets a new layout
+                int cell = moves[c]++ % (side * side);
+                if (cell == 0) {
+                    models[c].generatePlayerLayout();
+                } else {
+                    models[c].makeMove(0, cell / side, cell % side);
+                }
+                long start = System.nanoTime();
+                clients[c].sendGameConfiguration();
+                return System.nanoTime() - start;
+            });
+            // Every connection has queued more layouts than it asks for, so P2 never waits on the layout pool
+            runPhase(workers, TRANSPORT_CLIENT, Config.PROTOCOL_RECVGAME, dimension, connections, (c, bytes) -> {
+                long start = System.nanoTime();
+                clients[c].requestGameConfiguration();
+                return System.nanoTime() - start;
+            });
+            runPhase(workers, TRANSPORT_CLIENT, Config.PROTOCOL_DATA, dimension, connections, (c, bytes) -> {
+                long start = System.nanoTime();
+                clients[c].sendGameResults("bench" + c, moves[c]++ % 100);
+                return System.nanoTime() - start;
+            });
+            runChurnPhase(workers, TRANSPORT_CLIENT, CONNECT, dimension, connections, (c, bytes) -> {
+                long start = System.nanoTime();
+                Client client = connectClient(models[c], dimension);
+                long latency = System.nanoTime() - start;
+                client.stopConnection();
+                return latency;
+            });
+            runChurnPhase(workers, TRANSPORT_CLIENT, Config.PROTOCOL_END, dimension, connections, (c, bytes) -> {
+                Client client = connectClient(models[c], dimension);
+                long start = System.nanoTime();
+                client.stopConnection();
+                return System.nanoTime() - start;
+            });
+        } finally {
+            for (Client client : clients) {
+                if (client != null) {
+                    try {
+                        client.stopConnection();
+                    } catch (IOException e) {
+                        // The connection is gone already
+                    }
+                }
+            }
+        }
+    }
+    /**
+     * Opens a {@link Client} connection.
+     * @param model The game model the client sends layouts from.
+     * @param dimension The protocol dimension.
+     * @return The connected client.
+     * @throws IOException if the server cannot be reached or is busy.
+     */
+    private Client connectClient(GameModel model, int dimension) throws IOException {
+        Client client = new Client(host, port, model, DISCARD);
+        client.setDimension(dimension);
+        client.setRequestTimeout(Config.CLIENT_REQUEST_TIMEOUT_SECONDS * 1000);
+        client.startConnection();
+        if (client.getClientId() == 0) {
+            throw new IOException("Could not connect to " + host + ":" + port);
+        }
+        return client;
+    }
+    /**
+     * Runs the messages over raw sockets, with nothing but the protocol between the benchmark and the server.
+     * @param workers The threads driving the connections.
+     * @param dimension The protocol dimension.
+     * @param connections The number of concurrent connections.
+     * @throws Exception if a connection cannot be opened.
+     */
+    private void runRaw(ExecutorService workers, int dimension, int connections) throws Exception {
+        RawConnection[] raws = new RawConnection[connections];
+        String separator = Config.PROTOCOL_SEPARATOR;
+        try {
+            for (int i = 0; i < connections; i++) {
+                raws[i] = new RawConnection(dimension);
+            }
+            runPhase(workers, TRANSPORT_RAW, Config.PROTOCOL_HEARTBEAT, dimension, connections,
+                    (c, bytes) -> raws[c].timedRequest(raws[c].address + separator + Config.PROTOCOL_HEARTBEAT, "ACK_HEARTBEAT", bytes));
+            runPhase(workers, TRANSPORT_RAW, Config.PROTOCOL_SENDGAME, dimension, connections, (c, bytes) -> {
+                long latency = raws[c].timedRequest(raws[c].sendGameMessage(), "ACK", bytes);
+                raws[c].resetBoard();
+                return latency;
+            });
+            runPhase(workers, TRANSPORT_RAW, Config.PROTOCOL_SENDDELTA, dimension, connections, (c, bytes) -> {
+                RawConnection raw = raws[c];
+                String next = raw.nextBoard();
+                String message = raw.address + separator + Config.PROTOCOL_SENDDELTA + separator + (raw.sequence + 1) + separator
+                        + dimension + Config.FIELD_SEPARATOR + BoardDelta.toWire(BoardDelta.encode(raw.board, next));
+                long latency = raw.timedRequest(message, "ACK", bytes);
+                raw.board = next;
+                raw.sequence++;
+                return latency;
+            });
+            runPhase(workers, TRANSPORT_RAW, Config.PROTOCOL_RECVGAME, dimension, connections,
+                    (c, bytes) -> raws[c].timedRequest(raws[c].address + separator + Config.PROTOCOL_RECVGAME + separator + dimension, null, bytes));
+            runPhase(workers, TRANSPORT_RAW, Config.PROTOCOL_DATA, dimension, connections,
+                    (c, bytes) -> raws[c].timedRequest(raws[c].address + separator + Config.PROTOCOL_DATA + separator + "bench" + c
+                            + separator + (c % 100), "ACK_GAME_RESULTS", bytes));
+            runPhase(workers, TRANSPORT_RAW, Config.PROTOCOL_SPECTATE, dimension, connections, (c, bytes) -> {
+                RawConnection raw = raws[c];
+                raw.watch();
+                long start = System.nanoTime();
+                raw.request(raw.sendGameMessage(), "ACK", null);
+                String frame = raw.spectator.nextFrame();
+                long latency = System.nanoTime() - start;
+                bytes.add(frame.length() + 1);
+                return latency;
+            });
+            runChurnPhase(workers, TRANSPORT_RAW, Config.PROTOCOL_RESUME, dimension, connections, (c, bytes) -> {
+                RawConnection dropped = new RawConnection(dimension);
+                dropped.drop();
+                RawConnection resumed = new RawConnection(dimension);
+                try {
+                    long latency = resumed.timedRequest(resumed.address + separator + Config.PROTOCOL_RESUME + separator
+                            + dropped.address + separator + dropped.token, "ACK_RESUME", bytes);
+                    resumed.address = dropped.address;
+                    return latency;
+                } finally {
+                    resumed.close();
+                }
+            });
+            runChurnPhase(workers, TRANSPORT_RAW, CONNECT, dimension, connections, (c, bytes) -> {
+                long start = System.nanoTime();
+                RawConnection raw = new RawConnection(dimension);
+                long latency = System.nanoTime() - start;
+                bytes.add(raw.greetingBytes);
+                raw.close();
+                return latency;
+            });
+            runChurnPhase(workers, TRANSPORT_RAW, Config.PROTOCOL_END, dimension, connections, (c, bytes) -> {
+                RawConnection raw = new RawConnection(dimension);
+                long latency = raw.timedRequest(raw.address + separator + Config.PROTOCOL_END, "ACK_END", bytes);
+                raw.drop();
+                return latency;
+            });
+        } finally {
+            for (RawConnection raw : raws) {
+                if (raw != null) {
+                    raw.close();
+                }
+            }
+        }
+    }
+    /**
+     * Runs a message that reuses each connection, with the configured number of requests.
+     * @param workers The threads driving the connections.
+     * @param transport The transport being measured.
+     * @param message The message being measured.
+     * @param dimension The protocol dimension.
+     * @param connections The number of concurrent connections.
+     * @param exchange One measured request.
+     * @throws Exception if the phase cannot be run.
+     */
+    private void runPhase(ExecutorService workers, String transport, String message, int dimension, int connections, Exchange exchange) throws Exception {
+        runPhase(workers, transport, message, dimension, connections, warmup, requests, exchange);
+    }
+    /**
+     * Runs a message that opens a connection per request, with a tenth of the configured number
+     * of requests, since every request also pays for setting up and tearing down a session.
+     * @param workers The threads driving the connections.
+     * @param transport The transport being measured.
+     * @param message The message being measured.
+     * @param dimension The protocol dimension.
+     * @param connections The number of concurrent connections.
+     * @param exchange One measured request.
+     * @throws Exception if the phase cannot be run.
+     */
+    private void runChurnPhase(ExecutorService workers, String transport, String message, int dimension, int connections, Exchange exchange) throws Exception {
+        runPhase(workers, transport, message, dimension, connections, Math.max(1, warmup / 10), Math.max(10, requests / 10), exchange);
+    }
+    /**
+     * Runs one message on every connection at once and prints its result. Every connection sends
+     * its warmup requests, then all start the measured requests together.
+     * @param workers The threads driving the connections.
+     * @param transport The transport being measured.
+     * @param message The message being measured.
+     * @param dimension The protocol dimension.
+     * @param connections The number of concurrent connections.
+     * @param warmupRequests The number of unmeasured requests per connection.
+     * @param measuredRequests The number of measured requests per connection.
+     * @param exchange One measured request.
+     * @throws Exception if the phase cannot be run.
+     */
+    private void runPhase(ExecutorService workers, String transport, String message, int dimension, int connections,
+                          int warmupRequests, int measuredRequests, Exchange exchange) throws Exception {
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder bytes = new LongAdder();
+        LongAdder ignored = new LongAdder();
+        CyclicBarrier start = new CyclicBarrier(connections + 1);
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            int connection = i;
+            running.add(workers.submit(() -> {
+                for (int n = 0; n < warmupRequests; n++) {
+                    try {
+                        exchange.run(connection, ignored);
+                    } catch (IOException | RuntimeException e) {
+                        errors.increment();
+                    }
+                }
+                start.await();
+                for (int n = 0; n < measuredRequests; n++) {
+                    try {
+                        latency.record(exchange.run(connection, bytes));
+                        completed.increment();
+                    } catch (IOException | RuntimeException e) {
+                        errors.increment();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.await();
+        long serverBytesBefore = serverBytes();
+        long startNanos = System.nanoTime();
+        for (Future<?> future : running) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long count = completed.sum();
+        Double bytesPerMessage = null;
+        if (count > 0 && bytes.sum() > 0) {
+            bytesPerMessage = (double) bytes.sum() / count;
+        } else if (count > 0 && serverMetrics != null && TRANSPORT_CLIENT.equals(transport)) {
+            bytesPerMessage = (double) (serverBytes() - serverBytesBefore) / count;
+        }
+        printResult(transport, message, dimension, connections, count, errors.sum(), elapsedNanos, bytesPerMessage, latency);
+    }
+    /**
+     * Returns the bytes the embedded server has read and written so far.
+     * @return The byte count, or 0 when the server is not embedded.
+     */
+    private long serverBytes() {
+        return serverMetrics == null ? 0 : serverMetrics.getBytesIn() + serverMetrics.getBytesOut();
+    }
+    /**
+     * Prints the result of one message as a JSON object or a CSV row.
+     * @param transport The transport measured.
+     * @param message The message measured.
+     * @param dimension The protocol dimension.
+     * @param connections The number of concurrent connections.
+     * @param count The number of measured requests that completed.
+     * @param errors The number of requests that failed or got an unexpected response.
+     * @param elapsedNanos How long the measured requests took.
+     * @param bytesPerMessage The bytes of a request and its response, or null if they were not counted.
+     * @param latency The round-trip times of the completed requests.
+     */
+    private void printResult(String transport, String message, int dimension, int connections, long count, long errors,
+                             long elapsedNanos, Double bytesPerMessage, LatencyHistogram latency) {
+        double elapsedMillis = elapsedNanos / 1e6;
+        double rate = count / (elapsedNanos / 1e9);
+        double[] micros = {latency.getMean() / 1000, latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(90) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0, latency.getValueAtPercentile(99.9) / 1000.0, latency.getMax() / 1000.0};
+        if (csv) {
+            output.printf("%s,%s,%d,%d,%d,%d,%.1f,%.1f,%s,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f%n", transport, message, dimension, connections,
+                    count, errors, elapsedMillis, rate, bytesPerMessage == null ? "" : String.format("%.1f", bytesPerMessage),
+                    micros[0], micros[1], micros[2], micros[3], micros[4], micros[5]);
+        } else {
+            output.printf("{\"transport\":\"%s\",\"message\":\"%s\",\"dimension\":%d,\"connections\":%d,\"requests\":%d,\"errors\":%d,"
+                            + "\"elapsed_ms\":%.1f,\"msgs_per_sec\":%.1f,\"bytes_per_msg\":%s,\"mean_us\":%.1f,\"p50_us\":%.1f,"
+                            + "\"p90_us\":%.1f,\"p99_us\":%.1f,\"p999_us\":%.1f,\"max_us\":%.1f}%n", transport, message, dimension, connections,
+                    count, errors, elapsedMillis, rate, bytesPerMessage == null ? "null" : String.format("%.1f", bytesPerMessage),
+                    micros[0], micros[1], micros[2], micros[3], micros[4], micros[5]);
+        }
+        output.flush();
+    }
+
+    /**
+     * One measured request of a phase.
+     */
+    private interface Exchange {
+        /**
+         * Sends one request on a connection and waits for its response.
+         * @param connection The index of the connection.
+         * @param bytes Counts the bytes of the request and its response, when the transport can see them.
+         * @return The round-trip time in nanoseconds.
+         * @throws IOException if the request fails or gets an unexpected response.
+         */
+        long run(int connection, LongAdder bytes) throws IOException;
+    }
+
+    /**
+     * A connection speaking the protocol directly.
+     */
+    private class RawConnection {
+        private final Socket socket;
+        private final PrintWriter out;
+        private final BufferedReader in;
+        private final String token;
+        private final int greetingBytes;
+        private final String layout;
+        private String address;
+        private String board;  // The layout deltas are taken from
+        private int sequence;
+        private int nextCell;
+        private RawConnection spectator;
+
+        /**
+         * Opens a connection and reads the greeting.
+         * @param dimension The protocol dimension of the layouts this connection sends.
+         * @throws IOException if the server cannot be reached or is busy.
+         */
+        RawConnection(int dimension) throws IOException {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(Config.CLIENT_REQUEST_TIMEOUT_SECONDS * 1000);
+            out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String greeting = in.readLine();
+            if (greeting == null || Config.PROTOCOL_BUSY.equals(greeting)) {
+                socket.close();
+                throw new IOException("Server refused the connection: " + greeting);
+            }
+            String[] parts = greeting.split(Config.PROTOCOL_SEPARATOR);  // clientId#token
+            address = parts[0];
+            token = parts.length > 1 ? parts[1] : "";
+            greetingBytes = greeting.length() + 1;
+            GameModel model = new GameModel();
+            model.setDimension(dimension * 2);
+            layout = dimension + Config.FIELD_SEPARATOR + model.generatePlayerLayout();
+            board = layout.substring(layout.indexOf(Config.FIELD_SEPARATOR) + 1);
+        }
+        /**
+         * Builds a P1 message with this connection's layout.
+         * @return The message.
+         */
+        String sendGameMessage() {
+            return address + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_SENDGAME + Config.PROTOCOL_SEPARATOR + layout;
+        }
+        /**
+         * Records that the server has this connection's layout again, so deltas start from it.
+         */
+        void resetBoard() {
+            board = layout.substring(layout.indexOf(Config.FIELD_SEPARATOR) + 1);
+            sequence = 0;
+        }
+        /**
+         * Returns the board after one more move: the next cell in turn is fired at, or cleared if it was fired at before.
+         * @return The new layout.
+         */
+        String nextBoard() {
+            char[] cells = board.toCharArray();
+            int cell = nextCell++ % cells.length;
+            switch (cells[cell]) {
+                case 'B': cells[cell] = 'H'; break;
+                case 'H': cells[cell] = 'B'; break;
+                case 'M': cells[cell] = 'E'; break;
+                default: cells[cell] = 'M'; break;
+            }
+            return new String(cells);
+        }
+        /**
+         * Sends a request, waits for the response, and returns how long that took.
+         * @param message The request line.
+         * @param expected The start the response must have, or null to accept any response.
+         * @param bytes Counts the bytes of the request and its response.
+         * @return The round-trip time in nanoseconds.
+         * @throws IOException if the request fails or gets an unexpected response.
+         */
+        long timedRequest(String message, String expected, LongAdder bytes) throws IOException {
+            long start = System.nanoTime();
+            request(message, expected, bytes);
+            return System.nanoTime() - start;
+        }
+        /**
+         * Sends a request and waits for the response.
+         * @param message The request line.
+         * @param expected The start the response must have, or null to accept any response.
+         * @param bytes Counts the bytes of the request and its response, or null.
+         * @return The response line.
+         * @throws IOException if the request fails or gets an unexpected response.
+         */
+        String request(String message, String expected, LongAdder bytes) throws IOException {
+            out.print(message);
+            out.print('\n');
+            out.flush();
+            String response = in.readLine();
+            if (response == null) {
+                throw new EOFException("Server closed the connection.");
+            }
+            if (expected != null && !response.startsWith(expected)) {
+                if (Config.PROTOCOL_RESYNC.equals(response)) {
+                    request(sendGameMessage(), "ACK", null);
+                    resetBoard();
+                }
+                throw new IOException("Unexpected response to " + message.split(Config.PROTOCOL_SEPARATOR)[1] + ": " + response);
+            }
+            if (bytes != null) {
+                bytes.add(message.length() + response.length() + 2);
+            }
+            return response;
+        }
+        /**
+         * Opens a second connection that spectates this connection's game, unless one is open.
+         * @throws IOException if the server refuses.
+         */
+        void watch() throws IOException {
+            if (spectator == null) {
+                RawConnection watcher = new RawConnection(1);
+                watcher.request(watcher.address + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_SPECTATE + Config.PROTOCOL_SEPARATOR + address,
+                        "ACK_SPECTATE", null);
+                spectator = watcher;
+            }
+        }
+        /**
+         * Reads the next board update on a spectator connection, skipping keep-alive frames.
+         * @return The frame line.
+         * @throws IOException if the connection closes.
+         */
+        String nextFrame() throws IOException {
+            String frame;
+            do {
+                frame = in.readLine();
+                if (frame == null) {
+                    throw new EOFException("Server closed the spectator connection.");
+                }
+            } while (frame.split(Config.PROTOCOL_SEPARATOR).length < 3);
+            return frame;
+        }
+        /**
+         * Closes the socket without ending the session, as a dropped connection would.
+         */
+        void drop() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Closing is all that matters
+            }
+        }
+        /**
+         * Ends the session and closes the connection, and its spectator if it has one.
+         */
+        void close() {
+            if (spectator != null) {
+                spectator.drop();
+            }
+            if (!socket.isClosed()) {
+                try {
+                    request(address + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_END, null, null);
+                } catch (IOException e) {
+                    // The session ends when the server notices the connection is gone
+                }
+            }
+            drop();
+        }
+    }
+
+    /**
+     * Parses the command line, starts the embedded server unless told not to, and runs the benchmark.
+     * Results go to standard output; progress and the server's metrics go to standard error.
+     * @param args The command line arguments.
+     * @throws Exception if the benchmark cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        String host = Config.DEFAULT_ADDR;
+        int port = 0;
+        int[] dimensions = {1, 5, 10};
+        int[] connections = {1, 16, 64};
+        int requests = 1000;
+        int warmup = 100;
+        List<String> transports = Arrays.asList(TRANSPORT_CLIENT, TRANSPORT_RAW);
+        boolean csv = false;
+        boolean external = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host": host = args[++i]; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--dimensions": dimensions = parseList(args[++i]); break;
+                case "--connections": connections = parseList(args[++i]); break;
+                case "--requests": requests = Integer.parseInt(args[++i]); break;
+                case "--warmup": warmup = Integer.parseInt(args[++i]); break;
+                case "--transports": transports = Arrays.asList(args[++i].split(",")); break;
+                case "--format": csv = "csv".equals(args[++i]); break;
+                case "--external": external = true; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+        Server server = null;
+        if (!external) {
+            host = "127.0.0.1";
+            if (port == 0) {
+                try (ServerSocket probe = new ServerSocket(0)) {
+                    port = probe.getLocalPort();
+                }
+            }
+            // The benchmark measures the server, not its rate limits
+            Config.RATE_SENDGAME_PER_SECOND = Config.RATE_RECVGAME_PER_SECOND = Config.RATE_DATA_PER_SECOND = Config.RATE_HEARTBEAT_PER_SECOND = Integer.MAX_VALUE;
+            Config.RATE_SENDGAME_BURST = Config.RATE_RECVGAME_BURST = Config.RATE_DATA_BURST = Config.RATE_HEARTBEAT_BURST = Integer.MAX_VALUE;
+            int maxSessions = 2048;
+            server = new Server(port, DISCARD, new AdmissionPolicy(maxSessions, maxSessions, maxSessions, maxSessions));
+            Server embeddedServer = server;
+            Thread serverThread = new Thread(() -> {
+                try {
+                    embeddedServer.start();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "EmbeddedServer");
+            serverThread.setDaemon(true);
+            serverThread.start();
+            Thread.sleep(200);  // Give the server socket time to bind
+        } else if (port == 0) {
+            port = Config.DEFAULT_PORT;
+        }
+        System.err.println("Benchmarking " + host + ":" + port + (external ? "" : " (embedded)") + ", dimensions " + Arrays.toString(dimensions)
+                + ", connections " + Arrays.toString(connections) + ", " + requests + " requests after " + warmup + " warmup per connection");
+        long started = System.nanoTime();
+        new NetworkBenchmark(host, port, server == null ? null : server.getMetrics(), requests, warmup, csv, System.out)
+                .run(dimensions, connections, transports);
+        System.err.println("Finished in " + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) + " s");
+        if (server != null) {
+            System.err.print(server.getMetrics().render());
+            server.stop();
+        }
+    }
+    /**
+     * Parses a comma-separated list of numbers.
+     * @param list The list, such as 1,16,64.
+     * @return The numbers.
+     */
+    private static int[] parseList(String list) {
+        return Arrays.stream(list.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,68 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the server turns connections away with PROTOCOL_BUSY once it is at capacity,
+ * and takes new ones again when a session ends.
+ */
+class AdmissionTest {
+
+    /**
+     * A connection beyond the session limit is told the server is busy and is counted as rejected;
+     * once a session ends, the next connection is admitted.
+     */
+    @Test
+    void connectionOverTheLimitIsBusy() throws IOException, InterruptedException {
+        try (LoopbackServer server = new LoopbackServer(new AdmissionPolicy(1, 4, 1, 1))) {
+            awaitIdle(server, 1);
+            try (LoopbackServer.Connection admitted = server.connect()) {
+                assertNotNull(admitted.getToken());
+                assertEquals(Config.PROTOCOL_BUSY, firstLine(server));
+                assertEquals(1, server.metric("connections_rejected_total"));
+                assertEquals("ACK_HEARTBEAT", admitted.send(admitted.getClientId(), Config.PROTOCOL_HEARTBEAT));
+            }
+            awaitIdle(server, 2);
+            try (LoopbackServer.Connection next = server.connect()) {
+                assertEquals("ACK_HEARTBEAT", next.send(next.getClientId(), Config.PROTOCOL_HEARTBEAT));
+            }
+            assertEquals(1, server.metric("connections_rejected_total"));
+        }
+    }
+    /**
+     * Connects and reads the first line the server sends.
+     * @param server The server.
+     * @return The line.
+     * @throws IOException if nothing arrives in time.
+     */
+    private static String firstLine(LoopbackServer server) throws IOException {
+        try (Socket socket = new Socket(LoopbackServer.HOST, server.getPort())) {
+            socket.setSoTimeout(5000);
+            return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+        }
+    }
+    /**
+     * Waits until a number of connections have been admitted and none of them holds a session
+     * any more, counting the one that checked the server was up.
+     * @param server The server.
+     * @param accepted The number of connections admitted so far.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private static void awaitIdle(LoopbackServer server, long accepted) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (server.metric("connections_accepted_total") < accepted || server.metric("sessions_available") < 1) {
+            assertTrue(System.nanoTime() < deadline, "Sessions are still taken.");
+            Thread.sleep(10);
+        }
+    }
+}
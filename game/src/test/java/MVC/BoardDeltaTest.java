@@ -0,0 +1,115 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link BoardDelta} turns a delta back into the layout it was encoded from, in both formats.
+ */
+class BoardDeltaTest {
+    private static final String STATES = "EBHM";
+    private final Random random = new Random(42);
+
+    /**
+     * A delta where most cells changed is sent as a bitmap and applies back to the new layout.
+     */
+    @Test
+    void bitmapDeltaRoundTrips() {
+        String previous = randomLayout(400);
+        String current = randomLayout(400);
+        byte[] delta = BoardDelta.encode(previous, current);
+        assertEquals(0, delta[0]);
+        assertEquals(current, BoardDelta.apply(previous, delta));
+    }
+    /**
+     * A delta where few cells changed is sent in the sparse format, smaller than the bitmap alone.
+     */
+    @Test
+    void sparseDeltaRoundTrips() {
+        String previous = randomLayout(400);
+        char[] cells = previous.toCharArray();
+        cells[0] = next(cells[0]);
+        cells[217] = next(cells[217]);
+        cells[399] = next(cells[399]);
+        String current = new String(cells);
+        byte[] delta = BoardDelta.encode(previous, current);
+        assertEquals(1, delta[0]);
+        assertTrue(delta.length < 400 / 8, "A sparse delta of 3 cells took " + delta.length + " bytes.");
+        assertEquals(current, BoardDelta.apply(previous, delta));
+    }
+    /**
+     * A delta between identical layouts changes nothing.
+     */
+    @Test
+    void emptyDeltaKeepsTheLayout() {
+        String layout = randomLayout(100);
+        assertEquals(layout, BoardDelta.apply(layout, BoardDelta.encode(layout, layout)));
+    }
+    /**
+     * Layouts whose size is not a multiple of the packing round trip too.
+     */
+    @Test
+    void oddSizedLayoutsRoundTrip() {
+        for (int cells = 1; cells <= 19; cells++) {
+            String previous = randomLayout(cells);
+            String current = randomLayout(cells);
+            assertEquals(current, BoardDelta.apply(previous, BoardDelta.encode(previous, current)));
+        }
+    }
+    /**
+     * The wire form decodes to the same bytes and never contains a protocol separator.
+     */
+    @Test
+    void wireFormRoundTrips() {
+        byte[] delta = BoardDelta.encode(randomLayout(100), randomLayout(100));
+        String wire = BoardDelta.toWire(delta);
+        assertFalse(wire.contains(Config.PROTOCOL_SEPARATOR));
+        assertFalse(wire.contains(Config.FIELD_SEPARATOR));
+        assertArrayEquals(delta, BoardDelta.fromWire(wire));
+    }
+    /**
+     * Layouts of different sizes cannot be encoded against each other.
+     */
+    @Test
+    void layoutsOfDifferentSizesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BoardDelta.encode(randomLayout(16), randomLayout(25)));
+    }
+    /**
+     * A delta that does not fit the layout it is applied to is rejected instead of corrupting it.
+     */
+    @Test
+    void mismatchedDeltasAreRejected() {
+        String layout = randomLayout(400);
+        byte[] delta = BoardDelta.encode(layout, randomLayout(400));
+        assertThrows(IllegalArgumentException.class, () -> BoardDelta.apply(randomLayout(16), new byte[] {0, 1}));
+        assertThrows(IllegalArgumentException.class, () -> BoardDelta.apply(layout, new byte[] {7}));
+        assertThrows(IllegalArgumentException.class, () -> BoardDelta.apply(layout, Arrays.copyOf(delta, 10)));
+    }
+    /**
+     * Builds a random layout.
+     * @param cells The number of cells.
+     * @return The layout string.
+     */
+    private String randomLayout(int cells) {
+        char[] layout = new char[cells];
+        for (int i = 0; i < cells; i++) {
+            layout[i] = STATES.charAt(random.nextInt(STATES.length()));
+        }
+        return new String(layout);
+    }
+    /**
+     * Returns a cell state different from the given one.
+     * @param state The state.
+     * @return The next state in {@link LayoutCodec} order.
+     */
+    private static char next(char state) {
+        return STATES.charAt((STATES.indexOf(state) + 1) % STATES.length());
+    }
+}
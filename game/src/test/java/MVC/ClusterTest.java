@@ -0,0 +1,115 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that sessions follow the members of a cluster: a node that joins takes over the sessions
+ * the ring now puts on it, a node that leaves hands them back, and each node gives its clients IDs
+ * it owns itself.
+ */
+class ClusterTest {
+    private static final String SECRET = "cluster-test-secret";
+    private static final int CLIENTS = 40;
+
+    /**
+     * Clients of the first node keep their layouts while a second node joins and leaves again, and
+     * only the sessions in the ring ranges of the second node move.
+     */
+    @Test
+    void sessionsFollowTheMembers() throws IOException, InterruptedException {
+        InetSocketAddress firstAddress = new InetSocketAddress(LoopbackServer.HOST, LoopbackServer.freePort());
+        InetSocketAddress secondAddress = new InetSocketAddress(LoopbackServer.HOST, LoopbackServer.freePort());
+        ClusterNode[] nodes = new ClusterNode[2];
+        List<LoopbackServer.Connection> clients = new ArrayList<>();
+        try (LoopbackServer first = new LoopbackServer(AdmissionPolicy.defaults(),
+                server -> server.setCluster(nodes[0] = new ClusterNode(0, List.of(firstAddress), server, SECRET, LoopbackServer.QUIET)))) {
+            for (int i = 0; i < CLIENTS; i++) {
+                LoopbackServer.Connection client = first.connect();
+                clients.add(client);
+                assertEquals("ACK", client.send(client.getClientId(), Config.PROTOCOL_SENDGAME, "3" + Config.FIELD_SEPARATOR + layout(i)));
+            }
+            assertEquals(CLIENTS, first.metric("game_configurations_queued"));
+
+            try (LoopbackServer second = new LoopbackServer(AdmissionPolicy.defaults(),
+                    server -> server.setCluster(nodes[1] = new ClusterNode(1, secondAddress, firstAddress, server, SECRET, LoopbackServer.QUIET)))) {
+                awaitMetric(second, "connections_accepted_total", 1);  // Accepting clients, so the join is done
+                assertEquals(2, first.metric("cluster_members"));
+                assertEquals(2, second.metric("cluster_members"));
+                long moved = first.metric("sessions_moved_total");
+                assertEquals(countOwnedBy(nodes[1], clients), moved);
+                assertTrue(moved > 0 && moved < CLIENTS, moved + " of " + CLIENTS + " sessions moved.");
+                assertEquals(moved, second.metric("game_configurations_queued"));
+                assertEquals(CLIENTS - moved, first.metric("game_configurations_queued"));
+
+                for (int i = 0; i < CLIENTS; i++) {
+                    LoopbackServer.Connection client = clients.get(i);
+                    assertEquals(layout(i), client.send(client.getClientId(), Config.PROTOCOL_RECVGAME));
+                    assertEquals("ACK", client.send(client.getClientId(), Config.PROTOCOL_SENDGAME, "3" + Config.FIELD_SEPARATOR + layout(CLIENTS + i)));
+                }
+                assertEquals(moved, second.metric("game_configurations_queued"));
+                for (int i = 0; i < 10; i++) {
+                    try (LoopbackServer.Connection client = second.connect()) {
+                        assertTrue(nodes[1].isLocal(client.getClientId()), "Client " + client.getClientId() + " is owned by another node.");
+                    }
+                    try (LoopbackServer.Connection client = first.connect()) {
+                        assertTrue(nodes[0].isLocal(client.getClientId()), "Client " + client.getClientId() + " is owned by another node.");
+                    }
+                }
+            }
+
+            assertEquals(1, first.metric("cluster_members"));
+            assertEquals(CLIENTS, first.metric("game_configurations_queued"));
+            for (int i = 0; i < CLIENTS; i++) {
+                LoopbackServer.Connection client = clients.get(i);
+                assertEquals(layout(CLIENTS + i), client.send(client.getClientId(), Config.PROTOCOL_RECVGAME));
+            }
+        } finally {
+            for (LoopbackServer.Connection client : clients) {
+                client.close();
+            }
+        }
+    }
+    /**
+     * Counts the clients whose sessions a node owns.
+     * @param node The cluster node.
+     * @param clients The connections of the clients.
+     * @return The number of sessions the node owns.
+     */
+    private static long countOwnedBy(ClusterNode node, List<LoopbackServer.Connection> clients) {
+        return clients.stream().filter(client -> node.isLocal(client.getClientId())).count();
+    }
+    /**
+     * Builds a layout of dimension 3 that differs for every number.
+     * @param n The number.
+     * @return The layout, a 6 by 6 grid.
+     */
+    private static String layout(int n) {
+        char[] cells = "E".repeat(36).toCharArray();
+        for (int i = 0; i < 6; i++) {
+            cells[i] = "EBHM".charAt((n >> (2 * i)) & 3);
+        }
+        return new String(cells);
+    }
+    /**
+     * Waits for a server metric to reach at least a value.
+     * @param server The server.
+     * @param name The metric name.
+     * @param expected The value to wait for.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private static void awaitMetric(LoopbackServer server, String name, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (server.metric(name) < expected) {
+            assertTrue(System.nanoTime() < deadline, name + " is " + server.metric(name) + ", not " + expected + ".");
+            Thread.sleep(10);
+        }
+    }
+}
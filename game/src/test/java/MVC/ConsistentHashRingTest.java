@@ -0,0 +1,106 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link ConsistentHashRing} spreads keys evenly and keeps them in place as nodes come and go.
+ */
+class ConsistentHashRingTest {
+    private static final int POINTS_PER_NODE = 128;
+    private static final int KEYS = 30_000;
+
+    /**
+     * Every node of the cluster builds the same ring, so they agree on who owns a key.
+     */
+    @Test
+    void ringsOfTheSameClusterAgree() {
+        ConsistentHashRing ring = new ConsistentHashRing(3, POINTS_PER_NODE);
+        ConsistentHashRing other = new ConsistentHashRing(3, POINTS_PER_NODE);
+        for (long key = 0; key < KEYS; key++) {
+            assertEquals(ring.nodeFor(key), other.nodeFor(key));
+        }
+    }
+    /**
+     * Consecutive client IDs are spread close to evenly over the nodes.
+     */
+    @Test
+    void keysSpreadEvenly() {
+        int nodes = 4;
+        ConsistentHashRing ring = new ConsistentHashRing(nodes, POINTS_PER_NODE);
+        int[] owned = new int[nodes];
+        for (long key = 0; key < KEYS; key++) {
+            owned[ring.nodeFor(key)]++;
+        }
+        for (int node = 0; node < nodes; node++) {
+            double share = (double) owned[node] / KEYS;
+            assertTrue(share > 0.15 && share < 0.35, "Node " + node + " owns " + share + " of the keys.");
+        }
+    }
+    /**
+     * Adding a node only moves keys to the new node, and about its fair share of them.
+     */
+    @Test
+    void addingANodeOnlyMovesKeysToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(3, POINTS_PER_NODE);
+        ConsistentHashRing after = new ConsistentHashRing(4, POINTS_PER_NODE);
+        int moved = 0;
+        for (long key = 0; key < KEYS; key++) {
+            int owner = after.nodeFor(key);
+            if (owner != before.nodeFor(key)) {
+                assertEquals(3, owner, "Key " + key + " moved between existing nodes.");
+                moved++;
+            }
+        }
+        double share = (double) moved / KEYS;
+        assertTrue(share > 0.15 && share < 0.35, share + " of the keys moved.");
+    }
+    /**
+     * Removing a node only moves the keys it owned, whatever the IDs of the nodes.
+     */
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of(2, 7, 11, 40), POINTS_PER_NODE);
+        ConsistentHashRing after = new ConsistentHashRing(List.of(2, 11, 40), POINTS_PER_NODE);
+        for (long key = 0; key < KEYS; key++) {
+            int owner = before.nodeFor(key);
+            if (owner != 7) {
+                assertEquals(owner, after.nodeFor(key), "Key " + key + " moved between remaining nodes.");
+            } else {
+                assertTrue(after.getNodes().contains(after.nodeFor(key)));
+            }
+        }
+    }
+    /**
+     * A node's place on the ring depends on its ID, not on the order the members are listed in.
+     */
+    @Test
+    void ringsOverTheSameMembersAgree() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(5, 1, 9), POINTS_PER_NODE);
+        ConsistentHashRing other = new ConsistentHashRing(List.of(9, 5, 1), POINTS_PER_NODE);
+        for (long key = 0; key < KEYS; key++) {
+            assertEquals(ring.nodeFor(key), other.nodeFor(key));
+        }
+    }
+    /**
+     * A single node owns every key.
+     */
+    @Test
+    void singleNodeOwnsEverything() {
+        ConsistentHashRing ring = new ConsistentHashRing(1, POINTS_PER_NODE);
+        for (long key = 0; key < 1000; key++) {
+            assertEquals(0, ring.nodeFor(key));
+        }
+    }
+    /**
+     * A ring without nodes cannot be built.
+     */
+    @Test
+    void emptyRingIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0, POINTS_PER_NODE));
+    }
+}
@@ -0,0 +1,83 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link IdleTimer} expires idle connections, and only idle ones.
+ */
+class IdleTimerTest {
+    private static final long TIMEOUT_MILLIS = 100;
+    private static final long TICK_MILLIS = 10;
+    private IdleTimer timer;
+
+    /**
+     * Starts a timer with a short timeout.
+     */
+    @BeforeEach
+    void startTimer() {
+        timer = new IdleTimer(TIMEOUT_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        timer.start();
+    }
+    /**
+     * Stops the timer.
+     */
+    @AfterEach
+    void stopTimer() {
+        timer.stop();
+    }
+    /**
+     * A connection with no activity is expired once, shortly after the timeout.
+     */
+    @Test
+    void idleEntryExpires() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        long registered = System.nanoTime();
+        timer.register(expired::countDown);
+        assertTrue(expired.await(2, TimeUnit.SECONDS), "The idle entry was not expired.");
+        assertTrue(System.nanoTime() - registered >= TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS), "Expired before the timeout.");
+    }
+    /**
+     * Activity keeps pushing the expiry back; the connection expires once the activity stops.
+     */
+    @Test
+    void touchedEntryStaysUntilIdle() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        IdleTimer.Entry entry = timer.register(expired::countDown);
+        for (int i = 0; i < 15; i++) {
+            Thread.sleep(TIMEOUT_MILLIS / 5);
+            entry.touch();
+        }
+        assertEquals(1, expired.getCount(), "An active entry was expired.");
+        assertTrue(expired.await(2, TimeUnit.SECONDS), "The entry was not expired once idle.");
+    }
+    /**
+     * A connection busy with a request is never expired, however long the request takes.
+     */
+    @Test
+    void busyEntryIsNotExpired() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        IdleTimer.Entry entry = timer.register(expired::countDown);
+        entry.setBusy(true);
+        Thread.sleep(TIMEOUT_MILLIS * 3);
+        assertEquals(1, expired.getCount(), "A busy entry was expired.");
+        entry.setBusy(false);
+        assertTrue(expired.await(2, TimeUnit.SECONDS), "The entry was not expired once no longer busy.");
+    }
+    /**
+     * A cancelled connection is never expired.
+     */
+    @Test
+    void cancelledEntryIsNotExpired() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        timer.register(expired::countDown).cancel();
+        Thread.sleep(TIMEOUT_MILLIS * 3);
+        assertEquals(1, expired.getCount(), "A cancelled entry was expired.");
+    }
+}
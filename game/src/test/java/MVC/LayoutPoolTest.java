@@ -0,0 +1,101 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link LayoutPool} keeps layouts ready, and that a P2 with nothing queued is
+ * answered from it instead of waiting.
+ */
+class LayoutPoolTest {
+
+    /**
+     * A prefilled pool fills up to capacity with layouts of the right size, and is topped up
+     * again once taking layouts leaves it below the low watermark.
+     */
+    @Test
+    void poolFillsAndRefills() throws InterruptedException {
+        LayoutPool pool = new LayoutPool(8, 4);
+        try {
+            pool.prefill(3);
+            awaitAtLeast(pool::getSize, 8);
+            for (int i = 0; i < 5; i++) {
+                String layout = pool.poll(3);
+                assertNotNull(layout);
+                assertEquals(6 * 6, layout.length());
+                assertTrue(layout.matches("[EB]+"), "Not a fresh layout: " + layout);
+            }
+            assertEquals(5, pool.getServedCount());
+            awaitAtLeast(pool::getGeneratedCount, 13);
+            awaitAtLeast(pool::getSize, 8);
+        } finally {
+            pool.stop();
+        }
+    }
+    /**
+     * Dimensions outside the range the game offers are never generated.
+     */
+    @Test
+    void onlyOfferedDimensionsArePooled() {
+        LayoutPool pool = new LayoutPool(8, 4);
+        try {
+            assertNull(pool.poll(0));
+            assertNull(pool.poll(Config.LAYOUT_POOL_MAX_DIMENSION + 1));
+            assertEquals(0, pool.getSize());
+            assertEquals(0, pool.getGeneratedCount());
+        } finally {
+            pool.stop();
+        }
+    }
+    /**
+     * A P2 for a session with nothing queued gets a pre-generated layout of the requested dimension.
+     */
+    @Test
+    void emptyQueueIsAnsweredFromThePool() throws IOException, InterruptedException {
+        try (LoopbackServer server = new LoopbackServer()) {
+            awaitAtLeast(() -> server.metric("layout_pool_size"), 1);
+            try (LoopbackServer.Connection connection = server.connect()) {
+                int dimension = Config.DEFAULT_DIMENSION;
+                String layout = connection.send(connection.getClientId(), Config.PROTOCOL_RECVGAME, dimension);
+                assertEquals(4 * dimension * dimension, layout.length());
+                assertEquals(1, server.metric("layout_pool_served_total"));
+            }
+        }
+    }
+    /**
+     * A layout queued by the client is served before any pooled one.
+     */
+    @Test
+    void queuedLayoutComesBeforeThePool() throws IOException, InterruptedException {
+        try (LoopbackServer server = new LoopbackServer()) {
+            awaitAtLeast(() -> server.metric("layout_pool_size"), 1);
+            try (LoopbackServer.Connection connection = server.connect()) {
+                int dimension = Config.DEFAULT_DIMENSION;
+                String sent = "HM" + "E".repeat(4 * dimension * dimension - 2);
+                assertEquals("ACK", connection.send(connection.getClientId(), Config.PROTOCOL_SENDGAME, dimension + Config.FIELD_SEPARATOR + sent));
+                assertEquals(sent, connection.send(connection.getClientId(), Config.PROTOCOL_RECVGAME, dimension));
+                assertEquals(0, server.metric("layout_pool_served_total"));
+            }
+        }
+    }
+    /**
+     * Waits for a count to reach a value.
+     * @param count The count.
+     * @param expected The value to wait for.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private static void awaitAtLeast(LongSupplier count, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count.getAsLong() < expected) {
+            assertTrue(System.nanoTime() < deadline, "Gave up waiting for " + expected + ", reached " + count.getAsLong() + ".");
+            Thread.sleep(10);
+        }
+    }
+}
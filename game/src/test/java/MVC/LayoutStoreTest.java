@@ -0,0 +1,129 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link LayoutStore} shares one copy between a layout and its rotations and
+ * reflections, and still gives each back exactly as it was sent.
+ */
+class LayoutStoreTest {
+    private static final String STATES = "EBHM";
+    private static final int SIDE = 6;
+    private final Random random = new Random(7);
+
+    /**
+     * All 8 orientations of a layout get the same canonical ID and are stored once.
+     */
+    @Test
+    void symmetricLayoutsShareOneCanonicalCopy() {
+        LayoutStore store = new LayoutStore();
+        List<String> orientations = orientations(randomLayout());
+        List<LayoutStore.Ref> refs = new ArrayList<>();  // The store only holds weakly what the refs share
+        refs.add(store.intern(orientations.get(0)));
+        for (String layout : orientations) {
+            refs.add(store.intern(layout));
+            assertEquals(refs.get(0).getCanonicalId(), refs.get(refs.size() - 1).getCanonicalId());
+        }
+        assertEquals(1, store.getUniqueCount());
+        assertEquals(9, store.getInternedCount());
+        assertEquals(8, store.getSharedCount());
+    }
+    /**
+     * Each orientation is rebuilt as it was sent, not as the canonical copy it shares.
+     */
+    @Test
+    void eachOrientationIsRebuiltAsSent() {
+        LayoutStore store = new LayoutStore();
+        for (String layout : orientations(randomLayout())) {
+            assertEquals(layout, store.intern(layout).layout());
+        }
+    }
+    /**
+     * Layouts that are not rotations or reflections of each other are kept apart.
+     */
+    @Test
+    void differentShapesAreKeptApart() {
+        LayoutStore store = new LayoutStore();
+        String first = "B" + "E".repeat(SIDE * SIDE - 1);
+        String second = "EB" + "E".repeat(SIDE * SIDE - 2);
+        LayoutStore.Ref firstRef = store.intern(first);
+        LayoutStore.Ref secondRef = store.intern(second);
+        assertNotEquals(firstRef.getCanonicalId(), secondRef.getCanonicalId());
+        assertEquals(2, store.getUniqueCount());
+        assertEquals(0, store.getSharedCount());
+    }
+    /**
+     * A layout that is not square is stored as sent.
+     */
+    @Test
+    void nonSquareLayoutsRoundTrip() {
+        LayoutStore store = new LayoutStore();
+        String layout = "BHMEEBHMEEB";
+        LayoutStore.Ref first = store.intern(layout);
+        LayoutStore.Ref second = store.intern(layout);
+        assertEquals(layout, first.layout());
+        assertEquals(layout, second.layout());
+        assertEquals(1, store.getSharedCount());
+    }
+    /**
+     * Returns the 8 rotations and reflections of a square layout.
+     * @param layout The layout.
+     * @return The identity, the three rotations, then the same four of its mirror image.
+     */
+    private static List<String> orientations(String layout) {
+        List<String> orientations = new ArrayList<>();
+        for (String start : new String[] {layout, mirror(layout)}) {
+            String rotated = start;
+            for (int i = 0; i < 4; i++) {
+                orientations.add(rotated);
+                rotated = rotate(rotated);
+            }
+        }
+        return orientations;
+    }
+    /**
+     * Rotates a square layout a quarter turn clockwise.
+     * @param layout The layout.
+     * @return The rotated layout.
+     */
+    private static String rotate(String layout) {
+        char[] rotated = new char[layout.length()];
+        for (int row = 0; row < SIDE; row++) {
+            for (int col = 0; col < SIDE; col++) {
+                rotated[row * SIDE + col] = layout.charAt((SIDE - 1 - col) * SIDE + row);
+            }
+        }
+        return new String(rotated);
+    }
+    /**
+     * Mirrors a square layout left to right.
+     * @param layout The layout.
+     * @return The mirrored layout.
+     */
+    private static String mirror(String layout) {
+        char[] mirrored = new char[layout.length()];
+        for (int row = 0; row < SIDE; row++) {
+            for (int col = 0; col < SIDE; col++) {
+                mirrored[row * SIDE + col] = layout.charAt(row * SIDE + (SIDE - 1 - col));
+            }
+        }
+        return new String(mirrored);
+    }
+    /**
+     * Builds a random square layout, which has no symmetry of its own.
+     * @return The layout string.
+     */
+    private String randomLayout() {
+        char[] layout = new char[SIDE * SIDE];
+        for (int i = 0; i < layout.length; i++) {
+            layout[i] = STATES.charAt(random.nextInt(STATES.length()));
+        }
+        return new String(layout);
+    }
+}
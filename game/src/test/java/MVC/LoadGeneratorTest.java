@@ -0,0 +1,88 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link LoadGenerator} drives a server with the requested clients and games, and
+ * reports what happened.
+ */
+class LoadGeneratorTest {
+    private static final Pattern TOTALS = Pattern.compile(
+            "Requests: (\\d+) .*, throttled: (\\d+), rejected clients: (\\d+), failed clients: (\\d+)");
+
+    /**
+     * Every client connects, sends requests to each of its games, ends them all, and the
+     * server sees the same requests the report counts.
+     */
+    @Test
+    void clientsPlayAndEndTheirGames() throws IOException, InterruptedException {
+        try (LoopbackServer server = new LoopbackServer()) {
+            awaitSessionsAvailable(server, Config.DEFAULT_MAX_SESSIONS);
+            Matcher totals = run(new LoadGenerator(LoopbackServer.HOST, server.getPort(), 4, 1, 5, new int[] {1, 1, 1},
+                    Config.DEFAULT_DIMENSION, 2));
+            assertEquals("0", totals.group(3));
+            assertEquals("0", totals.group(4));
+            long requests = Long.parseLong(totals.group(1));
+            assertTrue(requests > 4 * 2, requests + " requests");
+            assertEquals(4 * 2, server.metric("messages_total{type=\"" + Config.PROTOCOL_END + "\"}"));
+            long served = 0;
+            for (String type : new String[] {Config.PROTOCOL_END, Config.PROTOCOL_SENDGAME, Config.PROTOCOL_RECVGAME, Config.PROTOCOL_DATA}) {
+                String metric = "messages_total{type=\"" + type + "\"}";
+                served += server.getMetrics().render().contains(metric) ? server.metric(metric) : 0;
+            }
+            assertEquals(requests, served);
+        }
+    }
+    /**
+     * Clients the server turns away are reported as rejected, not failed.
+     */
+    @Test
+    void clientsOverCapacityAreReportedAsRejected() throws IOException, InterruptedException {
+        try (LoopbackServer server = new LoopbackServer(new AdmissionPolicy(2, 8, 2, 1))) {
+            awaitSessionsAvailable(server, 2);
+            Matcher totals = run(new LoadGenerator(LoopbackServer.HOST, server.getPort(), 4, 1, 5, new int[] {0, 0, 1},
+                    Config.DEFAULT_DIMENSION, 1));
+            assertEquals("2", totals.group(3));
+            assertEquals("0", totals.group(4));
+            assertEquals(2, server.metric("connections_rejected_total"));
+        }
+    }
+    /**
+     * Runs a load generator and finds the totals in its report.
+     * @param load The load generator.
+     * @return The match of the totals line: requests, throttled, rejected and failed clients.
+     * @throws InterruptedException if interrupted while the load runs.
+     */
+    private static Matcher run(LoadGenerator load) throws InterruptedException {
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        load.run(new PrintStream(report, true, StandardCharsets.UTF_8));
+        Matcher totals = TOTALS.matcher(report.toString(StandardCharsets.UTF_8));
+        assertTrue(totals.find(), report.toString(StandardCharsets.UTF_8));
+        return totals;
+    }
+    /**
+     * Waits until the connection that checked the server was up has given its session back,
+     * and the layout pool has layouts to serve.
+     * @param server The server.
+     * @param sessions The session limit of the server.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private static void awaitSessionsAvailable(LoopbackServer server, long sessions) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (server.metric("connections_accepted_total") < 1 || server.metric("sessions_available") < sessions
+                || server.metric("layout_pool_size") < 1) {
+            assertTrue(System.nanoTime() < deadline, "The server did not settle.");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package MVC;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Server} on a free loopback port, for tests that talk to it over the network.
+ */
+final class LoopbackServer implements AutoCloseable {
+    static final String HOST = "localhost";
+    static final PrintStream QUIET = new PrintStream(OutputStream.nullOutputStream());
+    private static final int RESPONSE_TIMEOUT_MILLIS = 5000;
+    private final Server server;
+    private final int port;
+
+    /**
+     * Starts a server with the default admission policy, see {@link #LoopbackServer(AdmissionPolicy)}.
+     * @throws IOException if no port is free or the server does not come up.
+     * @throws InterruptedException if interrupted while waiting for the server.
+     */
+    LoopbackServer() throws IOException, InterruptedException {
+        this(AdmissionPolicy.defaults());
+    }
+    /**
+     * Starts a server without metrics endpoint or snapshots, and waits until it accepts connections.
+     * @param policy The limits applied to incoming client connections.
+     * @throws IOException if no port is free or the server does not come up.
+     * @throws InterruptedException if interrupted while waiting for the server.
+     */
+    LoopbackServer(AdmissionPolicy policy) throws IOException, InterruptedException {
+        this(policy, server -> { });
+    }
+    /**
+     * Starts a server without metrics endpoint or snapshots, and waits until it listens for
+     * connections; a cluster node may still be joining.
+     * @param policy The limits applied to incoming client connections.
+     * @param setup Configures the server before it starts.
+     * @throws IOException if no port is free or the server does not come up.
+     * @throws InterruptedException if interrupted while waiting for the server.
+     */
+    LoopbackServer(AdmissionPolicy policy, Consumer<Server> setup) throws IOException, InterruptedException {
+        port = freePort();
+        server = new Server(port, QUIET, policy);
+        server.setMetricsPort(0);
+        setup.accept(server);
+        Thread thread = new Thread(() -> {
+            try {
+                server.start();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "LoopbackServer");
+        thread.setDaemon(true);
+        thread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            try {
+                new Socket(HOST, port).close();  // The probe is handled like any client that disconnects
+                return;
+            } catch (IOException e) {
+                if (System.nanoTime() > deadline) {
+                    throw new IOException("The server did not start on port " + port + ".", e);
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+    /**
+     * Finds a loopback port no one listens on.
+     * @return The port.
+     * @throws IOException if no port is free.
+     */
+    static int freePort() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            return probe.getLocalPort();
+        }
+    }
+    /**
+     * Returns the port the server listens on.
+     * @return The port.
+     */
+    int getPort() {
+        return port;
+    }
+    /**
+     * Returns the metrics registry of the server.
+     * @return The server metrics.
+     */
+    ServerMetrics getMetrics() {
+        return server.getMetrics();
+    }
+    /**
+     * Reads a gauge or counter from the server metrics.
+     * @param name The metric name.
+     * @return The value.
+     */
+    long metric(String name) {
+        for (String line : server.getMetrics().render().split("\n")) {
+            if (line.startsWith(name + " ")) {
+                return Long.parseLong(line.substring(name.length() + 1));
+            }
+        }
+        throw new IllegalArgumentException("No metric " + name + ".");
+    }
+    /**
+     * Opens a connection speaking the text protocol directly.
+     * @return The connection, with the greeting read.
+     * @throws IOException if the server cannot be reached.
+     */
+    Connection connect() throws IOException {
+        return new Connection(new Socket(HOST, port));
+    }
+    /**
+     * Stops the server.
+     * @throws IOException if there's an error in network communication.
+     */
+    @Override
+    public void close() throws IOException {
+        server.stop();
+    }
+
+    /**
+     * A raw connection to the server: one request line out, one response line back.
+     */
+    static final class Connection implements Closeable {
+        private final Socket socket;
+        private final PrintWriter out;
+        private final BufferedReader in;
+        private final int clientId;
+        private final String token;
+
+        /**
+         * Wraps a socket and reads the greeting, clientId#token.
+         * @param socket The connected socket.
+         * @throws IOException if the greeting cannot be read.
+         */
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setSoTimeout(RESPONSE_TIMEOUT_MILLIS);
+            out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String[] greeting = in.readLine().split(Config.PROTOCOL_SEPARATOR);
+            clientId = Integer.parseInt(greeting[0]);
+            token = greeting[1];
+        }
+        /**
+         * Returns the client ID the server assigned to the connection.
+         * @return The client ID.
+         */
+        int getClientId() {
+            return clientId;
+        }
+        /**
+         * Returns the token that resumes the connection's session.
+         * @return The session token.
+         */
+        String getToken() {
+            return token;
+        }
+        /**
+         * Sends a request and reads its response.
+         * @param fields The fields of the request, joined with the protocol separator.
+         * @return The response line.
+         * @throws IOException if no response arrives in time.
+         */
+        String send(Object... fields) throws IOException {
+            StringBuilder request = new StringBuilder();
+            for (Object field : fields) {
+                if (request.length() > 0) {
+                    request.append(Config.PROTOCOL_SEPARATOR);
+                }
+                request.append(field);
+            }
+            out.println(request);
+            return in.readLine();
+        }
+        /**
+         * Reads the next line the server sends without sending anything.
+         * @return The line, or null if the server closed the connection.
+         * @throws IOException if nothing arrives in time.
+         */
+        String receive() throws IOException {
+            return in.readLine();
+        }
+        /**
+         * Closes the connection.
+         * @throws IOException if there's an error in network communication.
+         */
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that several games played over one connection keep their own state on the server,
+ * and that a game with nothing to serve does not hold up the others.
+ */
+class MultiplexTest {
+    private static final int UNPOOLED = Config.LAYOUT_POOL_MAX_DIMENSION + 1;  // P2 for it is never answered from the pool
+    private LoopbackServer server;
+    private Client client;
+
+    /**
+     * Starts a server and connects a client to it.
+     */
+    @BeforeEach
+    void connect() throws IOException, InterruptedException {
+        server = new LoopbackServer();
+        client = new Client(LoopbackServer.HOST, server.getPort(), new GameModel(), LoopbackServer.QUIET);
+        client.setRequestTimeout(5000);
+        client.startConnection();
+    }
+    /**
+     * Disconnects the client and stops the server.
+     */
+    @AfterEach
+    void disconnect() throws IOException {
+        client.stopConnection();
+        server.close();
+    }
+    /**
+     * Each game gets back the layouts sent for it, and ending one game leaves the other's queue alone.
+     */
+    @Test
+    void gamesKeepTheirOwnLayouts() throws IOException {
+        GameModel firstModel = randomBoard(UNPOOLED);
+        GameModel secondModel = randomBoard(UNPOOLED);
+        GameChannel first = open(firstModel);
+        GameChannel second = open(secondModel);
+        first.sendGameConfiguration();
+        second.sendGameConfiguration();
+        second.sendGameConfiguration();
+        assertEquals(3, server.metric("game_configurations_queued"));
+
+        assertEquals(secondModel.printGridsString(), second.requestGameConfiguration());
+        assertEquals(firstModel.printGridsString(), first.requestGameConfiguration());
+        first.endGame();
+        assertEquals(secondModel.printGridsString(), second.requestGameConfiguration());
+        assertEquals(0, server.metric("game_configurations_queued"));
+    }
+    /**
+     * A P2 for a game with nothing queued is answered straight away, so the game sending the
+     * layout it is waiting for is not blocked behind it, and no layout is lost.
+     */
+    @Test
+    void emptyGameDoesNotBlockTheOthers() throws IOException {
+        GameModel model = randomBoard(UNPOOLED);
+        GameChannel waiting = open(randomBoard(UNPOOLED));
+        GameChannel sending = open(model);
+
+        long start = System.nanoTime();
+        assertNull(waiting.requestGameConfiguration());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "The P2 waited for a layout.");
+        sending.sendGameConfiguration();
+        assertEquals(model.printGridsString(), sending.requestGameConfiguration());
+        assertNull(waiting.requestGameConfiguration());
+        assertEquals(0, server.metric("game_configurations_queued"));
+    }
+    /**
+     * Opens a game on the client's connection for layouts of a given dimension.
+     * @param model The model whose layout the game sends.
+     * @return The game.
+     */
+    private GameChannel open(GameModel model) {
+        GameChannel game = client.openGame(model);
+        game.setDimension(UNPOOLED);
+        game.setDeltaSync(false);
+        return game;
+    }
+    /**
+     * Builds a model with boats placed at random.
+     * @param dimension The board dimension, as sent by clients; the grid is twice as wide.
+     * @return The model.
+     */
+    private static GameModel randomBoard(int dimension) {
+        GameModel model = new GameModel();
+        model.setDimension(dimension * 2);
+        model.generatePlayerLayout();
+        return model;
+    }
+}
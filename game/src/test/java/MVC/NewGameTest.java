@@ -0,0 +1,84 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a new game reuses the boards of the last one without anything of it left on them.
+ */
+class NewGameTest {
+
+    /**
+     * After a game with boats placed and shots fired on both boards, a new game starts from an
+     * empty model and draws nothing on the boards, even once the changed cells are painted.
+     */
+    @Test
+    void newGameRendersEmptyBoards() {
+        GameModel model = new GameModel();
+        BoardComponent[] boards = {new BoardComponent("player", 1, 1), new BoardComponent("opponent", 1, 1)};
+        GameView.startNewGame(model, boards);
+        model.placeRandomBoats();
+        Random random = new Random(42);
+        for (int i = 0; i < model.getDimension(); i++) {
+            model.makeMove(1, random.nextInt(model.getDimension()), random.nextInt(model.getDimension()));
+            int target = model.pickComputerTarget(random);
+            model.makeMove(0, target / model.getDimension(), target % model.getDimension());
+        }
+        GameView.paintChangedCells(model, 0, boards[0]);
+        GameView.paintChangedCells(model, 1, boards[1]);
+        assertTrue(countPainted(boards[0]) > 0, "The played game was not drawn.");
+
+        GameView.startNewGame(model, boards);
+        assertEquals(0, model.getPlayerHits());
+        assertEquals(0, model.getComputerHits());
+        for (int boardIndex = 0; boardIndex < boards.length; boardIndex++) {
+            assertTrue(model.takeChangedCells(boardIndex).isEmpty(), "Board " + boardIndex + " has cells left to draw.");
+            GameView.paintChangedCells(model, boardIndex, boards[boardIndex]);
+            assertEquals(model.getDimension(), boards[boardIndex].getRows());
+            assertEquals(0, countPainted(boards[boardIndex]), "Board " + boardIndex + " is not empty.");
+        }
+        for (GameModel.CellState[] row : model.getGridPlayer()) {
+            for (GameModel.CellState cell : row) {
+                assertEquals(GameModel.CellState.E, cell);
+            }
+        }
+    }
+    /**
+     * A new game at another dimension sizes the boards to it, empty.
+     */
+    @Test
+    void newDimensionRendersEmptyBoards() {
+        GameModel model = new GameModel();
+        BoardComponent[] boards = {new BoardComponent("player", 1, 1), new BoardComponent("opponent", 1, 1)};
+        model.placeRandomBoats();
+        model.makeMove(1, 0, 0);
+        int dimension = model.getDimension() + 2;
+        model.setDimension(dimension);
+        GameView.startNewGame(model, boards);
+        for (BoardComponent board : boards) {
+            assertEquals(dimension, board.getColumns());
+            assertEquals(0, countPainted(board));
+        }
+        assertNotNull(model.getGridOpponent()[dimension - 1][dimension - 1]);
+    }
+    /**
+     * Counts the cells of a board that have a color.
+     * @param board The board.
+     * @return The number of colored cells.
+     */
+    private static int countPainted(BoardComponent board) {
+        int painted = 0;
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getColumns(); col++) {
+                if (board.getCellColor(row, col) != null) {
+                    painted++;
+                }
+            }
+        }
+        return painted;
+    }
+}
@@ -0,0 +1,63 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that client requests are rate limited, and that requests the server does not take
+ * from clients are refused before they reach a session or the metrics.
+ */
+class RateLimitTest {
+    private LoopbackServer server;
+
+    /**
+     * Starts a server.
+     */
+    @BeforeEach
+    void startServer() throws IOException, InterruptedException {
+        server = new LoopbackServer();
+    }
+    /**
+     * Stops the server.
+     */
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+    /**
+     * Requests of the same type are throttled once their burst is used up.
+     */
+    @Test
+    void burstIsThrottled() throws IOException {
+        try (LoopbackServer.Connection connection = server.connect()) {
+            for (int i = 0; i < Config.RATE_HEARTBEAT_BURST; i++) {
+                assertEquals("ACK_HEARTBEAT", connection.send(connection.getClientId(), Config.PROTOCOL_HEARTBEAT));
+            }
+            assertEquals(Config.PROTOCOL_THROTTLED, connection.send(connection.getClientId(), Config.PROTOCOL_HEARTBEAT));
+        }
+    }
+    /**
+     * Unknown types, internal types and malformed requests are answered with PROTOCOL_INVALID
+     * from a bucket of their own, so they are throttled too, and none of them shows up in the metrics.
+     */
+    @Test
+    void unknownRequestsAreRefusedAndThrottled() throws IOException {
+        try (LoopbackServer.Connection connection = server.connect()) {
+            int clientId = connection.getClientId();
+            String[] invalid = {clientId + "#X1", clientId + "#" + Config.PROTOCOL_REQUEUE + "#EEEE", "junk", clientId + ":x#" + Config.PROTOCOL_DATA};
+            for (int i = 0; i < Config.RATE_INVALID_BURST; i++) {
+                assertEquals(Config.PROTOCOL_INVALID, connection.send(invalid[i % invalid.length]));
+            }
+            assertEquals(Config.PROTOCOL_THROTTLED, connection.send(clientId + "#X2"));
+            assertEquals("ACK_HEARTBEAT", connection.send(clientId, Config.PROTOCOL_HEARTBEAT));
+            assertEquals(0, server.metric("game_configurations_queued"));
+            String metrics = server.getMetrics().render();
+            assertFalse(metrics.contains("X1") || metrics.contains("X2") || metrics.contains(Config.PROTOCOL_REQUEUE), metrics);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests how {@link ServerMetrics} renders its metrics, and that clients cannot add series to it.
+ */
+class ServerMetricsTest {
+
+    /**
+     * Gauges, byte counters, message counts and latencies are rendered as sorted "name value"
+     * lines, with latencies in microseconds.
+     */
+    @Test
+    void rendersNameValueLines() {
+        ServerMetrics metrics = new ServerMetrics();
+        metrics.registerGauge("zeta", () -> 2);
+        metrics.registerGauge("alpha", () -> 1);
+        metrics.addBytesIn(10);
+        metrics.addBytesOut(20);
+        metrics.recordMessage(Config.PROTOCOL_DATA, 3_000_000);
+        metrics.recordMessage(Config.PROTOCOL_DATA, 1_000_000);
+        metrics.recordThrottled(Config.PROTOCOL_HEARTBEAT);
+
+        List<String> lines = Arrays.asList(metrics.render().split("\n"));
+        assertEquals("alpha 1", lines.get(0));
+        assertEquals("zeta 2", lines.get(1));
+        assertTrue(lines.contains("bytes_in_total 10"), lines.toString());
+        assertTrue(lines.contains("bytes_out_total 20"), lines.toString());
+        assertTrue(lines.contains("messages_total{type=\"P3\"} 2"), lines.toString());
+        assertTrue(lines.contains("messages_throttled_total{type=\"P4\"} 1"), lines.toString());
+        assertTrue(lines.contains("latency_us_count{type=\"P3\"} 2"), lines.toString());
+        assertTrue(lines.contains("latency_us_mean{type=\"P3\"} 2000"), lines.toString());
+        long max = value(lines, "latency_us_max{type=\"P3\"}");
+        assertTrue(max >= 3000 && max <= 3000 * 1.07, "Max " + max);
+        for (String quantile : new String[] {"0.5", "0.9", "0.99", "0.999"}) {
+            assertTrue(value(lines, "latency_us{type=\"P3\",quantile=\"" + quantile + "\"}") > 0, quantile);
+        }
+    }
+    /**
+     * Types that are not part of the protocol all share the one unknown series, however many there are.
+     */
+    @Test
+    void unknownTypesShareOneSeries() {
+        ServerMetrics metrics = new ServerMetrics();
+        for (int i = 0; i < 1000; i++) {
+            metrics.recordMessage("X" + i, 1000);
+            metrics.recordThrottled("Y" + i);
+        }
+        List<String> series = new ArrayList<>();
+        for (String line : metrics.render().split("\n")) {
+            if (line.startsWith("messages_") || line.startsWith("latency_")) {
+                series.add(line);
+            }
+        }
+        assertEquals(2 + 7, series.size(), series.toString());
+        assertTrue(series.contains("messages_total{type=\"" + ServerMetrics.UNKNOWN_TYPE + "\"} 1000"), series.toString());
+        assertTrue(series.contains("messages_throttled_total{type=\"" + ServerMetrics.UNKNOWN_TYPE + "\"} 1000"), series.toString());
+        assertNotNull(metrics.getLatency("X1"));
+        assertNull(metrics.getLatency(Config.PROTOCOL_DATA));
+    }
+    /**
+     * Returns the value of one rendered metric.
+     * @param lines The rendered lines.
+     * @param name The metric name and labels.
+     * @return The value.
+     */
+    private static long value(List<String> lines, String name) {
+        for (String line : lines) {
+            if (line.startsWith(name + " ")) {
+                return Long.parseLong(line.substring(name.length() + 1));
+            }
+        }
+        throw new IllegalArgumentException("No metric " + name + " in " + lines);
+    }
+}
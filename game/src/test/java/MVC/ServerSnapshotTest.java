@@ -0,0 +1,213 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link ServerSnapshot} reads back what it writes, that snapshots written by earlier
+ * versions are still read, and that session tokens never reach the file.
+ */
+class ServerSnapshotTest {
+    private static final int MAGIC = 0x41323253;
+    private static final String LAYOUT = "BBBEEEBEEMEEBEEHEE" + "EEEEEEEEEEEEEEEEEE";  // Dimension 3, a 6 by 6 grid
+    private Path directory;
+    private Path file;
+
+    /**
+     * Creates a directory for the snapshot file.
+     */
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("snapshot-test");
+        file = directory.resolve("server-state.snapshot");
+    }
+    /**
+     * Deletes the snapshot file and its directory.
+     */
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+    /**
+     * Sessions with several games, the leaderboard and the resume state all survive a round trip.
+     */
+    @Test
+    void roundTrip() throws IOException {
+        byte[] tokenHash = ResumableSession.hashToken("c0ffee");
+        ServerSnapshot written = new ServerSnapshot(42,
+                Map.of(7, Map.of(0, List.of(LAYOUT, LAYOUT.replace('E', 'M')), 2, List.of()), 9, Map.of(0, List.of(LAYOUT))),
+                Map.of("Pepe", 30, "Ana", 12),
+                List.of(new ServerSnapshot.Resume(7, tokenHash, 5, "ACK"), new ServerSnapshot.Resume(9, tokenHash, 0, null)));
+        written.writeTo(file);
+
+        ServerSnapshot read = ServerSnapshot.readFrom(file);
+        assertEquals(42, read.getClientCount());
+        assertEquals(written.getSessions(), read.getSessions());
+        assertEquals(written.getLeaderboard(), read.getLeaderboard());
+        assertEquals(2, read.getResumes().size());
+        for (ServerSnapshot.Resume resume : read.getResumes()) {
+            assertArrayEquals(tokenHash, resume.getTokenHash());
+            if (resume.getClientId() == 7) {
+                assertEquals(5, resume.getProcessedCount());
+                assertEquals("ACK", resume.getLastResponse());
+            } else {
+                assertEquals(9, resume.getClientId());
+                assertNull(resume.getLastResponse());
+            }
+        }
+    }
+    /**
+     * The file holds the hash of a session's token, and the session restored from it still takes the token.
+     */
+    @Test
+    void tokensAreStoredHashed() throws IOException {
+        String token = ResumableSession.newToken();
+        ResumableSession session = new ResumableSession(7, token, null);
+        new ServerSnapshot(7, Map.of(), Map.of(), List.of(session.capture())).writeTo(file);
+
+        assertFalse(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1).contains(token));
+        ResumableSession restored = new ResumableSession(ServerSnapshot.readFrom(file).getResumes().get(0));
+        assertFalse(restored.attach("deadbeef", null));
+        assertTrue(restored.attach(token, null));
+    }
+    /**
+     * A version 3 snapshot held plaintext tokens; they are hashed as the file is read.
+     */
+    @Test
+    void readsVersion3() throws IOException {
+        try (DataOutputStream out = open(3, 12)) {
+            out.writeInt(1);
+            out.writeInt(7);
+            out.writeInt(1);
+            out.writeInt(4);
+            writeLayouts(out);
+            writeLeaderboard(out);
+            out.writeInt(1);
+            out.writeInt(7);
+            writeString(out, "c0ffee");
+            out.writeLong(3);
+            out.writeBoolean(true);
+            writeString(out, "ACK");
+        }
+        ServerSnapshot read = ServerSnapshot.readFrom(file);
+        assertEquals(Map.of(7, Map.of(4, List.of(LAYOUT))), read.getSessions());
+        assertEquals(Map.of("Pepe", 30), read.getLeaderboard());
+        ServerSnapshot.Resume resume = read.getResumes().get(0);
+        assertArrayEquals(ResumableSession.hashToken("c0ffee"), resume.getTokenHash());
+        assertEquals(3, resume.getProcessedCount());
+        assertEquals("ACK", resume.getLastResponse());
+    }
+    /**
+     * A version 2 snapshot had several games per session but no resume state.
+     */
+    @Test
+    void readsVersion2() throws IOException {
+        try (DataOutputStream out = open(2, 12)) {
+            out.writeInt(1);
+            out.writeInt(7);
+            out.writeInt(1);
+            out.writeInt(4);
+            writeLayouts(out);
+            writeLeaderboard(out);
+        }
+        ServerSnapshot read = ServerSnapshot.readFrom(file);
+        assertEquals(12, read.getClientCount());
+        assertEquals(Map.of(7, Map.of(4, List.of(LAYOUT))), read.getSessions());
+        assertEquals(Map.of("Pepe", 30), read.getLeaderboard());
+        assertTrue(read.getResumes().isEmpty());
+    }
+    /**
+     * A version 1 snapshot had a single game per session, which becomes game 0.
+     */
+    @Test
+    void readsVersion1() throws IOException {
+        try (DataOutputStream out = open(1, 12)) {
+            out.writeInt(1);
+            out.writeInt(7);
+            writeLayouts(out);
+            writeLeaderboard(out);
+        }
+        ServerSnapshot read = ServerSnapshot.readFrom(file);
+        assertEquals(Map.of(7, Map.of(0, List.of(LAYOUT))), read.getSessions());
+        assertEquals(Map.of("Pepe", 30), read.getLeaderboard());
+        assertTrue(read.getResumes().isEmpty());
+    }
+    /**
+     * Files that are not snapshots, are from a newer version or are cut short are refused.
+     */
+    @Test
+    void refusesOtherFiles() throws IOException {
+        Files.write(file, "not a snapshot".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> ServerSnapshot.readFrom(file));
+        try (DataOutputStream out = open(99, 12)) {
+            out.writeInt(0);
+        }
+        assertThrows(IOException.class, () -> ServerSnapshot.readFrom(file));
+        try (DataOutputStream out = open(2, 12)) {
+            out.writeInt(1);
+        }
+        assertThrows(IOException.class, () -> ServerSnapshot.readFrom(file));
+    }
+    /**
+     * Opens the snapshot file and writes the header of a given version.
+     * @param version The snapshot version.
+     * @param clientCount The value of the client ID counter.
+     * @return The stream, positioned at the session count.
+     * @throws IOException if the file cannot be written.
+     */
+    private DataOutputStream open(int version, int clientCount) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeInt(version);
+        out.writeInt(clientCount);
+        return out;
+    }
+    /**
+     * Writes the layout list of one game, holding {@link #LAYOUT}.
+     * @param out The stream.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeLayouts(DataOutputStream out) throws IOException {
+        out.writeInt(1);
+        out.writeInt(LAYOUT.length());
+        out.write(LayoutCodec.pack(LAYOUT));
+    }
+    /**
+     * Writes a leaderboard with one score.
+     * @param out The stream.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeLeaderboard(DataOutputStream out) throws IOException {
+        out.writeInt(1);
+        writeString(out, "Pepe");
+        out.writeInt(30);
+    }
+    /**
+     * Writes a string the way snapshots do, its UTF-8 length followed by the bytes.
+     * @param out The stream.
+     * @param value The string.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
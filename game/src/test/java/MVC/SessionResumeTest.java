@@ -0,0 +1,291 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a client can resume its session after its connection drops, without a request
+ * being applied twice or a request it gave up on taking anything from its session.
+ */
+class SessionResumeTest {
+    private static final String LAYOUT = "BBBEEEBEEMEEBEEHEE" + "EEEEEEEEEEEEEEEEEE";  // Dimension 3, a 6 by 6 grid
+    private LoopbackServer server;
+
+    /**
+     * Starts a server.
+     */
+    @BeforeEach
+    void startServer() throws IOException, InterruptedException {
+        server = new LoopbackServer();
+    }
+    /**
+     * Stops the server.
+     */
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+    /**
+     * A new connection presenting the token takes over the session, is told how many requests
+     * were processed and what the last response was, and finds the session's queued layout.
+     */
+    @Test
+    void resumeReportsTheProcessedRequests() throws IOException {
+        int clientId;
+        String token;
+        try (LoopbackServer.Connection first = server.connect()) {
+            clientId = first.getClientId();
+            token = first.getToken();
+            assertEquals("ACK", first.send(clientId, Config.PROTOCOL_SENDGAME, "3" + Config.FIELD_SEPARATOR + LAYOUT));
+        }
+        try (LoopbackServer.Connection second = server.connect()) {
+            assertEquals("ACK_RESUME" + Config.PROTOCOL_SEPARATOR + 1 + Config.PROTOCOL_SEPARATOR + "ACK",
+                    second.send(second.getClientId(), Config.PROTOCOL_RESUME, clientId, token));
+            assertEquals(LAYOUT, second.send(clientId, Config.PROTOCOL_RECVGAME));
+        }
+    }
+    /**
+     * A resume is refused with the wrong token, or once the connection has sent other requests;
+     * the connection then carries on as the new client it was greeted as.
+     */
+    @Test
+    void resumeNeedsTheTokenAsTheFirstRequest() throws IOException {
+        try (LoopbackServer.Connection first = server.connect();
+             LoopbackServer.Connection wrongToken = server.connect();
+             LoopbackServer.Connection late = server.connect()) {
+            assertEquals(Config.PROTOCOL_RESUME_FAILED,
+                    wrongToken.send(wrongToken.getClientId(), Config.PROTOCOL_RESUME, first.getClientId(), "deadbeef"));
+            assertEquals("ACK_GAME_RESULTS", wrongToken.send(wrongToken.getClientId(), Config.PROTOCOL_DATA, "Pepe", 10));
+
+            assertEquals("ACK_GAME_RESULTS", late.send(late.getClientId(), Config.PROTOCOL_DATA, "Pepe", 10));
+            assertEquals(Config.PROTOCOL_RESUME_FAILED,
+                    late.send(late.getClientId(), Config.PROTOCOL_RESUME, first.getClientId(), first.getToken()));
+        }
+    }
+    /**
+     * A request processed just before the connection dropped is not sent again on resume: the
+     * client gets the response the server kept, and the layout is queued only once.
+     */
+    @Test
+    void lostResponseIsReplayedNotResent() throws IOException {
+        try (ResponseDroppingProxy proxy = new ResponseDroppingProxy(server.getPort())) {
+            Client client = newClient(proxy.getPort(), randomBoard(3), 3);
+            int clientId = client.getClientId();
+            client.sendGameConfiguration();
+            proxy.dropNextResponse();
+            client.sendGameConfiguration();
+            assertEquals(clientId, client.getClientId());
+            assertEquals(2, server.metric("game_configurations_queued"));
+            assertEquals(1, server.metric("sessions_resumed_total"));
+            client.stopConnection();
+        }
+    }
+    /**
+     * A P2 the client gave up on while nothing was queued does not keep waiting on the server and
+     * take the layout the client sends next; the client's next P2 gets that layout.
+     */
+    @Test
+    void abandonedRequestDoesNotTakeTheNextLayout() throws IOException {
+        int unpooled = Config.LAYOUT_POOL_MAX_DIMENSION + 1;
+        GameModel model = randomBoard(unpooled);
+        Client client = newClient(server.getPort(), model, unpooled);
+        int clientId = client.getClientId();
+        String request = clientId + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_RECVGAME + Config.PROTOCOL_SEPARATOR + unpooled;
+        client.setRequestTimeout(500);
+        assertThrows(IOException.class, () -> client.sendMessage(request));
+        client.setRequestTimeout(5000);
+        client.sendGameConfiguration();  // Resumes the session on a new connection first
+        assertEquals(clientId, client.getClientId());
+        assertEquals(model.printGridsString(), client.sendMessage(request));
+        client.stopConnection();
+    }
+    /**
+     * A client that hangs up while its P2 waits for a layout gives its worker thread and session
+     * slot back straight away, long before the wait would time out.
+     */
+    @Test
+    void hangUpDuringAWaitFreesTheSession() throws IOException, InterruptedException {
+        awaitMetric("connections_accepted_total", 1);  // The connection that checked the server was up
+        awaitMetric("sessions_available", Config.DEFAULT_MAX_SESSIONS);
+        awaitMetric("connections_active", 0);
+        long resumable = server.metric("sessions_resumable");
+        try (Socket socket = new Socket(LoopbackServer.HOST, server.getPort())) {
+            socket.setSoTimeout(5000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            int clientId = Integer.parseInt(in.readLine().split(Config.PROTOCOL_SEPARATOR)[0]);
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+            out.println(clientId + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_RECVGAME + Config.PROTOCOL_SEPARATOR + (Config.LAYOUT_POOL_MAX_DIMENSION + 1));
+            awaitMetric("sessions_available", Config.DEFAULT_MAX_SESSIONS - 1);
+            awaitMetric("connections_active", 1);
+        }
+        awaitMetric("sessions_available", Config.DEFAULT_MAX_SESSIONS);
+        awaitMetric("connections_active", 0);
+        assertEquals(resumable + 1, server.metric("sessions_resumable"));  // Kept for the client to resume, without a thread
+    }
+    /**
+     * Waits for a server metric to reach a value, for less time than a P2 may wait.
+     * @param name The metric name.
+     * @param expected The value to wait for.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private void awaitMetric(String name, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.metric(name) != expected) {
+            assertTrue(System.nanoTime() < deadline, name + " is " + server.metric(name) + ", not " + expected + ".");
+            Thread.sleep(10);
+        }
+    }
+    /**
+     * Builds a model with boats placed at random.
+     * @param dimension The board dimension, as sent by clients; the grid is twice as wide.
+     * @return The model.
+     */
+    private static GameModel randomBoard(int dimension) {
+        GameModel model = new GameModel();
+        model.setDimension(dimension * 2);
+        model.generatePlayerLayout();
+        return model;
+    }
+    /**
+     * Connects a client that sends full layouts.
+     * @param port The port to connect to.
+     * @param model The model whose layout the client sends.
+     * @param dimension The board dimension, as sent by clients.
+     * @return The connected client.
+     */
+    private static Client newClient(int port, GameModel model, int dimension) {
+        Client client = new Client(LoopbackServer.HOST, port, model, LoopbackServer.QUIET);
+        client.setDimension(dimension);
+        client.setDeltaSync(false);
+        client.setRequestTimeout(5000);
+        client.startConnection();
+        return client;
+    }
+
+    /**
+     * A proxy between a client and the server that can cut every connection as soon as the
+     * server starts sending a response, so the request was processed but the response is lost.
+     */
+    private static final class ResponseDroppingProxy implements Closeable {
+        private final ServerSocket listener;
+        private final int serverPort;
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private volatile boolean dropNextResponse;
+
+        /**
+         * Starts accepting clients on a free port.
+         * @param serverPort The port of the server the clients are passed on to.
+         * @throws IOException if no port is free.
+         */
+        ResponseDroppingProxy(int serverPort) throws IOException {
+            this.serverPort = serverPort;
+            listener = new ServerSocket(0);
+            start(this::accept);
+        }
+        /**
+         * Returns the port clients connect to.
+         * @return The port.
+         */
+        int getPort() {
+            return listener.getLocalPort();
+        }
+        /**
+         * Cuts the connections as soon as the next response arrives from the server.
+         */
+        void dropNextResponse() {
+            dropNextResponse = true;
+        }
+        /**
+         * Passes each client that connects on to the server.
+         */
+        private void accept() {
+            try {
+                while (true) {
+                    Socket client = listener.accept();
+                    Socket upstream = new Socket(LoopbackServer.HOST, serverPort);
+                    sockets.add(client);
+                    sockets.add(upstream);
+                    start(() -> pipe(client, upstream, false));
+                    start(() -> pipe(upstream, client, true));
+                }
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+        /**
+         * Copies one direction of a connection.
+         * @param from The socket read from.
+         * @param to The socket written to.
+         * @param responses True for the server to client direction.
+         */
+        private void pipe(Socket from, Socket to, boolean responses) {
+            byte[] buffer = new byte[8192];
+            try {
+                InputStream in = from.getInputStream();
+                OutputStream out = to.getOutputStream();
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    if (responses && dropNextResponse) {
+                        dropNextResponse = false;
+                        cut();
+                        return;
+                    }
+                    out.write(buffer, 0, read);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // Cut or closed
+            }
+        }
+        /**
+         * Closes every connection passing through the proxy.
+         */
+        private void cut() {
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Already closed
+                }
+            }
+            sockets.clear();
+        }
+        /**
+         * Runs a task on a daemon thread.
+         * @param task The task.
+         */
+        private static void start(Runnable task) {
+            Thread thread = new Thread(task, "ResponseDroppingProxy");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        /**
+         * Stops accepting clients and closes the connections.
+         * @throws IOException if there's an error in network communication.
+         */
+        @Override
+        public void close() throws IOException {
+            listener.close();
+            cut();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that board updates reach every spectator of a game, and that a spectate request
+ * without a game to watch is refused.
+ */
+class SpectatorTest {
+    private static final String LAYOUT = "BBBEEEBEEMEEBEEHEE" + "EEEEEEEEEEEEEEEEEE";  // Dimension 3, a 6 by 6 grid
+    private LoopbackServer server;
+
+    /**
+     * Starts a server.
+     */
+    @BeforeEach
+    void startServer() throws IOException, InterruptedException {
+        server = new LoopbackServer();
+    }
+    /**
+     * Stops the server.
+     */
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+    /**
+     * Every spectator of a game receives each layout its player sends, and only the updates of
+     * the game it watches.
+     */
+    @Test
+    void updatesReachEverySpectator() throws IOException {
+        try (LoopbackServer.Connection player = server.connect();
+             LoopbackServer.Connection first = server.connect();
+             LoopbackServer.Connection second = server.connect();
+             LoopbackServer.Connection otherGame = server.connect()) {
+            String watched = Session.address(player.getClientId(), 1);
+            String otherAddress = Session.address(player.getClientId(), 2);
+            assertEquals("ACK_SPECTATE", first.send(first.getClientId(), Config.PROTOCOL_SPECTATE, watched));
+            assertEquals("ACK_SPECTATE", second.send(second.getClientId(), Config.PROTOCOL_SPECTATE, watched));
+            assertEquals("ACK_SPECTATE", otherGame.send(otherGame.getClientId(), Config.PROTOCOL_SPECTATE, otherAddress));
+            assertEquals(3, server.metric("spectators"));
+
+            assertEquals("ACK", player.send(watched, Config.PROTOCOL_SENDGAME, "3" + Config.FIELD_SEPARATOR + LAYOUT));
+            String frame = Config.PROTOCOL_SPECTATE + Config.PROTOCOL_SEPARATOR + watched + Config.PROTOCOL_SEPARATOR + LAYOUT;
+            assertEquals(frame, first.receive());
+            assertEquals(frame, second.receive());
+
+            String other = LAYOUT.replace('M', 'E');
+            assertEquals("ACK", player.send(otherAddress, Config.PROTOCOL_SENDGAME, "3" + Config.FIELD_SEPARATOR + other));
+            assertEquals(Config.PROTOCOL_SPECTATE + Config.PROTOCOL_SEPARATOR + otherAddress + Config.PROTOCOL_SEPARATOR + other,
+                    otherGame.receive());
+        }
+    }
+    /**
+     * A spectate request without a game, or with one that cannot be parsed, is answered with
+     * PROTOCOL_INVALID and the connection carries on as a player.
+     */
+    @Test
+    void spectateWithoutAGameIsRefused() throws IOException {
+        try (LoopbackServer.Connection connection = server.connect()) {
+            assertEquals(Config.PROTOCOL_INVALID, connection.send(connection.getClientId(), Config.PROTOCOL_SPECTATE));
+            assertEquals(Config.PROTOCOL_INVALID, connection.send(connection.getClientId(), Config.PROTOCOL_SPECTATE, "x:1"));
+            assertEquals("ACK_HEARTBEAT", connection.send(connection.getClientId(), Config.PROTOCOL_HEARTBEAT));
+            assertEquals(0, server.metric("spectators"));
+        }
+    }
+}
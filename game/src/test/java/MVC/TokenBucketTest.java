@@ -0,0 +1,47 @@
+package MVC;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link TokenBucket} allows a burst, then limits to its rate.
+ */
+class TokenBucketTest {
+
+    /**
+     * A new bucket is full: the whole burst is allowed at once, and nothing more.
+     */
+    @Test
+    void startsFull() {
+        TokenBucket bucket = new TokenBucket(0.001, 5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(), "Token " + (i + 1) + " of the burst was refused.");
+        }
+        assertFalse(bucket.tryAcquire());
+    }
+    /**
+     * Tokens come back at the configured rate.
+     */
+    @Test
+    void refillsAtTheRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 1);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        Thread.sleep(100);  // Two tokens' worth, of which the bucket holds one
+        assertTrue(bucket.tryAcquire());
+    }
+    /**
+     * An idle bucket fills up to its burst and no further.
+     */
+    @Test
+    void neverHoldsMoreThanTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 3);
+        Thread.sleep(200);  // Twenty tokens' worth
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire());
+        }
+        assertFalse(bucket.tryAcquire());
+    }
+}
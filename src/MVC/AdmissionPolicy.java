@@ -0,0 +1,66 @@
+package MVC;
+
+/**
+ * Describes how many client connections the server is willing to take on at once.
+ * The server uses it to size its accept backlog and its pool of client handlers, and
+ * to decide when a new connection must be turned away with {@link Config#PROTOCOL_BUSY}.
+ */
+public class AdmissionPolicy {
+    private final int maxSessions;  // Connections that may be running or waiting for a worker
+    private final int acceptBacklog;  // Pending connections the OS may hold before accept()
+    private final int workerThreads;  // Handlers that may run at the same time
+    private final int queueCapacity;  // Admitted handlers that may wait for a free worker
+
+    /**
+     * Constructs a new admission policy.
+     * @param maxSessions The maximum number of concurrent client sessions.
+     * @param acceptBacklog The backlog passed to the server socket.
+     * @param workerThreads The number of threads available to run client handlers.
+     * @param queueCapacity The number of admitted handlers that may wait for a worker thread.
+     */
+    public AdmissionPolicy(int maxSessions, int acceptBacklog, int workerThreads, int queueCapacity) {
+        if (maxSessions < 1 || acceptBacklog < 1 || workerThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Admission limits must be positive.");
+        }
+        this.maxSessions = maxSessions;
+        this.acceptBacklog = acceptBacklog;
+        this.workerThreads = workerThreads;
+        this.queueCapacity = queueCapacity;
+    }
+    /**
+     * Returns the policy built from the defaults in {@link Config}.
+     * @return The default admission policy.
+     */
+    public static AdmissionPolicy defaults() {
+        return new AdmissionPolicy(Config.DEFAULT_MAX_SESSIONS, Config.DEFAULT_ACCEPT_BACKLOG,
+                Config.DEFAULT_WORKER_THREADS, Config.DEFAULT_HANDLER_QUEUE);
+    }
+    /**
+     * Returns the maximum number of concurrent client sessions.
+     * @return The maximum number of concurrent client sessions.
+     */
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+    /**
+     * Returns the backlog passed to the server socket.
+     * @return The accept backlog.
+     */
+    public int getAcceptBacklog() {
+        return acceptBacklog;
+    }
+    /**
+     * Returns the number of threads available to run client handlers.
+     * @return The number of worker threads.
+     */
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+    /**
+     * Returns the number of admitted handlers that may wait for a worker thread.
+     * @return The handler queue capacity.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+}
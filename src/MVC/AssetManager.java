@@ -0,0 +1,143 @@
+package MVC;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+/**
+ * Loads the game's images from the classpath once and hands out shared instances. Images are
+ * decoded in the background, from {@link #preload()} at startup or on first use, and scaled
+ * variants are cached by target size, so windows that show an image open without decoding or
+ * scaling it again.
+ * <p>
+ * An image that cannot be found or decoded is reported once and handed out as an empty icon.
+ */
+public final class AssetManager {
+    public static final String LOGO = "/images/logo.png";
+    public static final String ICON = "/images/icon_1.png";
+    public static final String COLORS_ICON = "/images/color.png";
+    public static final String CLIENT_BANNER = "/client.png";
+    public static final String SERVER_BANNER = "/server.png";
+    public static final String SPLASH = "/splash.jpg";
+    public static final int BANNER_WIDTH = 800;
+    public static final int BANNER_HEIGHT = 300;
+
+    private static final Map<String, CompletableFuture<BufferedImage>> images = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<ImageIcon>> icons = new ConcurrentHashMap<>();
+    private static final ExecutorService decoder = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "AssetManager");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private AssetManager() {
+    }
+    /**
+     * Starts decoding the game's images, and scaling the client and server banners, in the background.
+     */
+    public static void preload() {
+        for (String path : new String[] {LOGO, ICON, COLORS_ICON, SPLASH}) {
+            icon(path);
+        }
+        icon(CLIENT_BANNER, BANNER_WIDTH, BANNER_HEIGHT);
+        icon(SERVER_BANNER, BANNER_WIDTH, BANNER_HEIGHT);
+    }
+    /**
+     * Returns an image at its own size, waiting for it to be decoded if it is not yet.
+     * @param path The classpath path of the image.
+     * @return The shared icon of the image.
+     */
+    public static ImageIcon getIcon(String path) {
+        return icon(path).join();
+    }
+    /**
+     * Returns an image scaled to a size, waiting for it to be decoded and scaled if it is not yet.
+     * @param path The classpath path of the image.
+     * @param width The width to scale to.
+     * @param height The height to scale to.
+     * @return The shared icon of the scaled image.
+     */
+    public static ImageIcon getIcon(String path, int width, int height) {
+        return icon(path, width, height).join();
+    }
+    /**
+     * Returns the icon of an image at its own size, starting to decode it on first use.
+     * @param path The classpath path of the image.
+     * @return The icon, once decoded.
+     */
+    private static CompletableFuture<ImageIcon> icon(String path) {
+        return icons.computeIfAbsent(path, key -> image(path).thenApply(AssetManager::toIcon));
+    }
+    /**
+     * Returns the icon of an image scaled to a size, starting to decode and scale it on first use.
+     * @param path The classpath path of the image.
+     * @param width The width to scale to.
+     * @param height The height to scale to.
+     * @return The icon, once scaled.
+     */
+    private static CompletableFuture<ImageIcon> icon(String path, int width, int height) {
+        return icons.computeIfAbsent(path + "@" + width + "x" + height,
+                key -> image(path).thenApplyAsync(image -> toIcon(scale(image, width, height)), decoder));
+    }
+    /**
+     * Returns an image, starting to decode it on first use.
+     * @param path The classpath path of the image.
+     * @return The image, once decoded, or null if it cannot be loaded.
+     */
+    private static CompletableFuture<BufferedImage> image(String path) {
+        return images.computeIfAbsent(path, key -> CompletableFuture.supplyAsync(() -> decode(path), decoder));
+    }
+    /**
+     * Decodes an image from the classpath.
+     * @param path The classpath path of the image.
+     * @return The image, or null if it cannot be loaded.
+     */
+    private static BufferedImage decode(String path) {
+        URL url = AssetManager.class.getResource(path);
+        if (url == null) {
+            System.err.println("Image not found: " + path);
+            return null;
+        }
+        try {
+            return ImageIO.read(url);
+        } catch (IOException e) {
+            System.err.println("Failed to load image " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+    /**
+     * Scales an image.
+     * @param image The image, or null.
+     * @param width The width to scale to.
+     * @param height The height to scale to.
+     * @return The scaled image, or null if there is no image.
+     */
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        if (image == null) {
+            return null;
+        }
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+    /**
+     * Wraps an image in an icon.
+     * @param image The image, or null.
+     * @return The icon, empty if there is no image.
+     */
+    private static ImageIcon toIcon(BufferedImage image) {
+        return image == null ? new ImageIcon() : new ImageIcon(image);
+    }
+}
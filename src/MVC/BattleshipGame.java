@@ -1,25 +1,60 @@
 package MVC;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import javax.swing.SwingUtilities;
 
 public class BattleshipGame {
 
 	public static void main(String[] args) {
-		SplashScreen splashScreen = new SplashScreen();
-		splashScreen.showSplashScreen();
-		// Simulate some initialization process
-		try {
-			Thread.sleep(3000); // Wait for 3 seconds
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
-		// Close the splash screen and open the game view
-		splashScreen.closeSplashScreen();
+		long launchNanos = System.nanoTime();
+		EdtMonitor.install();  // Times every event from the first one, so startup hitches are recorded too
+		AssetManager.preload(); // Images decode in the background while the splash is up
+
+		// The model and the language bundles are prepared off the event dispatch thread at the same time
+		CompletableFuture<GameModel> model = CompletableFuture.supplyAsync(() -> {
+			long phaseNanos = System.nanoTime();
+			GameModel gameModel = new GameModel();
+			logPhase("model", phaseNanos, launchNanos);
+			return gameModel;
+		});
+		CompletableFuture<Void> bundles = CompletableFuture.runAsync(() -> {
+			long phaseNanos = System.nanoTime();
+			Localization.preload();
+			logPhase("language bundles", phaseNanos, launchNanos);
+		});
 
+		SplashScreen splashScreen = new SplashScreen();
 		SwingUtilities.invokeLater(() -> {
-			GameModel model = new GameModel();
-			GameView view = new GameView(model);
-			GameController controller = new GameController(model, view);
+			long phaseNanos = System.nanoTime();
+			splashScreen.showSplashScreen();
+			logPhase("splash", phaseNanos, launchNanos);
 		});
+
+		// The splash closes as soon as the game view is up, rather than after a fixed time
+		CompletableFuture.allOf(model, bundles).whenComplete((ignored, failure) -> SwingUtilities.invokeLater(() -> {
+			if (failure != null) {
+				splashScreen.closeSplashScreen();
+				failure.printStackTrace();
+				System.exit(1);
+			}
+			long phaseNanos = System.nanoTime();
+			new GameView(model.join());  // The view creates its own controller
+			logPhase("game view", phaseNanos, launchNanos);
+			splashScreen.closeSplashScreen();
+			System.out.println("Startup: ready after " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launchNanos) + " ms");
+		}));
+	}
+	/**
+	 * Logs how long a startup phase took and when it finished.
+	 *
+	 * @param phase       The name of the phase.
+	 * @param phaseNanos  The System.nanoTime at which the phase started.
+	 * @param launchNanos The System.nanoTime at which the game was launched.
+	 */
+	private static void logPhase(String phase, long phaseNanos, long launchNanos) {
+		long now = System.nanoTime();
+		System.out.println("Startup: " + phase + " took " + TimeUnit.NANOSECONDS.toMillis(now - phaseNanos)
+				+ " ms, done after " + TimeUnit.NANOSECONDS.toMillis(now - launchNanos) + " ms");
 	}
 }
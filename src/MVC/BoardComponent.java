@@ -0,0 +1,288 @@
+package MVC;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.swing.*;
+
+/**
+ * Draws one game board, with its title, column numbers and row letters, as a single component.
+ * Cells are painted from a color per cell rather than being components of their own, so building
+ * and repainting a board does not depend on a component count and large dimensions stay usable.
+ * Clicks are mapped to cells by their coordinates.
+ * <p>
+ * Cell changes are collected and drawn together once the current event is handled, each
+ * changed cell repainting only its own rectangle.
+ */
+public class BoardComponent extends JComponent {
+	private String title;
+	private int rows;
+	private int columns;
+	private Color[] cellColors;  // Null entries are drawn as untouched cells
+	private final CopyOnWriteArrayList<CellListener> cellListeners = new CopyOnWriteArrayList<>();
+	private int pressedCell = -1;
+	private final BitSet pendingCells = new BitSet();  // Cells changed since they were last painted
+	private boolean flushScheduled;
+
+	/**
+	 * Constructs a board component.
+	 *
+	 * @param title   The title drawn in the corner of the board.
+	 * @param rows    The number of rows of cells.
+	 * @param columns The number of columns of cells.
+	 */
+	public BoardComponent(String title, int rows, int columns) {
+		this.title = title;
+		setGridSize(rows, columns);
+		setPreferredSize(new Dimension(500, 500));
+		setOpaque(true);
+		addMouseListener(new MouseAdapter() {
+			@Override
+			public void mousePressed(MouseEvent e) {
+				pressedCell = SwingUtilities.isLeftMouseButton(e) ? cellIndexAt(e.getX(), e.getY()) : -1;
+			}
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				// Like a button, a click counts when it is released over the cell it was pressed on
+				int cell = cellIndexAt(e.getX(), e.getY());
+				if (cell >= 0 && cell == pressedCell && isEnabled()) {
+					for (CellListener listener : cellListeners) {
+						listener.cellClicked(BoardComponent.this, cell / columns, cell % columns);
+					}
+				}
+				pressedCell = -1;
+			}
+		});
+	}
+	/**
+	 * Changes the number of cells and clears every cell. The cells are reused when the size is unchanged.
+	 *
+	 * @param rows    The number of rows of cells.
+	 * @param columns The number of columns of cells.
+	 */
+	public void setGridSize(int rows, int columns) {
+		if (cellColors != null && rows == this.rows && columns == this.columns) {
+			Arrays.fill(cellColors, null);
+		} else {
+			this.rows = rows;
+			this.columns = columns;
+			this.cellColors = new Color[rows * columns];
+		}
+		pendingCells.clear();
+		repaint();
+	}
+	/**
+	 * Changes the title drawn in the corner of the board.
+	 *
+	 * @param title The new title.
+	 */
+	public void setTitle(String title) {
+		this.title = title;
+		repaint(slotBounds(0, 0));
+	}
+	/**
+	 * Returns the number of rows of cells.
+	 *
+	 * @return The number of rows.
+	 */
+	public int getRows() {
+		return rows;
+	}
+	/**
+	 * Returns the number of columns of cells.
+	 *
+	 * @return The number of columns.
+	 */
+	public int getColumns() {
+		return columns;
+	}
+	/**
+	 * Sets the color of a cell. The cell is repainted with the other cells changed by the same event.
+	 *
+	 * @param row   The row index of the cell.
+	 * @param col   The column index of the cell.
+	 * @param color The color to fill the cell with, or null for an untouched cell.
+	 */
+	public void setCellColor(int row, int col, Color color) {
+		int cell = row * columns + col;
+		if (Objects.equals(cellColors[cell], color)) {
+			return;
+		}
+		cellColors[cell] = color;
+		pendingCells.set(cell);
+		if (!flushScheduled) {
+			flushScheduled = true;
+			SwingUtilities.invokeLater(this::flushPendingCells);
+		}
+	}
+	/**
+	 * Asks for the cells changed since the last flush to be repainted, each in its own rectangle, or
+	 * the whole board if most of it changed. The repaint manager merges the rectangles into one paint.
+	 */
+	private void flushPendingCells() {
+		flushScheduled = false;
+		if (pendingCells.cardinality() * 4 > rows * columns) {
+			repaint();
+		} else {
+			for (int cell = pendingCells.nextSetBit(0); cell >= 0; cell = pendingCells.nextSetBit(cell + 1)) {
+				repaint(cellBounds(cell / columns, cell % columns));
+			}
+		}
+		pendingCells.clear();
+	}
+	/**
+	 * Returns the color of a cell.
+	 *
+	 * @param row The row index of the cell.
+	 * @param col The column index of the cell.
+	 * @return The color of the cell, or null for an untouched cell.
+	 */
+	public Color getCellColor(int row, int col) {
+		return cellColors[row * columns + col];
+	}
+	/**
+	 * Adds a listener that is told which cell was clicked. Adding a listener already added has no effect.
+	 *
+	 * @param listener The listener to add.
+	 */
+	public void addCellListener(CellListener listener) {
+		cellListeners.addIfAbsent(listener);
+	}
+	/**
+	 * Returns the area a cell is drawn in.
+	 *
+	 * @param row The row index of the cell.
+	 * @param col The column index of the cell.
+	 * @return The bounds of the cell within this component.
+	 */
+	public Rectangle cellBounds(int row, int col) {
+		return slotBounds(row + 1, col + 1);
+	}
+	/**
+	 * Finds the cell at a point of the component.
+	 *
+	 * @param x The x coordinate.
+	 * @param y The y coordinate.
+	 * @return The index of the cell, row * columns + col, or -1 if the point is not on a cell.
+	 */
+	public int cellIndexAt(int x, int y) {
+		if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+			return -1;
+		}
+		int slotCol = x * (columns + 1) / getWidth();
+		int slotRow = y * (rows + 1) / getHeight();
+		if (slotCol < 1 || slotRow < 1) {
+			return -1;
+		}
+		return (slotRow - 1) * columns + (slotCol - 1);
+	}
+	/**
+	 * Paints the header and cell slots that intersect the area being repainted.
+	 *
+	 * @param g The graphics context.
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+		int width = getWidth();
+		int height = getHeight();
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, width, height);
+		}
+		if (isOpaque()) {
+			g.setColor(getBackground());
+			g.fillRect(clip.x, clip.y, clip.width, clip.height);
+		}
+		Color face = uiColor("Button.background", Color.LIGHT_GRAY);
+		Color edge = uiColor("Button.shadow", Color.GRAY);
+		Color text = uiColor("Button.disabledText", Color.DARK_GRAY);
+		Font font = UIManager.getFont("Button.font");
+		g.setFont(font != null ? font : getFont());
+		FontMetrics metrics = g.getFontMetrics();
+
+		int firstSlotCol = Math.max(0, clip.x * (columns + 1) / Math.max(1, width));
+		int lastSlotCol = Math.min(columns, (clip.x + clip.width) * (columns + 1) / Math.max(1, width));
+		int firstSlotRow = Math.max(0, clip.y * (rows + 1) / Math.max(1, height));
+		int lastSlotRow = Math.min(rows, (clip.y + clip.height) * (rows + 1) / Math.max(1, height));
+		for (int slotRow = firstSlotRow; slotRow <= lastSlotRow; slotRow++) {
+			for (int slotCol = firstSlotCol; slotCol <= lastSlotCol; slotCol++) {
+				Rectangle slot = slotBounds(slotRow, slotCol);
+				boolean header = slotRow == 0 || slotCol == 0;
+				Color fill = header ? null : cellColors[(slotRow - 1) * columns + (slotCol - 1)];
+				g.setColor(fill != null ? fill : face);
+				if (slot.width < 6 || slot.height < 6) {
+					// Too small for a border; the whole slot is filled so the cell stays visible
+					g.fillRect(slot.x, slot.y, slot.width, slot.height);
+					continue;
+				}
+				g.fillRect(slot.x + 1, slot.y + 1, slot.width - 2, slot.height - 2);
+				g.setColor(edge);
+				g.drawRect(slot.x + 1, slot.y + 1, slot.width - 3, slot.height - 3);
+				if (header) {
+					String label = slotRow == 0 ? (slotCol == 0 ? title : String.valueOf(slotCol)) : rowLabel(slotRow - 1);
+					int labelWidth = metrics.stringWidth(label);
+					// Labels that do not fit are left out rather than drawn over the neighbouring slots
+					if (labelWidth <= slot.width - 4 && metrics.getAscent() <= slot.height - 2) {
+						g.setColor(text);
+						g.drawString(label, slot.x + (slot.width - labelWidth) / 2,
+								slot.y + (slot.height - metrics.getHeight()) / 2 + metrics.getAscent());
+					}
+				}
+			}
+		}
+	}
+	/**
+	 * Returns the area of a slot of the board, where slot row and column 0 hold the headers.
+	 *
+	 * @param slotRow The slot row.
+	 * @param slotCol The slot column.
+	 * @return The bounds of the slot.
+	 */
+	private Rectangle slotBounds(int slotRow, int slotCol) {
+		int x = slotCol * getWidth() / (columns + 1);
+		int y = slotRow * getHeight() / (rows + 1);
+		return new Rectangle(x, y, (slotCol + 1) * getWidth() / (columns + 1) - x, (slotRow + 1) * getHeight() / (rows + 1) - y);
+	}
+	/**
+	 * Returns the letters labelling a row: A to Z, then AA, AB and so on.
+	 *
+	 * @param row The row index.
+	 * @return The row label.
+	 */
+	private static String rowLabel(int row) {
+		StringBuilder label = new StringBuilder();
+		for (int n = row; n >= 0; n = n / 26 - 1) {
+			label.insert(0, (char) ('A' + n % 26));
+		}
+		return label.toString();
+	}
+	/**
+	 * Returns a color of the look and feel.
+	 *
+	 * @param key      The UIManager key.
+	 * @param fallback The color to use if the look and feel has none.
+	 * @return The color.
+	 */
+	private static Color uiColor(String key, Color fallback) {
+		Color color = UIManager.getColor(key);
+		return color != null ? color : fallback;
+	}
+
+	/**
+	 * Receives clicks on the cells of a board. One listener can serve several boards.
+	 */
+	public interface CellListener {
+		/**
+		 * Called when a cell is clicked.
+		 *
+		 * @param source The board the cell belongs to.
+		 * @param row    The row index of the cell.
+		 * @param col    The column index of the cell.
+		 */
+		void cellClicked(BoardComponent source, int row, int col);
+	}
+}
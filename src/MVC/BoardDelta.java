@@ -0,0 +1,156 @@
+package MVC;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+
+/**
+ * Encodes the difference between two layouts of the same size as a compact, bit-packed delta,
+ * so a client can send only the cells that changed since its last full layout.
+ * <p>
+ * A delta starts with a format byte. In the bitmap format one bit per cell marks the changed
+ * cells; in the sparse format the changed cells are listed as varint gaps from the previous one,
+ * which is smaller when few cells changed. Both are followed by the new states of the changed
+ * cells, two bits each in {@link LayoutCodec} order. The encoder picks the smaller format.
+ */
+public final class BoardDelta {
+    private static final int FORMAT_BITMAP = 0;
+    private static final int FORMAT_SPARSE = 1;
+
+    private BoardDelta() {
+    }
+    /**
+     * Encodes the cells that differ between two layouts.
+     * @param previous The layout the receiver already has.
+     * @param current The new layout.
+     * @return The delta.
+     */
+    public static byte[] encode(String previous, String current) {
+        if (previous.length() != current.length()) {
+            throw new IllegalArgumentException("Layouts differ in size.");
+        }
+        int cells = current.length();
+        byte[] bitmap = new byte[(cells + 7) / 8];
+        ByteArrayOutputStream gaps = new ByteArrayOutputStream();
+        int changed = 0;
+        int lastIndex = -1;
+        for (int i = 0; i < cells; i++) {
+            if (previous.charAt(i) != current.charAt(i)) {
+                bitmap[i >> 3] |= 1 << (i & 7);
+                writeVarint(gaps, i - lastIndex - 1);
+                lastIndex = i;
+                changed++;
+            }
+        }
+        byte[] states = new byte[(changed + 3) / 4];
+        int n = 0;
+        for (int i = 0; i < cells; i++) {
+            if ((bitmap[i >> 3] & (1 << (i & 7))) != 0) {
+                states[n >> 2] |= LayoutCodec.codeOf(current.charAt(i)) << ((n & 3) << 1);
+                n++;
+            }
+        }
+        ByteArrayOutputStream delta = new ByteArrayOutputStream(1 + bitmap.length + states.length);
+        if (gaps.size() + 5 < bitmap.length) {
+            delta.write(FORMAT_SPARSE);
+            writeVarint(delta, changed);
+            delta.write(gaps.toByteArray(), 0, gaps.size());
+        } else {
+            delta.write(FORMAT_BITMAP);
+            delta.write(bitmap, 0, bitmap.length);
+        }
+        delta.write(states, 0, states.length);
+        return delta.toByteArray();
+    }
+    /**
+     * Applies a delta to a layout.
+     * @param base The layout the delta was encoded against.
+     * @param delta The delta.
+     * @return The new layout.
+     * @throws IllegalArgumentException if the delta does not fit the layout.
+     */
+    public static String apply(String base, byte[] delta) {
+        try {
+            char[] board = base.toCharArray();
+            int[] position = {1};
+            int[] changedCells;
+            if (delta[0] == FORMAT_SPARSE) {
+                int changed = readVarint(delta, position);
+                if (changed > board.length) {
+                    throw new IllegalArgumentException("Delta changes more cells than the layout has.");
+                }
+                changedCells = new int[changed];
+                int index = -1;
+                for (int i = 0; i < changed; i++) {
+                    index += readVarint(delta, position) + 1;
+                    changedCells[i] = index;
+                }
+            } else if (delta[0] == FORMAT_BITMAP) {
+                int bitmapLength = (board.length + 7) / 8;
+                int changed = 0;
+                for (int i = 0; i < bitmapLength; i++) {
+                    changed += Integer.bitCount(delta[1 + i] & 0xFF);
+                }
+                changedCells = new int[changed];
+                int n = 0;
+                for (int i = 0; i < board.length; i++) {
+                    if ((delta[1 + (i >> 3)] & (1 << (i & 7))) != 0) {
+                        changedCells[n++] = i;
+                    }
+                }
+                position[0] = 1 + bitmapLength;
+            } else {
+                throw new IllegalArgumentException("Unknown delta format " + delta[0]);
+            }
+            for (int n = 0; n < changedCells.length; n++) {
+                board[changedCells[n]] = LayoutCodec.stateOf(delta[position[0] + (n >> 2)] >> ((n & 3) << 1));
+            }
+            return new String(board);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Delta does not match the layout.", e);
+        }
+    }
+    /**
+     * Encodes a delta for the text protocol.
+     * @param delta The delta.
+     * @return The delta in Base64, which contains no protocol separators.
+     */
+    public static String toWire(byte[] delta) {
+        return Base64.getEncoder().encodeToString(delta);
+    }
+    /**
+     * Decodes a delta received through the text protocol.
+     * @param wire The delta in Base64.
+     * @return The delta.
+     */
+    public static byte[] fromWire(String wire) {
+        return Base64.getDecoder().decode(wire);
+    }
+    /**
+     * Writes an unsigned varint, seven bits per byte.
+     * @param out The stream to write to.
+     * @param value The non-negative value.
+     */
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+    /**
+     * Reads an unsigned varint.
+     * @param in The bytes to read from.
+     * @param position The read position, advanced past the varint.
+     * @return The value.
+     */
+    private static int readVarint(byte[] in, int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
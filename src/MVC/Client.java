@@ -2,6 +2,14 @@ package MVC;
 
 import java.io.*;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class Client {
     private final String host;
@@ -9,10 +17,18 @@ public class Client {
     private Socket clientSocket;
     private PrintWriter out;
     private BufferedReader in;
-    private int dimension= 5;
     private int clientId;
-    private final GameModel gameModel;
     private final PrintStream outStream;
+    private ScheduledExecutorService heartbeatScheduler;
+    private volatile long lastSentNanos;
+    private String sessionToken;  // Presented to resume the session after a dropped connection
+    private long acknowledgedCount;  // Requests the server has answered, as it counts them for a resume
+    private boolean autoReconnect = true;
+    private volatile int requestTimeoutMillis;  // 0 waits for responses indefinitely
+    private volatile boolean abandoned;  // The connection was closed on a request that timed out or was cancelled
+    private final GameChannel defaultGame;  // Game 0, played with the model the client was created with
+    private final List<GameChannel> games = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextGameId = new AtomicInteger(0);
 
     /**
      * Constructs a new game client with specified host, port, game model, and output stream.
@@ -24,15 +40,88 @@ public class Client {
     public Client(String host, int port, GameModel gameModel, PrintStream outStream) {
         this.host = host;
         this.port = port;
-        this.gameModel = gameModel;
         this.outStream = outStream;
+        this.defaultGame = new GameChannel(this, 0, gameModel, outStream);
+        games.add(defaultGame);
     }
     /**
      * Sets the dimension of the game grid.
      * @param selectedDimension The selected dimension.
      */
     public void setDimension(int selectedDimension) {
-        this.dimension = selectedDimension;
+        defaultGame.setDimension(selectedDimension);
+    }
+    /**
+     * Sets whether game configurations after the first are sent as deltas of the previous one.
+     * @param deltaSync True to send deltas, false to always send the full game configuration.
+     */
+    public void setDeltaSync(boolean deltaSync) {
+        defaultGame.setDeltaSync(deltaSync);
+    }
+    /**
+     * Sets whether a dropped connection is re-established and its session resumed automatically.
+     * @param autoReconnect True to reconnect, false to report the failure to the caller.
+     */
+    public void setAutoReconnect(boolean autoReconnect) {
+        this.autoReconnect = autoReconnect;
+    }
+    /**
+     * Sets how long a request waits for its response. A request that times out is abandoned like
+     * a cancelled one: see {@link #cancelRequest()}.
+     * @param timeoutMillis The timeout in milliseconds, or 0 to wait indefinitely.
+     */
+    public void setRequestTimeout(int timeoutMillis) {
+        this.requestTimeoutMillis = timeoutMillis;
+        Socket socket = clientSocket;
+        if (socket != null) {
+            try {
+                socket.setSoTimeout(timeoutMillis);
+            } catch (IOException e) {
+                outStream.println("Could not set the request timeout: " + e.getMessage());
+            }
+        }
+    }
+    /**
+     * Abandons the request in flight, if any, by closing the connection under it; the request
+     * fails with an {@link InterruptedIOException}. Its response could otherwise still arrive
+     * and be taken for the response to the next request. The next request resumes the session
+     * on a new connection, as after a dropped connection.
+     */
+    public void cancelRequest() {
+        Socket socket = clientSocket;
+        if (socket != null && !socket.isClosed()) {
+            abandoned = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                outStream.println("Could not close the connection: " + e.getMessage());
+            }
+        }
+    }
+    /**
+     * Returns the client ID assigned by the server.
+     * @return The client ID.
+     */
+    public int getClientId() {
+        return clientId;
+    }
+    /**
+     * Opens another game on this connection. The game has its own state on the server, so
+     * many games can be played concurrently without a socket and a server thread for each.
+     * @param gameModel The model representing the state of the new game.
+     * @return The channel through which the game is played.
+     */
+    public GameChannel openGame(GameModel gameModel) {
+        GameChannel game = new GameChannel(this, nextGameId.incrementAndGet(), gameModel, outStream);
+        games.add(game);
+        return game;
+    }
+    /**
+     * Forgets a game that has been ended on the server.
+     * @param game The ended game.
+     */
+    void closeGame(GameChannel game) {
+        games.remove(game);
     }
     /**
      * Starts a connection to the game server.
@@ -41,12 +130,15 @@ public class Client {
         try {
             outStream.println("Starting connection to the server...");
 
-            clientSocket = new Socket(host, port);
-            out = new PrintWriter(clientSocket.getOutputStream(), true);
-            in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-
-            clientId = Integer.parseInt(in.readLine());  // Receive the client ID from the server
+            String greeting = openSocket();
+            if (greeting == null || Config.PROTOCOL_BUSY.equals(greeting)) {
+                outStream.println("Server is busy, try connecting again later.");
+                clientSocket.close();
+                return;
+            }
+            startSession(greeting);  // Receive the client ID from the server
             outStream.println("Connected to server. Assigned client ID: " + clientId);
+            startHeartbeat();
         } catch (IOException e) {
             System.err.println("Failed to connect to server: " + e.getMessage());
         }
@@ -57,22 +149,168 @@ public class Client {
      * @return The response received from the server.
      * @throws IOException if there's an error in network communication.
      */
-    public String sendMessage(String msg) throws IOException {
-        if(clientSocket.isClosed()) {
+    public synchronized String sendMessage(String msg) throws IOException {
+        boolean resumeFirst = abandoned && autoReconnect && sessionToken != null;
+        if(clientSocket.isClosed() && !resumeFirst) {
             throw new IOException("Socket is already closed.");
         }
         outStream.println("Sending message to server: " + msg);
-        out.println(msg);
-        String response = in.readLine();
+        lastSentNanos = System.nanoTime();
+        String response;
+        if (resumeFirst) {
+            // The last request was abandoned; pick the session up on a new connection first
+            response = reconnectAndReplay(msg, false);
+        } else {
+            response = exchange(msg);
+            if (response == null) {
+                if (abandoned) {
+                    throw new InterruptedIOException("The request was cancelled.");
+                }
+                if (!autoReconnect || sessionToken == null) {
+                    throw new EOFException("Connection to the server was lost.");
+                }
+                response = reconnectAndReplay(msg, true);
+            }
+        }
+        if (isCounted(msg, response)) {
+            acknowledgedCount++;
+        }
         outStream.println("Received response from server: " + response);
         return response;
     }
+    /**
+     * Writes a request and reads its response on the current connection.
+     * @param msg The request line.
+     * @return The response, or null if the connection dropped.
+     * @throws SocketTimeoutException if the response did not arrive within the request timeout;
+     * the connection is then abandoned.
+     */
+    private String exchange(String msg) throws SocketTimeoutException {
+        out.println(msg);
+        if (out.checkError()) {
+            return null;
+        }
+        try {
+            return in.readLine();
+        } catch (SocketTimeoutException e) {
+            cancelRequest();
+            throw new SocketTimeoutException("No response from the server within " + requestTimeoutMillis + " ms.");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    /**
+     * Opens a new socket to the server and reads its greeting.
+     * @return The greeting, or null if the server closed the connection straight away.
+     * @throws IOException if the server cannot be reached.
+     */
+    private String openSocket() throws IOException {
+        clientSocket = new Socket(host, port);
+        clientSocket.setSoTimeout(requestTimeoutMillis);
+        abandoned = false;
+        out = new PrintWriter(clientSocket.getOutputStream(), true);
+        in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+        return in.readLine();
+    }
+    /**
+     * Starts over with a new session: takes the client ID and token from the server's greeting
+     * and makes every game send its next configuration in full.
+     * @param greeting The greeting, clientId#token.
+     */
+    private void startSession(String greeting) {
+        String[] parts = greeting.split(Config.PROTOCOL_SEPARATOR);
+        clientId = Integer.parseInt(parts[0]);
+        sessionToken = parts.length > 1 ? parts[1] : null;
+        acknowledgedCount = 0;
+        for (GameChannel game : games) {
+            game.resetSync();
+        }
+    }
+    /**
+     * Checks whether the server counts a request towards the processed count it reports on resume.
+     * Heartbeats, resumes and requests turned away before reaching the session are not counted.
+     * @param msg The request line.
+     * @param response The response, or null to check the request alone.
+     * @return True if the request is counted.
+     */
+    private boolean isCounted(String msg, String response) {
+        String[] parts = msg.split(Config.PROTOCOL_SEPARATOR);
+        if (parts.length < 2 || parts[1].equals(Config.PROTOCOL_HEARTBEAT) || parts[1].equals(Config.PROTOCOL_RESUME)
+                || parts[1].equals(Config.PROTOCOL_SPECTATE)) {
+            return false;
+        }
+        return !Config.PROTOCOL_THROTTLED.equals(response) && !Config.PROTOCOL_UNAVAILABLE.equals(response)
+                && !Config.PROTOCOL_INVALID.equals(response);
+    }
+    /**
+     * Reconnects after the connection dropped during a request, backing off exponentially between
+     * attempts, and resumes the session. The request is sent again unless the server reports it
+     * was already processed, in which case the response it kept is returned instead. If the session
+     * cannot be resumed, the client carries on with the new session the server assigned.
+     * @param msg The request that was in flight when the connection dropped, or the next request
+     * after an abandoned one.
+     * @param inFlight True if the request was in flight, false if it has not been sent yet; a
+     * request the server processed since is then the abandoned one, whose response is dropped.
+     * @return The response to the request.
+     * @throws IOException if the server cannot be reached within the configured attempts.
+     */
+    private String reconnectAndReplay(String msg, boolean inFlight) throws IOException {
+        long backoffMillis = Config.RECONNECT_INITIAL_MILLIS;
+        for (int attempt = 1; attempt <= Config.RECONNECT_ATTEMPTS; attempt++) {
+            try {
+                clientSocket.close();
+                outStream.println("Connection lost, reconnecting (attempt " + attempt + ")...");
+                String greeting = openSocket();
+                if (greeting == null || Config.PROTOCOL_BUSY.equals(greeting)) {
+                    throw new IOException("Server is busy.");
+                }
+                String resumeReply = exchange(greeting.split(Config.PROTOCOL_SEPARATOR)[0] + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_RESUME
+                        + Config.PROTOCOL_SEPARATOR + clientId + Config.PROTOCOL_SEPARATOR + sessionToken);
+                if (resumeReply == null) {
+                    throw new EOFException("Connection lost while resuming.");
+                }
+                String[] reply = resumeReply.split(Config.PROTOCOL_SEPARATOR, 3);
+                if (reply[0].equals("ACK_RESUME")) {
+                    outStream.println("Resumed the session of client " + clientId + ".");
+                    long processedCount = Long.parseLong(reply[1]);
+                    if (processedCount > acknowledgedCount && !inFlight) {
+                        acknowledgedCount = processedCount;  // The abandoned request was processed after all
+                    } else if (processedCount > acknowledgedCount && isCounted(msg, null)) {
+                        // Processed before the connection dropped; only the response was lost
+                        return reply.length > 2 ? reply[2] : null;
+                    } else if (processedCount < acknowledgedCount) {
+                        acknowledgedCount = processedCount;  // The server restarted from a snapshot taken before the last requests
+                    }
+                } else {
+                    startSession(greeting);
+                    outStream.println("Could not resume the session, continuing as client " + clientId + ".");
+                }
+                String response = exchange(msg);
+                if (response != null) {
+                    return response;
+                }
+            } catch (SocketTimeoutException e) {
+                throw e;  // The server is reachable but slow; retrying would only wait again
+            } catch (IOException e) {
+                outStream.println("Reconnect attempt " + attempt + " failed: " + e.getMessage());
+            }
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reconnecting.");
+            }
+            backoffMillis = Math.min(backoffMillis * 2, Config.RECONNECT_MAX_MILLIS);
+        }
+        throw new IOException("Could not reconnect to the server after " + Config.RECONNECT_ATTEMPTS + " attempts.");
+    }
     /**
      * Closes the connection to the server.
      * @throws IOException if there's an error in network communication.
      */
     public void stopConnection() throws IOException {
         outStream.println("Stopping connection to the server...");
+        stopHeartbeat();
 
         // Check if the socket is still open
         if (!clientSocket.isClosed()) {
@@ -91,6 +329,45 @@ public class Client {
 
         outStream.println("Disconnected from server.");
     }
+    /**
+     * Sends a heartbeat so the server does not reclaim this connection as idle.
+     * @throws IOException if there's an error in network communication.
+     */
+    public void sendHeartbeat() throws IOException {
+        sendMessage(clientId + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_HEARTBEAT);
+    }
+    /**
+     * Starts sending heartbeats whenever the connection has been quiet for the heartbeat interval.
+     */
+    private void startHeartbeat() {
+        lastSentNanos = System.nanoTime();
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Client-heartbeat-" + clientId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Config.DEFAULT_HEARTBEAT_SECONDS;
+        heartbeatScheduler.scheduleWithFixedDelay(() -> {
+            if (System.nanoTime() - lastSentNanos < TimeUnit.SECONDS.toNanos(interval) || clientSocket.isClosed()) {
+                return;
+            }
+            try {
+                sendHeartbeat();
+            } catch (IOException e) {
+                outStream.println("Heartbeat failed: " + e.getMessage());
+                stopHeartbeat();
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+    /**
+     * Stops sending heartbeats.
+     */
+    private void stopHeartbeat() {
+        if (heartbeatScheduler != null) {
+            heartbeatScheduler.shutdownNow();
+            heartbeatScheduler = null;
+        }
+    }
     /**
      * Sends the current game configuration to the server. The game configuration is retrieved
      * from the game model and is then transmitted to the server using the appropriate protocol.
@@ -98,11 +375,7 @@ public class Client {
      * @throws IOException if there's an error in network communication.
      */
     public void sendGameConfiguration() throws IOException {
-        // Convert the game configuration to a string
-        String gameConfiguration = gameModel.printGridsString();
-        outStream.println("Sending game configuration to server...");
-        sendMessage(clientId + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_SENDGAME + Config.PROTOCOL_SEPARATOR + dimension + Config.FIELD_SEPARATOR + gameConfiguration);
-        outStream.println("Sent game configuration to server: " + gameConfiguration);
+        defaultGame.sendGameConfiguration();
     }
     /**
      * Requests a game configuration from the server. The received configuration
@@ -111,10 +384,39 @@ public class Client {
      * @throws IOException if there's an error in network communication.
      */
     public void requestGameConfiguration() throws IOException {
-        outStream.println("Requesting game configuration from server...");
-        // Request a game configuration from the server
-        String gameConfiguration = sendMessage(clientId + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_RECVGAME);
-        outStream.println("Received game configuration from server: " + gameConfiguration);
+        defaultGame.requestGameConfiguration();
+    }
+    /**
+     * Turns this connection into a spectator stream for another client's game. Every board the
+     * watched client sends is passed to the listener from a background thread until the
+     * connection closes; the connection cannot be used for other requests afterwards.
+     * @param watchedClientId The ID of the client whose game to watch.
+     * @param onBoard Receives each layout the watched client sends.
+     * @throws IOException if there's an error in network communication or the server refuses.
+     */
+    public void watchGame(int watchedClientId, Consumer<String> onBoard) throws IOException {
+        stopHeartbeat();
+        String response = sendMessage(clientId + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_SPECTATE + Config.PROTOCOL_SEPARATOR + watchedClientId);
+        if (!"ACK_SPECTATE".equals(response)) {
+            throw new IOException("Server refused to stream the game of client " + watchedClientId + ": " + response);
+        }
+        outStream.println("Watching the game of client " + watchedClientId + ".");
+        clientSocket.setSoTimeout(0);  // Frames arrive whenever the watched client plays
+        Thread reader = new Thread(() -> {
+            try {
+                String frame;
+                while ((frame = in.readLine()) != null) {
+                    String[] parts = frame.split(Config.PROTOCOL_SEPARATOR);
+                    if (parts.length == 3) {
+                        onBoard.accept(parts[2]);
+                    }
+                }
+            } catch (IOException e) {
+                outStream.println("Stopped watching: " + e.getMessage());
+            }
+        }, "Client-spectator-" + clientId);
+        reader.setDaemon(true);
+        reader.start();
     }
     /**
      * Sends the game results for a player to the server. The results include the player's name
@@ -125,17 +427,6 @@ public class Client {
      * @throws IOException if there's an error in network communication.
      */
     public void sendGameResults(String playerName, int points) throws IOException {
-        outStream.println("Sending game results to server...");
-
-        // Format the data as clientId#PROTOCOL_DATA#playerName#points
-        String gameResults = clientId + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_DATA + Config.PROTOCOL_SEPARATOR + playerName + Config.PROTOCOL_SEPARATOR + points;
-
-        String response = sendMessage(gameResults);
-        if ("ACK_GAME_RESULTS".equals(response)) {
-            outStream.println("Server successfully received game results.");
-        } else {
-            outStream.println("Failed to send game results to server.");
-        }
-        outStream.println("Sent game results to server: " + gameResults);
+        defaultGame.sendGameResults(playerName, points);
     }
 }
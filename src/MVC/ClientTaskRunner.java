@@ -0,0 +1,138 @@
+package MVC;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.JButton;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs the network requests of the client GUI off the event dispatch thread, so the window keeps
+ * responding while the server is slow or a request blocks. Requests run one at a time on a
+ * background thread, in the order they were made, as they share one connection. While any are
+ * pending the progress bar shows what is running and the cancel button abandons it; results
+ * are handed back on the event dispatch thread.
+ */
+public class ClientTaskRunner {
+    private final JProgressBar progressBar;
+    private final JButton cancelButton;
+    private final PrintStream outStream;
+    private final ExecutorService executor;
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private volatile Client runningClient;  // The client of the running request, for cancelling it
+
+    /**
+     * Constructs a new task runner.
+     * @param progressBar The progress bar showing the running request.
+     * @param cancelButton The button that cancels the running request.
+     * @param outStream The output stream for failures.
+     */
+    public ClientTaskRunner(JProgressBar progressBar, JButton cancelButton, PrintStream outStream) {
+        this.progressBar = progressBar;
+        this.cancelButton = cancelButton;
+        this.outStream = outStream;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Client-requests");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> cancel());
+    }
+    /**
+     * Queues a request. Must be called on the event dispatch thread.
+     * @param description What the request does, shown while it runs.
+     * @param client The client to run the request with, or null if the request creates it.
+     * @param request The request.
+     * @param onResult Receives the result on the event dispatch thread if the request succeeds.
+     * @param <T> The type of the result.
+     */
+    public <T> void submit(String description, Client client, Request<T> request, Consumer<T> onResult) {
+        showRunning(description, pendingCount.incrementAndGet());
+        executor.execute(() -> {
+            SwingUtilities.invokeLater(() -> progressBar.setString(description + "..."));
+            runningClient = client;
+            String outcome;
+            T result = null;
+            boolean succeeded = false;
+            try {
+                result = request.call(client);
+                succeeded = true;
+                outcome = description + ": " + Localization.text("request.done");
+            } catch (SocketTimeoutException e) {
+                outcome = description + ": " + Localization.text("request.timedOut");
+                outStream.println(description + " timed out: " + e.getMessage());
+            } catch (InterruptedIOException e) {
+                outcome = description + ": " + Localization.text("request.cancelled");
+            } catch (IOException | RuntimeException e) {
+                outcome = description + ": " + Localization.text("request.failed");
+                outStream.println(description + " failed: " + e.getMessage());
+            } finally {
+                runningClient = null;
+            }
+            T delivered = result;
+            boolean deliver = succeeded;
+            String finished = outcome;
+            SwingUtilities.invokeLater(() -> {
+                int remaining = pendingCount.decrementAndGet();
+                if (remaining == 0) {
+                    progressBar.setIndeterminate(false);
+                    progressBar.setString(finished);
+                    cancelButton.setEnabled(false);
+                }
+                if (deliver && onResult != null) {
+                    onResult.accept(delivered);
+                }
+            });
+        });
+    }
+    /**
+     * Cancels the running request. Requests queued behind it still run.
+     */
+    public void cancel() {
+        Client client = runningClient;
+        if (client != null) {
+            client.cancelRequest();
+        }
+    }
+    /**
+     * Stops running requests; the running one is cancelled and queued ones are dropped.
+     */
+    public void stop() {
+        cancel();
+        executor.shutdownNow();
+    }
+    /**
+     * Shows that requests are pending.
+     * @param description What the latest request does.
+     * @param pending The number of pending requests.
+     */
+    private void showRunning(String description, int pending) {
+        progressBar.setIndeterminate(true);
+        progressBar.setString(pending > 1 ? description + " (" + Localization.text("request.queued") + ")" : description + "...");
+        cancelButton.setEnabled(true);
+    }
+
+    /**
+     * A network request run by the task runner.
+     * @param <T> The type of the result.
+     */
+    @FunctionalInterface
+    public interface Request<T> {
+        /**
+         * Runs the request.
+         * @param client The client given when the request was queued.
+         * @return The result.
+         * @throws IOException if there's an error in network communication.
+         */
+        T call(Client client) throws IOException;
+    }
+}
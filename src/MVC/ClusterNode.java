@@ -0,0 +1,729 @@
+package MVC;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Connects a {@link Server} to the other nodes of a cluster. Sessions are sharded across the
+ * nodes by a {@link ConsistentHashRing} on the client ID. A request for a session owned by
+ * another node is forwarded over a persistent connection to that node, handled there, and its
+ * response returned to the connection that received it.
+ * <p>
+ * Every node has a stable ID below {@link Config#CLUSTER_MAX_NODES}, and the ring is built over
+ * the IDs of the current members. Inter-node frames are {@code requestId#request} one way and
+ * {@code requestId#response} (or just {@code requestId} when there is no response) the other.
+ * A request is a client request, or a membership message starting with one of the keywords below.
+ * <p>
+ * A node listens only on its own cluster address, and every node holds the same shared secret.
+ * A connecting node must answer a random challenge with its HMAC-SHA256 under the secret before
+ * it may send anything, so a client cannot speak for other clients through the cluster port.
+ * The secret is never sent, but the frames themselves are not encrypted.
+ * <p>
+ * The members can change while the cluster runs. A node started with a seed asks the seed for the
+ * members and announces itself to each of them; each member then moves the sessions that now fall
+ * on the new node to it before answering. A node that stops announces its departure and moves its
+ * sessions to the members that now own them. Only the sessions in the ring ranges that changed
+ * hands move, with their queued layouts; a client sending deltas is asked to resync once. A request
+ * that reaches a node the ring no longer puts it on is relayed once to the owner, so nodes that have
+ * not heard of the change yet still reach the session. Members must change one at a time.
+ */
+public class ClusterNode {
+    private static final int RING_POINTS_PER_NODE = 128;
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final String PEER_ACCEPTED = "ACK_PEER";
+    private static final String ACK = "ACK_";  // Followed by the keyword of the membership message acknowledged
+    private static final String MEMBERS = "MEMBERS";  // MEMBERS, answered with nodeId@host:port,... for every member
+    private static final String JOIN = "JOIN";  // JOIN#nodeId@host:port, answered with ACK_JOIN once the sessions of the new node are moved to it
+    private static final String LEAVE = "LEAVE";  // LEAVE#nodeId, answered with ACK_LEAVE once the node is off the ring
+    private static final String MOVE = "MOVE";  // MOVE#clientId#gameId,layout,...#..., answered with ACK_MOVE once the session is adopted
+    private static final String RELAY = "RELAY";  // RELAY#request, a client request already passed on once, handled wherever it arrives
+    private static final SecureRandom CHALLENGES = new SecureRandom();
+    private final int nodeId;
+    private final InetSocketAddress address;
+    private final InetSocketAddress seed;  // Null for a node started with the full member list
+    private final Map<Integer, InetSocketAddress> members = new ConcurrentHashMap<>();
+    private final Object membership = new Object();  // Held while this node applies a membership change
+    private volatile ConsistentHashRing ring;
+    private final Server server;
+    private final PrintStream outStream;
+    private final SecretKeySpec secret;
+    private final Map<Integer, PeerLink> links = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor requestPool;
+    private ServerSocket clusterSocket;
+
+    /**
+     * Constructs a node of a cluster whose first members are started together, each with the same
+     * list; a node's index in the list is its ID. More nodes can join later with a seed.
+     * @param nodeIndex The index of this node in the node list.
+     * @param nodes The cluster addresses of the first members, in the same order on every node.
+     * @param server The server that handles requests for sessions owned by this node.
+     * @param secret The secret shared by all nodes of the cluster.
+     * @param outStream The output stream for server messages.
+     */
+    public ClusterNode(int nodeIndex, List<InetSocketAddress> nodes, Server server, String secret, PrintStream outStream) {
+        this(nodeIndex, nodeIndex >= 0 && nodeIndex < nodes.size() ? nodes.get(nodeIndex) : null, null, server, secret, outStream);
+        for (int node = 0; node < nodes.size(); node++) {
+            members.put(node, nodes.get(node));
+        }
+        ring = new ConsistentHashRing(members.keySet(), RING_POINTS_PER_NODE);
+    }
+    /**
+     * Constructs a node that joins a running cluster through one of its members when started.
+     * @param nodeId The ID of this node, not used by any other member.
+     * @param address The cluster address of this node.
+     * @param seed The cluster address of any member.
+     * @param server The server that handles requests for sessions owned by this node.
+     * @param secret The secret shared by all nodes of the cluster.
+     * @param outStream The output stream for server messages.
+     */
+    public ClusterNode(int nodeId, InetSocketAddress address, InetSocketAddress seed, Server server, String secret, PrintStream outStream) {
+        if (address == null) {
+            throw new IllegalArgumentException("Node index " + nodeId + " is not in the node list.");
+        }
+        if (nodeId < 0 || nodeId >= Config.CLUSTER_MAX_NODES) {
+            throw new IllegalArgumentException("Node ID " + nodeId + " is not below " + Config.CLUSTER_MAX_NODES + ".");
+        }
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("Cluster nodes need a shared secret.");
+        }
+        this.secret = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.nodeId = nodeId;
+        this.address = address;
+        this.seed = seed;
+        members.put(nodeId, address);
+        this.ring = new ConsistentHashRing(members.keySet(), RING_POINTS_PER_NODE);
+        this.server = server;
+        this.outStream = outStream;
+        AtomicInteger threadCount = new AtomicInteger();
+        // A forwarded P2 waits at most the request timeout for a layout, so the pool drains even when every thread waits
+        this.requestPool = new ThreadPoolExecutor(Config.CLUSTER_REQUEST_THREADS, Config.CLUSTER_REQUEST_THREADS,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Config.CLUSTER_REQUEST_QUEUE), r -> {
+            Thread thread = new Thread(r, "ClusterRequest-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        requestPool.allowCoreThreadTimeOut(true);
+    }
+    /**
+     * Parses a comma separated list of host:port cluster addresses.
+     * @param spec The list, for example "localhost:13345,localhost:13346".
+     * @return The parsed addresses.
+     */
+    public static List<InetSocketAddress> parseNodes(String spec) {
+        List<InetSocketAddress> nodes = new ArrayList<>();
+        for (String node : spec.split(Config.FIELD_SEPARATOR)) {
+            nodes.add(parseAddress(node));
+        }
+        return nodes;
+    }
+    /**
+     * Parses a host:port cluster address.
+     * @param spec The address, for example "localhost:13345".
+     * @return The parsed address.
+     */
+    public static InetSocketAddress parseAddress(String spec) {
+        int colon = spec.lastIndexOf(':');
+        return new InetSocketAddress(spec.substring(0, colon).trim(), Integer.parseInt(spec.substring(colon + 1).trim()));
+    }
+    /**
+     * Returns the ID of this node.
+     * @return The node ID.
+     */
+    public int getNodeId() {
+        return nodeId;
+    }
+    /**
+     * Returns the number of nodes in the cluster.
+     * @return The node count.
+     */
+    public int getNodeCount() {
+        return ring.getNodes().size();
+    }
+    /**
+     * Checks whether a session is owned by this node.
+     * @param clientId The client ID of the session.
+     * @return True if this node owns the session.
+     */
+    public boolean isLocal(int clientId) {
+        return ring.nodeFor(clientId) == nodeId;
+    }
+    /**
+     * Checks whether this node is on the ring, which it is from the start until it leaves.
+     * @return True if this node is a member of the cluster.
+     */
+    public boolean isMember() {
+        return ring.getNodes().contains(nodeId);
+    }
+    /**
+     * Returns the node that owns a session.
+     * @param clientId The client ID of the session.
+     * @return The ID of the owning node.
+     */
+    public int ownerOf(int clientId) {
+        return ring.nodeFor(clientId);
+    }
+    /**
+     * Starts accepting connections from the other nodes, on this node's cluster address only. A node
+     * with a seed then joins the cluster, and the sessions it restored but does not own move to their owners.
+     * @throws IOException if the cluster address cannot be bound or the cluster cannot be joined.
+     */
+    public void start() throws IOException {
+        clusterSocket = new ServerSocket();
+        clusterSocket.bind(address);
+        Thread acceptThread = new Thread(this::acceptPeers, "ClusterAccept-" + nodeId);
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        outStream.println("Cluster node " + nodeId + " listening on " + clusterSocket.getLocalSocketAddress());
+        try {
+            if (seed != null) {
+                join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while joining the cluster.");
+        }
+        server.handOverSessions();
+    }
+    /**
+     * Learns the members from the seed and announces this node to each of them. Every member has
+     * moved the sessions that now fall on this node here by the time it answers.
+     * @throws IOException if the seed or a member cannot be reached, or refuses this node.
+     * @throws InterruptedException if interrupted while waiting for an answer.
+     */
+    private void join() throws IOException, InterruptedException {
+        Map<Integer, InetSocketAddress> known;
+        PeerLink seedLink = new PeerLink(-1, seed);
+        try {
+            known = parseMembers(seedLink.send(MEMBERS));
+        } finally {
+            seedLink.close();
+        }
+        if (known.containsKey(nodeId)) {
+            throw new IOException("Node ID " + nodeId + " is already a member of the cluster.");
+        }
+        synchronized (membership) {
+            members.putAll(known);
+            ring = new ConsistentHashRing(members.keySet(), RING_POINTS_PER_NODE);
+        }
+        for (int member : known.keySet()) {
+            String answer = link(member).send(JOIN + Config.PROTOCOL_SEPARATOR + describe(nodeId, address));
+            if (!(ACK + JOIN).equals(answer)) {
+                throw new IOException("Cluster node " + member + " did not take this node in: " + answer);
+            }
+        }
+        outStream.println("Cluster node " + nodeId + " joined " + known.size() + " members.");
+    }
+    /**
+     * Takes this node off the ring: tells every other member, then moves every session held here to
+     * the member that now owns it. The last member keeps its sessions. Called while the server stops.
+     */
+    public void leave() {
+        synchronized (membership) {
+            if (members.size() < 2) {
+                return;
+            }
+            for (int member : members.keySet()) {
+                if (member == nodeId) {
+                    continue;
+                }
+                try {
+                    link(member).send(LEAVE + Config.PROTOCOL_SEPARATOR + nodeId);
+                } catch (IOException e) {
+                    outStream.println("Could not tell cluster node " + member + " that this node leaves: " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            members.remove(nodeId);
+            ring = new ConsistentHashRing(members.keySet(), RING_POINTS_PER_NODE);
+        }
+        server.handOverSessions();
+        outStream.println("Cluster node " + nodeId + " left the cluster.");
+    }
+    /**
+     * Closes the cluster port and every connection to the other nodes.
+     */
+    public void stop() {
+        try {
+            if (clusterSocket != null) {
+                clusterSocket.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (PeerLink link : links.values()) {
+            link.close();
+        }
+        requestPool.shutdownNow();
+    }
+    /**
+     * Forwards a request to the node owning its session and waits for the response, for at most
+     * {@link Config#CLUSTER_REQUEST_TIMEOUT_SECONDS} and a little longer, so the owning node gives up on a P2 first.
+     * @param clientId The client ID of the session.
+     * @param request The request line, starting with the client ID.
+     * @return The response line, or null when the request has no response.
+     * @throws IOException if the owning node cannot be reached or does not answer in time.
+     * @throws InterruptedException if interrupted while waiting for the response.
+     */
+    public String forward(int clientId, String request) throws IOException, InterruptedException {
+        return link(ring.nodeFor(clientId)).send(request);
+    }
+    /**
+     * Moves a session to the node that now owns it, which puts its layouts ahead of any queued there since.
+     * @param clientId The client ID of the session.
+     * @param games The queued layouts of each game of the session, by game ID.
+     * @throws IOException if the owning node cannot be reached or does not take the session.
+     * @throws InterruptedException if interrupted while waiting for the answer.
+     */
+    public void moveSession(int clientId, Map<Integer, List<String>> games) throws IOException, InterruptedException {
+        StringBuilder frame = new StringBuilder(MOVE).append(Config.PROTOCOL_SEPARATOR).append(clientId);
+        for (Map.Entry<Integer, List<String>> game : games.entrySet()) {
+            frame.append(Config.PROTOCOL_SEPARATOR).append(game.getKey());
+            for (String layout : game.getValue()) {
+                frame.append(Config.FIELD_SEPARATOR).append(layout);
+            }
+        }
+        String answer = forward(clientId, frame.toString());
+        if (!(ACK + MOVE).equals(answer)) {
+            throw new IOException("The owner of client " + clientId + " did not take the session: " + answer);
+        }
+    }
+    /**
+     * Returns the connection to another node, connecting first if there is none.
+     * @param node The ID of the node.
+     * @return The connection.
+     * @throws IOException if the node is not a member or cannot be reached.
+     */
+    private PeerLink link(int node) throws IOException {
+        PeerLink link = links.get(node);
+        if (link == null) {
+            InetSocketAddress nodeAddress = members.get(node);
+            if (nodeAddress == null) {
+                throw new IOException("Cluster node " + node + " is not a member.");
+            }
+            // Connected without holding a lock, so an unreachable node only delays the requests for it
+            PeerLink connected = new PeerLink(node, nodeAddress);
+            link = links.putIfAbsent(node, connected);
+            if (link == null) {
+                link = connected;
+            } else {
+                connected.close();  // Another request connected first
+            }
+        }
+        return link;
+    }
+    /**
+     * Accepts connections from other nodes until the cluster port is closed.
+     */
+    private void acceptPeers() {
+        while (!clusterSocket.isClosed()) {
+            try {
+                Socket socket = clusterSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread thread = new Thread(() -> servePeer(socket), "ClusterPeer-" + socket.getRemoteSocketAddress());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (SocketException e) {
+                // Closed by stop()
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    /**
+     * Reads forwarded requests and membership messages from another node and answers each one as
+     * soon as it is handled. Requests run concurrently, so a blocking request does not hold up the
+     * ones behind it. A P2 waits for a layout until {@link Config#CLUSTER_REQUEST_TIMEOUT_SECONDS}
+     * after it arrived, when the forwarding node stops waiting for the response, and requests the
+     * pool has no room for are answered with PROTOCOL_UNAVAILABLE straight away.
+     * @param socket The connection from the other node.
+     */
+    private void servePeer(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            if (!authenticate(socket, in, out)) {
+                outStream.println("Rejected a cluster peer at " + socket.getRemoteSocketAddress() + ": it does not hold the shared secret.");
+                return;
+            }
+            String frame;
+            while ((frame = in.readLine()) != null) {
+                int separator = frame.indexOf(Config.PROTOCOL_SEPARATOR);
+                if (separator < 0) {
+                    outStream.println("Ignoring a malformed frame from a cluster peer: " + frame);
+                    continue;
+                }
+                String requestId = frame.substring(0, separator);
+                String request = frame.substring(separator + 1);
+                long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(Config.CLUSTER_REQUEST_TIMEOUT_SECONDS);
+                try {
+                    requestPool.execute(() -> {
+                        String response;
+                        try {
+                            // A P2 stops waiting once the forwarding node is gone or has given up, as it would for a client
+                            response = handleFrame(request, () -> socket.isClosed() || System.nanoTime() - deadlineNanos > 0);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        if (!answer(out, requestId, response)) {
+                            requeueUndelivered(request, response);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    outStream.println("Too many forwarded requests, turning away request " + requestId + ".");
+                    answer(out, requestId, Config.PROTOCOL_UNAVAILABLE);
+                }
+            }
+        } catch (IOException e) {
+            outStream.println("Lost connection from a cluster peer: " + e.getMessage());
+        }
+    }
+    /**
+     * Handles a frame from another node: a membership message, or a client request for a session
+     * this node owns. A client request for a session the ring puts elsewhere, sent by a node that
+     * has not heard of a membership change yet, is relayed to the owner.
+     * @param request The request of the frame.
+     * @param abandoned Tells whether the forwarding node has stopped waiting for the response.
+     * @return The response line, or null when the request has no response.
+     * @throws InterruptedException if interrupted while handling the request.
+     */
+    private String handleFrame(String request, BooleanSupplier abandoned) throws InterruptedException {
+        String[] parts = request.split(Config.PROTOCOL_SEPARATOR, 2);
+        try {
+            switch (parts[0]) {
+                case MEMBERS:
+                    return describeMembers();
+                case JOIN:
+                    return admitMember(parts[1]);
+                case LEAVE:
+                    return removeMember(Integer.parseInt(parts[1]));
+                case MOVE:
+                    return adoptSession(parts[1]);
+                case RELAY:
+                    return server.handleRequest(parts[1], abandoned);
+                default:
+                    int clientId = Session.clientIdOf(parts[0]);
+                    if (isLocal(clientId)) {
+                        return server.handleRequest(request, abandoned);
+                    }
+                    return forward(clientId, RELAY + Config.PROTOCOL_SEPARATOR + request);
+            }
+        } catch (IOException | RuntimeException e) {
+            outStream.println("Could not handle a frame from a cluster peer: " + e.getMessage());
+            return Config.PROTOCOL_UNAVAILABLE;
+        }
+    }
+    /**
+     * Lists the members for a node that is joining.
+     * @return nodeId@host:port for every member, separated by the field separator.
+     */
+    private String describeMembers() {
+        StringBuilder list = new StringBuilder();
+        for (Map.Entry<Integer, InetSocketAddress> member : new TreeMap<>(members).entrySet()) {
+            if (list.length() > 0) {
+                list.append(Config.FIELD_SEPARATOR);
+            }
+            list.append(describe(member.getKey(), member.getValue()));
+        }
+        return list.toString();
+    }
+    /**
+     * Puts a joining node on the ring and moves the sessions that now fall on it there.
+     * @param member The joining node, nodeId@host:port.
+     * @return ACK_JOIN, or PROTOCOL_UNAVAILABLE if its ID belongs to another member.
+     */
+    private String admitMember(String member) {
+        Map.Entry<Integer, InetSocketAddress> joining = parseMembers(member).entrySet().iterator().next();
+        synchronized (membership) {
+            InetSocketAddress known = members.putIfAbsent(joining.getKey(), joining.getValue());
+            if (known != null && !known.equals(joining.getValue())) {
+                outStream.println("Refused cluster node " + member + ": node " + joining.getKey() + " is at " + known + ".");
+                return Config.PROTOCOL_UNAVAILABLE;
+            }
+            ring = new ConsistentHashRing(members.keySet(), RING_POINTS_PER_NODE);
+        }
+        outStream.println("Cluster node " + member + " joined.");
+        server.handOverSessions();
+        return ACK + JOIN;
+    }
+    /**
+     * Takes a node that is leaving off the ring. Its sessions follow from the leaving node.
+     * @param member The ID of the leaving node.
+     * @return ACK_LEAVE.
+     */
+    private String removeMember(int member) {
+        synchronized (membership) {
+            if (member != nodeId && members.remove(member) != null) {
+                ring = new ConsistentHashRing(members.keySet(), RING_POINTS_PER_NODE);
+            }
+        }
+        PeerLink link = links.get(member);
+        if (link != null) {
+            link.close();
+        }
+        outStream.println("Cluster node " + member + " left.");
+        return ACK + LEAVE;
+    }
+    /**
+     * Adopts a session moved here by the node that owned it before.
+     * @param moved The session, clientId#gameId,layout,...#...
+     * @return ACK_MOVE.
+     */
+    private String adoptSession(String moved) {
+        String[] parts = moved.split(Config.PROTOCOL_SEPARATOR);
+        Map<Integer, List<String>> games = new LinkedHashMap<>();
+        for (int i = 1; i < parts.length; i++) {
+            String[] fields = parts[i].split(Config.FIELD_SEPARATOR);
+            List<String> layouts = new ArrayList<>();
+            for (int j = 1; j < fields.length; j++) {
+                layouts.add(fields[j]);
+            }
+            games.put(Integer.parseInt(fields[0]), layouts);
+        }
+        server.adoptSession(Integer.parseInt(parts[0]), games);
+        return ACK + MOVE;
+    }
+    /**
+     * Parses a list of members.
+     * @param list nodeId@host:port entries separated by the field separator.
+     * @return The cluster address of each member, by node ID.
+     */
+    private static Map<Integer, InetSocketAddress> parseMembers(String list) {
+        Map<Integer, InetSocketAddress> parsed = new HashMap<>();
+        for (String member : list.split(Config.FIELD_SEPARATOR)) {
+            int at = member.indexOf('@');
+            parsed.put(Integer.parseInt(member.substring(0, at)), parseAddress(member.substring(at + 1)));
+        }
+        return parsed;
+    }
+    /**
+     * Describes a member for membership messages.
+     * @param node The ID of the node.
+     * @param nodeAddress The cluster address of the node.
+     * @return nodeId@host:port.
+     */
+    private static String describe(int node, InetSocketAddress nodeAddress) {
+        return node + "@" + nodeAddress.getHostString() + ":" + nodeAddress.getPort();
+    }
+    /**
+     * Challenges a node that connected to this one to prove it holds the shared secret.
+     * @param socket The connection from the other node.
+     * @param in The reader of the connection.
+     * @param out The writer of the connection.
+     * @return True if the node answered the challenge correctly.
+     * @throws IOException if there's an error in network communication.
+     */
+    private boolean authenticate(Socket socket, BufferedReader in, BufferedWriter out) throws IOException {
+        String challenge = Long.toHexString(CHALLENGES.nextLong()) + Long.toHexString(CHALLENGES.nextLong());
+        socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+        out.write(challenge);
+        out.newLine();
+        out.flush();
+        String proof;
+        try {
+            proof = in.readLine();
+        } catch (SocketTimeoutException e) {
+            return false;
+        }
+        if (proof == null || !MessageDigest.isEqual(sign(challenge).getBytes(StandardCharsets.UTF_8), proof.getBytes(StandardCharsets.UTF_8))) {
+            return false;
+        }
+        socket.setSoTimeout(0);
+        out.write(PEER_ACCEPTED);
+        out.newLine();
+        out.flush();
+        return true;
+    }
+    /**
+     * Computes the answer to a challenge.
+     * @param challenge The challenge sent by the node being connected to.
+     * @return The HMAC-SHA256 of the challenge under the shared secret, in hex.
+     */
+    private String sign(String challenge) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(secret);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : mac.doFinal(challenge.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available.", e);
+        }
+    }
+    /**
+     * Sends the response to a forwarded request back to the node that forwarded it.
+     * @param out The connection to the forwarding node.
+     * @param requestId The ID the forwarding node gave the request.
+     * @param response The response line, or null when the request has no response.
+     * @return True if the response was sent.
+     */
+    private boolean answer(BufferedWriter out, String requestId, String response) {
+        synchronized (out) {
+            try {
+                out.write(response == null ? requestId : requestId + Config.PROTOCOL_SEPARATOR + response);
+                out.newLine();
+                out.flush();
+                return true;
+            } catch (IOException e) {
+                outStream.println("Could not answer forwarded request " + requestId + ": " + e.getMessage());
+                return false;
+            }
+        }
+    }
+    /**
+     * Puts back the game configuration of a forwarded P2 whose response could not be sent to the forwarding node.
+     * @param request The forwarded request.
+     * @param response The response that was not sent.
+     */
+    private void requeueUndelivered(String request, String response) {
+        if (request.startsWith(RELAY + Config.PROTOCOL_SEPARATOR)) {
+            request = request.substring(RELAY.length() + 1);
+        }
+        String[] parts = request.split(Config.PROTOCOL_SEPARATOR);
+        if (parts.length > 1 && parts[1].equals(Config.PROTOCOL_RECVGAME) && response != null && !response.equals(Config.PROTOCOL_UNAVAILABLE)) {
+            server.requeueGameConfiguration(parts[0], response);
+        }
+    }
+
+    /**
+     * A persistent connection to another node that carries many forwarded requests at once.
+     * Responses are matched to their requests by request ID, so they may arrive in any order.
+     */
+    private class PeerLink {
+        private final int node;
+        private final Socket socket;
+        private final BufferedWriter out;
+        private final BufferedReader in;
+        private final Map<Long, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+        private final AtomicLong nextRequestId = new AtomicLong();
+
+        /**
+         * Connects to another node, answers its challenge and starts reading its responses.
+         * @param node The ID of the node to connect to, or -1 for a seed whose ID is not known yet.
+         * @param nodeAddress The cluster address of the node.
+         * @throws IOException if the node cannot be reached or does not accept this node's secret.
+         */
+        PeerLink(int node, InetSocketAddress nodeAddress) throws IOException {
+            this.node = node;
+            socket = new Socket();
+            try {
+                socket.connect(nodeAddress, CONNECT_TIMEOUT_MILLIS);
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+                out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                String challenge = in.readLine();
+                if (challenge == null) {
+                    throw new EOFException("Cluster node " + node + " closed the connection.");
+                }
+                out.write(sign(challenge));
+                out.newLine();
+                out.flush();
+                if (!PEER_ACCEPTED.equals(in.readLine())) {
+                    throw new IOException("Cluster node " + node + " did not accept the shared secret.");
+                }
+                socket.setSoTimeout(0);
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            Thread reader = new Thread(this::readResponses, "ClusterLink-" + nodeId + "-" + node);
+            reader.setDaemon(true);
+            reader.start();
+            outStream.println("Connected to cluster node " + node + " at " + nodeAddress);
+        }
+        /**
+         * Sends a request and waits for its response. A response arriving after the wait is over is discarded.
+         * @param request The request line.
+         * @return The response line, or null when the request has no response.
+         * @throws IOException if the connection fails or the response does not arrive in time.
+         * @throws InterruptedException if interrupted while waiting for the response.
+         */
+        String send(String request) throws IOException, InterruptedException {
+            long requestId = nextRequestId.incrementAndGet();
+            CompletableFuture<String> response = new CompletableFuture<>();
+            pending.put(requestId, response);
+            try {
+                synchronized (out) {
+                    out.write(requestId + Config.PROTOCOL_SEPARATOR + request);
+                    out.newLine();
+                    out.flush();
+                }
+                return response.get(TimeUnit.SECONDS.toMillis(Config.CLUSTER_REQUEST_TIMEOUT_SECONDS) + CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (IOException e) {
+                close();
+                throw e;
+            } catch (ExecutionException e) {
+                throw new IOException("Cluster node " + node + " is unavailable.", e.getCause());
+            } catch (TimeoutException e) {
+                throw new IOException("Cluster node " + node + " did not answer within " + Config.CLUSTER_REQUEST_TIMEOUT_SECONDS + " seconds.");
+            } finally {
+                pending.remove(requestId);
+            }
+        }
+        /**
+         * Completes pending requests as their responses arrive, until the connection closes.
+         */
+        private void readResponses() {
+            try {
+                String frame;
+                while ((frame = in.readLine()) != null) {
+                    int separator = frame.indexOf(Config.PROTOCOL_SEPARATOR);
+                    long requestId = Long.parseLong(separator < 0 ? frame : frame.substring(0, separator));
+                    CompletableFuture<String> response = pending.get(requestId);
+                    if (response != null) {
+                        response.complete(separator < 0 ? null : frame.substring(separator + 1));
+                    }
+                }
+            } catch (IOException e) {
+                // Reported to the waiting requests by close()
+            } finally {
+                close();
+            }
+        }
+        /**
+         * Closes the connection and fails every request still waiting on it. The next request
+         * for the same node opens a new connection.
+         */
+        void close() {
+            links.remove(node, this);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            IOException closed = new IOException("Connection to cluster node " + node + " closed.");
+            pending.values().forEach(response -> response.completeExceptionally(closed));
+        }
+    }
+}
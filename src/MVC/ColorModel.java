@@ -10,12 +10,12 @@ class ColorModel extends JFrame {
      * Constructs a ColorModel object.
      */
     public ColorModel() {
-        setTitle("Color Model");
+        setTitle(Localization.text("colors.title"));
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setSize(300, 150);
         setLocationRelativeTo(null);
 
-        ImageIcon icon = new ImageIcon("resources/images/color.png");
+        ImageIcon icon = AssetManager.getIcon(AssetManager.COLORS_ICON);
         setIconImage(icon.getImage());
 
         colorPanel = new JPanel();
@@ -23,7 +23,7 @@ class ColorModel extends JFrame {
 
         JPanel unselectedButtonPanel = new JPanel(); // Panel for unselectColorButton
         unselectedButtonPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
-        JButton unselectColorButton = new JButton("Unselected");
+        JButton unselectColorButton = new JButton(Localization.text("colors.unselected"));
         unselectedButtonPanel.add(unselectColorButton);
 
         JButton unselectedColorFill = new JButton();
@@ -35,7 +35,7 @@ class ColorModel extends JFrame {
         unselectedButtonPanel.add(unselectedColorLabel);
 
         unselectColorButton.addActionListener(e -> {
-            Color selectedColor = JColorChooser.showDialog(colorPanel, "Select a color", Color.WHITE);
+            Color selectedColor = JColorChooser.showDialog(colorPanel, Localization.text("colors.choose"), Color.WHITE);
             if (selectedColor != null) {
                 unselectedColorFill.setBackground(selectedColor);
                 Colors.unselectedColor = selectedColor;
@@ -44,7 +44,7 @@ class ColorModel extends JFrame {
 
         JPanel waterButtonPanel = new JPanel(); // Panel for waterColorButton
         waterButtonPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
-        JButton waterColorButton = new JButton("     Water    ");
+        JButton waterColorButton = new JButton(Localization.text("colors.water"));
         waterButtonPanel.add(waterColorButton);
 
         JButton waterColorFill = new JButton();
@@ -53,7 +53,7 @@ class ColorModel extends JFrame {
         waterButtonPanel.add(waterColorFill);
 
         waterColorButton.addActionListener(e -> {
-            Color selectedColor = JColorChooser.showDialog(colorPanel, "Select a color", Color.DARK_GRAY);
+            Color selectedColor = JColorChooser.showDialog(colorPanel, Localization.text("colors.choose"), Color.DARK_GRAY);
             if (selectedColor != null) {
                 waterColorFill.setBackground(selectedColor);
                 Colors.waterColor = selectedColor;
@@ -62,7 +62,7 @@ class ColorModel extends JFrame {
 
         JPanel shipButtonPanel = new JPanel(); // Panel for waterColorButton
         shipButtonPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
-        JButton shipColorButton = new JButton("      Ship      ");
+        JButton shipColorButton = new JButton(Localization.text("colors.ship"));
         shipButtonPanel.add(shipColorButton);
 
         JButton shipColorFill = new JButton();
@@ -71,7 +71,7 @@ class ColorModel extends JFrame {
         shipButtonPanel.add(shipColorFill);
 
         shipColorButton.addActionListener(e -> {
-            Color selectedColor = JColorChooser.showDialog(colorPanel, "Select a color", Color.DARK_GRAY);
+            Color selectedColor = JColorChooser.showDialog(colorPanel, Localization.text("colors.choose"), Color.DARK_GRAY);
             if (selectedColor != null) {
                 shipColorFill.setBackground(selectedColor);
                 Colors.shipColor = selectedColor;
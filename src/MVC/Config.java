@@ -3,11 +3,63 @@ package MVC;
 public class Config {
     public static final String PROTOCOL_SEPARATOR = "#";
     public static final String FIELD_SEPARATOR = ",";
+    public static final String CHANNEL_SEPARATOR = ":";  // clientId:gameId addresses one of several games on a connection
     public static final String PROTOCOL_END = "P0";
     public static final String PROTOCOL_SENDGAME = "P1";
-    public static final String PROTOCOL_RECVGAME = "P2";
+    public static final String PROTOCOL_RECVGAME = "P2";  // clientId#P2[#dimension]; the dimension lets the server answer from its layout pool, and a connection with several games never waits
     public static final String PROTOCOL_DATA = "P3";
+    public static final String PROTOCOL_HEARTBEAT = "P4";
+    public static final String PROTOCOL_SENDDELTA = "P5";  // clientId#P5#sequence#dimension,delta
+    public static final String PROTOCOL_SPECTATE = "P6";  // clientId#P6#watchedClientId[:gameId], then the server sends P6#watchedClientId[:gameId]#layout
+    public static final String PROTOCOL_RESUME = "P7";  // newClientId#P7#clientId#token, answered ACK_RESUME#processedCount[#lastResponse]
+    public static final String PROTOCOL_REQUEUE = "REQUEUE";  // clientId#REQUEUE#layout puts back a layout taken by a P2 whose client went away
+    public static final String PROTOCOL_RESYNC = "RESYNC";  // Sent when a delta cannot be applied; the client resends the full game
+    public static final String PROTOCOL_BUSY = "BUSY";  // Sent instead of a client ID when the server is at capacity
+    public static final String PROTOCOL_UNAVAILABLE = "UNAVAILABLE";  // Sent when the node owning a session cannot be reached or does not answer in time
+    public static final String PROTOCOL_THROTTLED = "THROTTLED";  // Sent instead of a response when a client is over its rate
+    public static final String PROTOCOL_INVALID = "INVALID";  // Sent in reply to a request whose type the server does not take from clients, or that cannot be parsed
+    public static final String PROTOCOL_RESUME_FAILED = "RESUME_FAILED";  // Sent when a session cannot be resumed; the client carries on with its new ID
+    public static final String CLUSTER_SECRET_ENV = "A22_CLUSTER_SECRET";  // Environment variable holding the secret shared by the cluster nodes
+    public static final int CLUSTER_MAX_NODES = 64;  // Node IDs stay below this; each node draws client IDs from its own residue class modulo it
     public static String DEFAULT_USER = "Pepe";
     public static String DEFAULT_ADDR = "localhost";
     public static int DEFAULT_PORT = 12345;
+    public static int DEFAULT_DIMENSION = 5;  // The board dimension clients send, half the side of the grid
+    public static int DEFAULT_METRICS_PORT = 12346;
+    public static int DEFAULT_MAX_SESSIONS = 256;
+    public static int DEFAULT_ACCEPT_BACKLOG = 128;
+    public static int DEFAULT_WORKER_THREADS = 192;
+    public static int DEFAULT_HANDLER_QUEUE = 64;
+    public static int DEFAULT_IDLE_TIMEOUT_SECONDS = 120;
+    public static int DEFAULT_HEARTBEAT_SECONDS = 30;
+    public static int DEFAULT_RESUME_GRACE_SECONDS = 60;  // How long the session of a dropped connection waits for its client
+    public static int CLUSTER_REQUEST_TIMEOUT_SECONDS = 30;  // How long a request forwarded to another node, P2 included, may take
+    public static int CLUSTER_REQUEST_THREADS = 64;  // Threads handling requests forwarded from other nodes
+    public static int CLUSTER_REQUEST_QUEUE = 256;  // Forwarded requests waiting for one of those threads
+    public static int RECVGAME_CHECK_MILLIS = 250;  // How often a P2 waiting for a game configuration checks that its client is still there
+    public static int RECVGAME_MAX_WAIT_SECONDS = 120;  // How long a P2 may wait for a game configuration before it is answered PROTOCOL_UNAVAILABLE
+    public static int CLIENT_REQUEST_TIMEOUT_SECONDS = 10;  // How long the client GUI waits for a response
+    public static int EDT_STALL_THRESHOLD_MILLIS = 100;  // Events running longer are reported with the stack of the event dispatch thread
+    public static int EDT_STALL_REPORTS = 20;  // Stall reports kept for the diagnostics window
+    public static int RECONNECT_INITIAL_MILLIS = 250;
+    public static int RECONNECT_MAX_MILLIS = 8000;
+    public static int RECONNECT_ATTEMPTS = 8;
+    public static int RATE_SENDGAME_PER_SECOND = 5;
+    public static int RATE_SENDGAME_BURST = 10;
+    public static int RATE_RECVGAME_PER_SECOND = 5;
+    public static int RATE_RECVGAME_BURST = 10;
+    public static int RATE_DATA_PER_SECOND = 10;
+    public static int RATE_DATA_BURST = 20;
+    public static int RATE_HEARTBEAT_PER_SECOND = 1;
+    public static int RATE_HEARTBEAT_BURST = 5;
+    public static int RATE_INVALID_PER_SECOND = 1;  // Requests of unknown types or that cannot be parsed, which are refused
+    public static int RATE_INVALID_BURST = 5;
+    public static int SNAPSHOT_INTERVAL_SECONDS = 30;
+    public static String DEFAULT_SNAPSHOT_FILE = "server-state.snapshot";
+    public static int SPECTATOR_QUEUE_FRAMES = 32;  // Updates a spectator may fall behind before it is dropped
+    public static int SPECTATOR_WRITER_THREADS = 4;  // Threads writing to all spectators, outside the handler pool
+    public static int LAYOUT_POOL_CAPACITY = 256;  // Pre-generated layouts kept per dimension
+    public static int LAYOUT_POOL_LOW_WATERMARK = 64;
+    public static int LAYOUT_POOL_MAX_DIMENSION = 10;
+    public static int OUTBOUND_HIGH_WATERMARK = 64 * 1024;  // Bytes of unsent responses before a handler stops reading
 }
@@ -0,0 +1,88 @@
+package MVC;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A consistent hash ring that maps session keys to cluster nodes. Each node is placed on the
+ * ring at many pseudo-random points, so keys spread evenly and adding a node only moves the
+ * keys that now fall on its points; every other session stays where it is. Removing a node
+ * likewise only moves the keys it owned. A node's points follow from its ID alone, so nodes
+ * that agree on the members build the same ring.
+ */
+public class ConsistentHashRing {
+    private static final long KEY_SALT = 0xC2B2AE3D27D4EB4FL;  // Keeps key hashes apart from the hashes of ring points
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+    private final Set<Integer> nodes;
+
+    /**
+     * Constructs a ring for the nodes 0 to nodeCount - 1.
+     * @param nodeCount The number of nodes in the cluster.
+     * @param pointsPerNode The number of ring points given to each node.
+     */
+    public ConsistentHashRing(int nodeCount, int pointsPerNode) {
+        this(range(nodeCount), pointsPerNode);
+    }
+    /**
+     * Constructs a ring for the given nodes.
+     * @param nodes The IDs of the nodes in the cluster, none negative.
+     * @param pointsPerNode The number of ring points given to each node.
+     */
+    public ConsistentHashRing(Collection<Integer> nodes, int pointsPerNode) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one node.");
+        }
+        this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodes));
+        for (int node : this.nodes) {
+            if (node < 0) {
+                throw new IllegalArgumentException("Node ID " + node + " is negative.");
+            }
+            for (int point = 0; point < pointsPerNode; point++) {
+                ring.put(mix(((long) node << 32) | point), node);
+            }
+        }
+    }
+    /**
+     * Returns the nodes on the ring.
+     * @return The node IDs, in ascending order.
+     */
+    public Set<Integer> getNodes() {
+        return nodes;
+    }
+    /**
+     * Returns the node that owns a key.
+     * @param key The key, normally a client ID.
+     * @return The ID of the owning node.
+     */
+    public int nodeFor(long key) {
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(mix(key ^ KEY_SALT));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+    /**
+     * Lists the node IDs 0 to nodeCount - 1.
+     * @param nodeCount The number of nodes.
+     * @return The node IDs.
+     */
+    private static Collection<Integer> range(int nodeCount) {
+        Set<Integer> nodes = new TreeSet<>();
+        for (int node = 0; node < nodeCount; node++) {
+            nodes.add(node);
+        }
+        return nodes;
+    }
+    /**
+     * Scrambles a value into a well distributed 64-bit hash (the SplitMix64 finalizer).
+     * @param value The value to hash.
+     * @return The hash.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,55 @@
+package MVC;
+
+import javax.swing.*;
+import javax.swing.text.DefaultCaret;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+/**
+ * Shows the statistics of the {@link EdtMonitor}: how long events take on the event dispatch
+ * thread and the stacks of recent stalls. The text is refreshed every second while the window is open.
+ */
+class DiagnosticsWindow extends JFrame {
+
+    /**
+     * Constructs a DiagnosticsWindow object.
+     * @param monitor The monitor to show, or null if the event dispatch thread is not monitored.
+     */
+    public DiagnosticsWindow(EdtMonitor monitor) {
+        setTitle(Localization.text("diagnostics.title"));
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(800, 500);
+        setLocationRelativeTo(null);
+
+        JTextArea statsArea = new JTextArea();
+        statsArea.setEditable(false);
+        statsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        ((DefaultCaret) statsArea.getCaret()).setUpdatePolicy(DefaultCaret.NEVER_UPDATE);  // Refreshing keeps the scroll position
+
+        JButton resetButton = new JButton(Localization.text("diagnostics.reset"));
+        resetButton.setEnabled(monitor != null);
+
+        Runnable refresh = () -> statsArea.setText(monitor == null ? "The event dispatch thread is not monitored." : monitor.render());
+        resetButton.addActionListener(e -> {
+            monitor.reset();
+            refresh.run();
+        });
+        refresh.run();
+
+        Timer refreshTimer = new Timer(1000, e -> refresh.run());
+        refreshTimer.start();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                refreshTimer.stop();
+            }
+        });
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(resetButton);
+
+        add(new JScrollPane(statsArea), BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+}
@@ -0,0 +1,287 @@
+package MVC;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the Swing event dispatch thread. It replaces the system event queue with one that
+ * times every event it dispatches, recording the durations in histograms, and a watchdog thread
+ * that takes the stack of the event dispatch thread while an event runs past the stall threshold.
+ * The stack is taken during the stall rather than after it, so it shows what the event was blocked on.
+ * <p>
+ * An event that opens a modal dialog dispatches other events until the dialog closes. Only those
+ * inner events are timed; the event that opened the dialog is not counted as a stall.
+ */
+public final class EdtMonitor {
+    private static volatile EdtMonitor instance;
+    private final long thresholdNanos;
+    private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final Deque<Stall> stalls = new ConcurrentLinkedDeque<>();
+    private final Deque<Dispatch> dispatching = new ArrayDeque<>();  // Nested dispatches, touched only by the event dispatch thread
+    private volatile Dispatch current;  // The innermost event being dispatched, read by the watchdog
+    private volatile Thread eventThread;
+
+    /**
+     * Constructs a monitor.
+     * @param thresholdMillis How long an event may run before it is reported as a stall.
+     */
+    private EdtMonitor(int thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+    /**
+     * Starts monitoring the event dispatch thread, with the stall threshold from {@link Config#EDT_STALL_THRESHOLD_MILLIS}.
+     * Installing more than once has no effect.
+     * @return The monitor.
+     */
+    public static synchronized EdtMonitor install() {
+        if (instance == null) {
+            EdtMonitor monitor = new EdtMonitor(Config.EDT_STALL_THRESHOLD_MILLIS);
+            Toolkit.getDefaultToolkit().getSystemEventQueue().push(monitor.new TimedEventQueue());
+            ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "EDT-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1, Config.EDT_STALL_THRESHOLD_MILLIS / 4);
+            watchdog.scheduleAtFixedRate(monitor::checkForStall, period, period, TimeUnit.MILLISECONDS);
+            instance = monitor;
+        }
+        return instance;
+    }
+    /**
+     * Returns the installed monitor.
+     * @return The monitor, or null if it has not been installed.
+     */
+    public static EdtMonitor getInstance() {
+        return instance;
+    }
+    /**
+     * Returns the stall threshold.
+     * @return The threshold in milliseconds.
+     */
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+    /**
+     * Returns the histogram of the dispatch times of all events.
+     * @return The histogram, in nanoseconds.
+     */
+    public LatencyHistogram getDispatchLatency() {
+        return dispatchLatency;
+    }
+    /**
+     * Returns the stalls seen most recently, newest first. At most {@link Config#EDT_STALL_REPORTS} are kept.
+     * @return The stalls.
+     */
+    public List<Stall> getStalls() {
+        return new ArrayList<>(stalls);
+    }
+    /**
+     * Clears the recorded dispatch times and stalls.
+     */
+    public void reset() {
+        dispatchLatency.reset();
+        latencies.clear();
+        stalls.clear();
+    }
+    /**
+     * Renders the dispatch times of all events and of each kind of event, then the recent stalls with their stacks.
+     * @return The rendered statistics.
+     */
+    public String render() {
+        StringBuilder text = new StringBuilder();
+        text.append("all events: ").append(dispatchLatency.summary()).append('\n');
+        new TreeMap<>(latencies).forEach((kind, histogram) -> text.append(kind).append(": ").append(histogram.summary()).append('\n'));
+        text.append('\n').append("stalls over ").append(getThresholdMillis()).append(" ms: ").append(stalls.size()).append('\n');
+        for (Stall stall : stalls) {
+            text.append('\n').append(stall).append('\n');
+            for (StackTraceElement frame : stall.getStack()) {
+                text.append("    at ").append(frame).append('\n');
+            }
+        }
+        return text.toString();
+    }
+    /**
+     * Called by the watchdog: takes the stack of the event dispatch thread once for an event that has run past the threshold.
+     */
+    private void checkForStall() {
+        Dispatch dispatch = current;
+        Thread thread = eventThread;
+        if (dispatch == null || thread == null || dispatch.stall != null || System.nanoTime() - dispatch.startNanos < thresholdNanos) {
+            return;
+        }
+        StackTraceElement[] stack = thread.getStackTrace();
+        if (current != dispatch) {
+            return;  // The event finished while the stack was taken
+        }
+        if (isWaitingForEvents(stack)) {
+            dispatch.nested = true;  // The event runs a modal loop that is idle, which is not a stall
+            return;
+        }
+        Stall stall = new Stall(System.currentTimeMillis(), dispatch.kind, dispatch.description, stack);
+        dispatch.stall = stall;
+        stalls.addFirst(stall);
+        while (stalls.size() > Config.EDT_STALL_REPORTS) {
+            stalls.pollLast();
+        }
+    }
+    /**
+     * Tells whether a stack of the event dispatch thread is waiting for the next event inside a
+     * modal or secondary loop, rather than running the event being dispatched.
+     * @param stack The stack, innermost frame first.
+     * @return True if the thread waits for an event before it reaches the innermost dispatch.
+     */
+    private static boolean isWaitingForEvents(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            if (frame.getClassName().equals(TimedEventQueue.class.getName())) {
+                return false;
+            }
+            if (frame.getClassName().equals(EventQueue.class.getName()) && frame.getMethodName().equals("getNextEvent")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * Returns the kind an event is recorded under.
+     * @param event The event.
+     * @return The simple name of the event class.
+     */
+    private static String kindOf(AWTEvent event) {
+        return event.getClass().getSimpleName();
+    }
+
+    /**
+     * The event queue that times the events it dispatches.
+     */
+    private class TimedEventQueue extends EventQueue {
+        /**
+         * Dispatches an event and records how long it took.
+         * @param event The event to dispatch.
+         */
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            eventThread = Thread.currentThread();
+            Dispatch outer = current;
+            if (outer != null) {
+                outer.nested = true;
+                dispatching.push(outer);
+            }
+            Dispatch dispatch = new Dispatch(event);
+            current = dispatch;
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                long elapsed = System.nanoTime() - dispatch.startNanos;
+                if (!dispatch.nested) {
+                    dispatchLatency.record(elapsed);
+                    latencies.computeIfAbsent(dispatch.kind, k -> new LatencyHistogram()).record(elapsed);
+                }
+                if (dispatch.stall != null) {
+                    dispatch.stall.durationNanos = elapsed;
+                }
+                Dispatch resumed = dispatching.poll();
+                if (resumed != null) {
+                    resumed.startNanos = System.nanoTime();  // The outer event resumes once the modal loop is over
+                }
+                current = resumed;
+            }
+        }
+    }
+
+    /**
+     * An event being dispatched.
+     */
+    private static class Dispatch {
+        private final String kind;
+        private final String description;
+        private volatile long startNanos = System.nanoTime();
+        private volatile Stall stall;
+        private volatile boolean nested;  // Set when the event ran a modal loop; its time is not its own
+
+        /**
+         * Starts timing an event.
+         * @param event The event.
+         */
+        Dispatch(AWTEvent event) {
+            this.kind = kindOf(event);
+            String source = event.getSource() == null ? "" : event.getSource().getClass().getSimpleName();
+            this.description = kind + " id=" + event.getID() + (source.isEmpty() ? "" : " from " + source);
+        }
+    }
+
+    /**
+     * An event that ran past the stall threshold, with the stack of the event dispatch thread taken during the stall.
+     */
+    public static class Stall {
+        private final long timeMillis;
+        private final String kind;
+        private final String description;
+        private final StackTraceElement[] stack;
+        private volatile long durationNanos = -1;  // Set when the event finishes
+
+        /**
+         * Constructs a stall report.
+         * @param timeMillis When the stall was detected, as System.currentTimeMillis.
+         * @param kind The kind of event.
+         * @param description A description of the event.
+         * @param stack The stack of the event dispatch thread during the stall.
+         */
+        Stall(long timeMillis, String kind, String description, StackTraceElement[] stack) {
+            this.timeMillis = timeMillis;
+            this.kind = kind;
+            this.description = description;
+            this.stack = stack;
+        }
+        /**
+         * Returns when the stall was detected.
+         * @return The time as System.currentTimeMillis.
+         */
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+        /**
+         * Returns the kind of event that stalled.
+         * @return The simple name of the event class.
+         */
+        public String getKind() {
+            return kind;
+        }
+        /**
+         * Returns how long the event ran.
+         * @return The duration in nanoseconds, or -1 while the event is still running.
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+        /**
+         * Returns the stack of the event dispatch thread during the stall.
+         * @return The stack frames, innermost first.
+         */
+        public StackTraceElement[] getStack() {
+            return stack.clone();
+        }
+        /**
+         * Returns a one-line description of the stall.
+         * @return The description.
+         */
+        @Override
+        public String toString() {
+            String duration = durationNanos < 0 ? "still running" : TimeUnit.NANOSECONDS.toMillis(durationNanos) + " ms";
+            return String.format("%tT %s: %s", timeMillis, description, duration);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package MVC;
+
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * One game carried by a {@link Client} connection. Every game has its own model, dimension and
+ * delta state, and its requests are addressed to its own state on the server, so a bot or a
+ * tournament runner can play many games over a single socket.
+ * <p>
+ * Requests of all games share the connection and are answered in the order they are sent, so
+ * the server never holds a P2 of a game played this way until a layout arrives; see
+ * {@link #requestGameConfiguration()}.
+ */
+public class GameChannel {
+    private final Client client;
+    private final int gameId;
+    private final GameModel gameModel;
+    private final PrintStream outStream;
+    private int dimension = Config.DEFAULT_DIMENSION;
+    private boolean deltaSync = true;
+    private String lastSentConfiguration;  // The layout the server applies the next delta to
+    private int lastSentDimension;
+    private int deltaSequence;
+
+    /**
+     * Constructs a new game channel. Channels are opened through {@link Client#openGame(GameModel)}.
+     * @param client The client whose connection carries the game.
+     * @param gameId The ID of the game within the client's session; 0 is the client's own game.
+     * @param gameModel The model representing the game state.
+     * @param outStream The output stream for client messages.
+     */
+    GameChannel(Client client, int gameId, GameModel gameModel, PrintStream outStream) {
+        this.client = client;
+        this.gameId = gameId;
+        this.gameModel = gameModel;
+        this.outStream = outStream;
+    }
+    /**
+     * Returns the ID of the game within the client's session.
+     * @return The game ID.
+     */
+    public int getGameId() {
+        return gameId;
+    }
+    /**
+     * Sets the dimension of the game grid.
+     * @param selectedDimension The selected dimension.
+     */
+    public void setDimension(int selectedDimension) {
+        this.dimension = selectedDimension;
+    }
+    /**
+     * Sets whether game configurations after the first are sent as deltas of the previous one.
+     * @param deltaSync True to send deltas, false to always send the full game configuration.
+     */
+    public void setDeltaSync(boolean deltaSync) {
+        this.deltaSync = deltaSync;
+    }
+    /**
+     * Forgets the last layout sent, so the next game configuration is sent in full. Called when
+     * the connection is replaced, since the new session has no layout to apply a delta to.
+     */
+    void resetSync() {
+        lastSentConfiguration = null;
+    }
+    /**
+     * Returns the protocol address of this game.
+     * @return The client ID for game 0, otherwise clientId:gameId.
+     */
+    private String address() {
+        return Session.address(client.getClientId(), gameId);
+    }
+    /**
+     * Sends the current game configuration to the server. The game configuration is retrieved
+     * from the game model and is then transmitted to the server using the appropriate protocol.
+     *
+     * @throws IOException if there's an error in network communication.
+     */
+    public void sendGameConfiguration() throws IOException {
+        // Convert the game configuration to a string
+        String gameConfiguration = gameModel.printGridsString();
+        outStream.println("Sending game configuration to server...");
+        if (deltaSync && lastSentConfiguration != null && dimension == lastSentDimension
+                && gameConfiguration.length() == lastSentConfiguration.length()) {
+            // Only the cells changed since the last game configuration are sent
+            String delta = BoardDelta.toWire(BoardDelta.encode(lastSentConfiguration, gameConfiguration));
+            String response = client.sendMessage(address() + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_SENDDELTA + Config.PROTOCOL_SEPARATOR
+                    + (deltaSequence + 1) + Config.PROTOCOL_SEPARATOR + dimension + Config.FIELD_SEPARATOR + delta);
+            if ("ACK".equals(response)) {
+                deltaSequence++;
+                lastSentConfiguration = gameConfiguration;
+                outStream.println("Sent game configuration delta " + deltaSequence + " to server: " + delta);
+                return;
+            }
+            outStream.println("Server asked for the full game configuration.");
+        }
+        String response = client.sendMessage(address() + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_SENDGAME + Config.PROTOCOL_SEPARATOR + dimension + Config.FIELD_SEPARATOR + gameConfiguration);
+        if ("ACK".equals(response)) {
+            lastSentConfiguration = gameConfiguration;
+            lastSentDimension = dimension;
+            deltaSequence = 0;
+        }
+        outStream.println("Sent game configuration to server: " + gameConfiguration);
+    }
+    /**
+     * Requests a game configuration from the server. The received configuration
+     * is then printed to the output stream. The dimension is sent along so the server can
+     * answer from its pool of pre-generated layouts when it has none queued for this game.
+     * When the pool has none either and the connection carries several games, the server
+     * answers straight away instead of holding up the other games.
+     *
+     * @return The received game configuration, or null if the server has none for this game right now.
+     * @throws IOException if there's an error in network communication.
+     */
+    public String requestGameConfiguration() throws IOException {
+        outStream.println("Requesting game configuration from server...");
+        // Request a game configuration from the server
+        String gameConfiguration = client.sendMessage(address() + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_RECVGAME + Config.PROTOCOL_SEPARATOR + dimension);
+        if (Config.PROTOCOL_UNAVAILABLE.equals(gameConfiguration)) {
+            outStream.println("The server has no game configuration for game " + gameId + " yet.");
+            return null;
+        }
+        outStream.println("Received game configuration from server: " + gameConfiguration);
+        return gameConfiguration;
+    }
+    /**
+     * Sends the game results for a player to the server. The results include the player's name
+     * and the points they've scored.
+     *
+     * @param playerName The name of the player.
+     * @param points The points scored by the player.
+     * @throws IOException if there's an error in network communication.
+     */
+    public void sendGameResults(String playerName, int points) throws IOException {
+        outStream.println("Sending game results to server...");
+
+        // Format the data as address#PROTOCOL_DATA#playerName#points
+        String gameResults = address() + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_DATA + Config.PROTOCOL_SEPARATOR + playerName + Config.PROTOCOL_SEPARATOR + points;
+
+        String response = client.sendMessage(gameResults);
+        if ("ACK_GAME_RESULTS".equals(response)) {
+            outStream.println("Server successfully received game results.");
+        } else {
+            outStream.println("Failed to send game results to server.");
+        }
+        outStream.println("Sent game results to server: " + gameResults);
+    }
+    /**
+     * Ends this game on the server and discards its state there. The connection stays open for
+     * the client's other games; the client's own game 0 ends with {@link Client#stopConnection()}.
+     * @throws IOException if there's an error in network communication.
+     */
+    public void endGame() throws IOException {
+        if (gameId == 0) {
+            throw new IllegalStateException("Game 0 ends with the connection.");
+        }
+        client.sendMessage(address() + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_END);
+        client.closeGame(this);
+        outStream.println("Ended game " + gameId + " on the server.");
+    }
+}
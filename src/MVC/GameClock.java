@@ -0,0 +1,124 @@
+package MVC;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.swing.Timer;
+
+/**
+ * Measures how long a game has been played. One clock serves every window of the game: a single
+ * Swing timer ticks once a second while the clock runs and tells the listeners the elapsed time,
+ * and nothing ticks while it is paused or stopped. Time is taken from {@link System#nanoTime()},
+ * so changes to the wall clock do not affect it.
+ * <p>
+ * The clock is used from the event dispatch thread.
+ */
+public class GameClock {
+    private static final long TICK_MILLIS = 1000;
+    private final Timer ticker;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private long accumulatedNanos;  // Time run before the current stretch
+    private long stretchStartNanos;  // When the current stretch started, while running
+    private boolean running;
+
+    /**
+     * Constructs a stopped clock.
+     */
+    public GameClock() {
+        ticker = new Timer((int) TICK_MILLIS, e -> fireTick());
+        ticker.setCoalesce(true);
+    }
+    /**
+     * Starts timing a new game from zero.
+     */
+    public void start() {
+        accumulatedNanos = 0;
+        running = false;
+        resume();
+    }
+    /**
+     * Stops the clock, keeping the elapsed time until it is resumed or started again.
+     */
+    public void pause() {
+        if (running) {
+            accumulatedNanos += System.nanoTime() - stretchStartNanos;
+            running = false;
+            ticker.stop();
+            fireTick();
+        }
+    }
+    /**
+     * Continues a paused clock.
+     */
+    public void resume() {
+        if (running) {
+            return;
+        }
+        stretchStartNanos = System.nanoTime();
+        running = true;
+        // The first tick falls when the next whole second is reached, so the display stays on the second
+        long intoSecond = TimeUnit.NANOSECONDS.toMillis(accumulatedNanos) % TICK_MILLIS;
+        ticker.setInitialDelay((int) (TICK_MILLIS - intoSecond));
+        ticker.restart();
+        fireTick();
+    }
+    /**
+     * Stops the clock and sets it back to zero.
+     */
+    public void stop() {
+        running = false;
+        accumulatedNanos = 0;
+        ticker.stop();
+        fireTick();
+    }
+    /**
+     * Checks whether the clock is running.
+     * @return True if the clock is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+    /**
+     * Returns the time the current game has been played.
+     * @return The elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        long elapsed = accumulatedNanos + (running ? System.nanoTime() - stretchStartNanos : 0);
+        return TimeUnit.NANOSECONDS.toMillis(elapsed);
+    }
+    /**
+     * Adds a listener told the elapsed time every second while the clock runs and whenever it
+     * is started, paused, resumed or stopped.
+     * @param listener The listener to add.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+    /**
+     * Removes a listener.
+     * @param listener The listener to remove.
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+    /**
+     * Tells the listeners the elapsed time.
+     */
+    private void fireTick() {
+        long elapsedMillis = getElapsedMillis();
+        for (Listener listener : listeners) {
+            listener.clockTicked(elapsedMillis);
+        }
+    }
+
+    /**
+     * Receives the elapsed time of a game clock.
+     */
+    public interface Listener {
+        /**
+         * Called with the elapsed time.
+         * @param elapsedMillis The time the current game has been played, in milliseconds.
+         */
+        void clockTicked(long elapsedMillis);
+    }
+}
@@ -9,6 +9,7 @@ import javax.swing.*;
 public class GameController {
 	private final GameModel model;
 	private final GameView view;
+	private final BoardComponent.CellListener cellDispatcher = this::dispatchCellClick;  // Shared by every board
 	/**
 	 * Constructs a GameController object with the specified GameModel and GameView.
 	 *
@@ -19,7 +20,7 @@ public class GameController {
 		this.model = model;
 		this.view = view;
 		boolean playerTurn = true;
-		attachButtonListeners();
+		attachCellDispatcher();
 		if (view.getNewItem() != null) {
 			view.getNewItem().addActionListener(e -> resetGame());
 		}
@@ -35,26 +36,38 @@ public class GameController {
 				colorSelection.setVisible(true);
 			});
 		}
+		if (view.getDiagnosticsItem() != null) {
+			view.getDiagnosticsItem().addActionListener(e -> {
+				DiagnosticsWindow diagnostics = new DiagnosticsWindow(EdtMonitor.getInstance());
+				diagnostics.setVisible(true);
+			});
+		}
 	}
 	/**
-	 * Attaches button listeners to the grid buttons.
+	 * Attaches the cell dispatcher to the boards. The boards are kept for the life of the view,
+	 * so this is only needed once; attaching again has no effect.
 	 */
-	public void attachButtonListeners() {
-		JButton[][][] gridButtons = view.getGridButtons();
-
-		if (gridButtons != null) {
-			for (int i = 0; i < gridButtons.length; i++) {
-				for (int j = 0; j < gridButtons[i].length; j++) {
-					for (int k = 0; k < gridButtons[i][j].length; k++) {
-						final int boardIndex = i;
-						final int row = j;
-						final int column = k;
-						gridButtons[i][j][k].addActionListener(e -> handleCellClicked(boardIndex, row, column));
-					}
-				}
+	public void attachCellDispatcher() {
+		for (int i = 0; i < model.getNumOfBoards(); i++) {
+			BoardComponent board = view.getBoard(i);
+			if (board != null) {
+				board.addCellListener(cellDispatcher);
 			}
 		}
 	}
+	/**
+	 * Routes a click on any board to {@link #handleCellClicked(int, int, int)}.
+	 *
+	 * @param source The board that was clicked.
+	 * @param row    The row index of the clicked cell.
+	 * @param col    The column index of the clicked cell.
+	 */
+	private void dispatchCellClick(BoardComponent source, int row, int col) {
+		int boardIndex = view.getBoardIndex(source);
+		if (boardIndex >= 0) {
+			handleCellClicked(boardIndex, row, col);
+		}
+	}
 	/**
 	 * Handles the event when a cell is clicked on the grid.
 	 *
@@ -63,8 +76,6 @@ public class GameController {
 	 * @param col        The column index of the clicked cell.
 	 */
 	public void handleCellClicked(int boardIndex, int row, int col) {
-		JButton[][][] gridButtons = view.getGridButtons();
-
 		if (view.getDesignMode()) {
 			// In design mode, and it is the player's board
 			if (boardIndex == 0) {
@@ -74,24 +85,10 @@ public class GameController {
 				// Try to place a boat at the clicked location
 				boolean success = model.placeBoatManually(row, col, boatSize, direction);
 
-				// If the placement was successful, change the color of the buttons
+				// If the placement was successful, draw the cells it changed
 				if (success) {
 					System.out.println("Boat placed at Row "+row+" Col "+col+"!");
-					for (int i = 0; i < boatSize; i++) {
-						if ("Horizontal".equals(direction)) {
-							if (col + i < gridButtons[boardIndex][row].length) {
-								gridButtons[boardIndex][row][col + i].setBackground(ColorModel.Colors.shipColor);
-								gridButtons[boardIndex][row][col].setContentAreaFilled(false);
-								gridButtons[boardIndex][row][col].setOpaque(true);
-							}
-						} else {
-							if (row + i < gridButtons[boardIndex].length) {
-								gridButtons[boardIndex][row + i][col].setBackground(ColorModel.Colors.shipColor);
-								gridButtons[boardIndex][row][col].setContentAreaFilled(false);
-								gridButtons[boardIndex][row][col].setOpaque(true);
-							}
-						}
-					}
+					view.updateGridColors(model, boardIndex);
 				} else {
 					System.out.println("Cannot place a boat at Row "+row+" Col "+col+".");
 				}
@@ -100,15 +97,13 @@ public class GameController {
 			boolean hit = model.makeMove(boardIndex, row, col);
 			if (hit) {
 				System.out.println("You hit a boat on board " + boardIndex +" Row "+row+" Col "+col+ "!");
-				gridButtons[boardIndex][row][col].setBackground(ColorModel.Colors.shipColor);
-				view.updateComputerProgressBar();
-				view.updatePlayerProgressBar();
+				if (view.updateComputerProgressBar() || view.updatePlayerProgressBar()) {
+					return; // The game is over and the boards are cleared; nothing is left to draw or to fire at
+				}
 			} else {
 				System.out.println("You missed on board " + boardIndex +" Row "+row+" Col "+col+ ".");
-				gridButtons[boardIndex][row][col].setBackground(ColorModel.Colors.waterColor);
 			}
-			gridButtons[boardIndex][row][col].setContentAreaFilled(false);
-			gridButtons[boardIndex][row][col].setOpaque(true);
+			view.updateGridColors(model, boardIndex);
 			UIManager.put("Button.disabledText", Color.BLACK);
 			computerMakeMove();
 		}
@@ -122,11 +117,10 @@ public class GameController {
 	public void setBoatSizeAndDirection(Integer size, String direction) {
 	}
 	/**
-	 * Resets the game by redrawing the board and attaching button listeners.
+	 * Resets the game by redrawing the board. The boards are kept, so their listeners stay attached.
 	 */
 	public void resetGame() {
 		view.redrawBoard();
-		attachButtonListeners();
 	}
 	/**
 	 * Shows the game instructions.
@@ -145,27 +139,20 @@ public class GameController {
 	 * Makes a move for the computer opponent.
 	 */
 	public void computerMakeMove() {
-		Random random = new Random();
-		int row, col;
-		GameModel.CellState[][] playerGrid = model.getGridPlayer();
-		do {
-			row = random.nextInt(model.getDimension());
-			col = random.nextInt(model.getDimension());
-		} while (playerGrid[row][col] == GameModel.CellState.H || playerGrid[row][col] == GameModel.CellState.M);
+		int target = model.pickComputerTarget(new Random());
+		int row = target / model.getDimension();
+		int col = target % model.getDimension();
 
 		boolean hit = model.makeMove(0, row, col); // Making move on player's board
 		if (hit) {
 			System.out.println("Computer hit a boat at Row "+row+" Col "+col+"!");
-			view.getGridButtons()[0][row][col].setBackground(ColorModel.Colors.shipColor);
-			view.updateComputerProgressBar();
-			view.updatePlayerProgressBar();
-
+			if (view.updateComputerProgressBar() || view.updatePlayerProgressBar()) {
+				return; // The game is over and the boards are cleared
+			}
 		} else {
 			System.out.println("Computer missed at Row "+row+" Col "+col+".");
-			view.getGridButtons()[0][row][col].setBackground(ColorModel.Colors.waterColor);
 		}
-		view.getGridButtons()[0][row][col].setContentAreaFilled(false);
-		view.getGridButtons()[0][row][col].setOpaque(true);
+		view.updateGridColors(model, 0);
 		UIManager.put("Button.disabledText", Color.BLACK);
 	}
 }
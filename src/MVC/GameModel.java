@@ -1,5 +1,6 @@
 package MVC;
 
+import java.util.BitSet;
 import java.util.Random;
 public class GameModel {
     private static final int DEFAULT_DIMENSION = 5;
@@ -11,6 +12,7 @@ public class GameModel {
     private int computerHits = 0;
     private CellState[][] gridPlayer;
     private CellState[][] gridOpponent;
+    private BitSet[] changedCells;  // Per board, row * dimension + col of each cell changed since the view last took them
     private final Random rand;
     private String gameString;
     /**
@@ -34,19 +36,23 @@ public class GameModel {
         if(boardIndex == 1) {  // if it's the player's move
             if(gridOpponent[row][col] == CellState.B) {  // if player hits a boat
                 gridOpponent[row][col] = CellState.H;
+                markChanged(1, row, col);
                 playerHits++;
                 return true;
             } else {
                 gridOpponent[row][col] = CellState.M;
+                markChanged(1, row, col);
                 return false;
             }
         } else {  // if it's the computer's move
             if(gridPlayer[row][col] == CellState.B) {  // if computer hits a boat
                 gridPlayer[row][col] = CellState.H;
+                markChanged(0, row, col);
                 computerHits++;
                 return true;
             } else {
                 gridPlayer[row][col] = CellState.M;
+                markChanged(0, row, col);
                 return false;
             }
         }
@@ -82,16 +88,70 @@ public class GameModel {
      * @param dimension The dimension of the game grid.
      */
     private void initializeGrid(int dimension) {
-        gridPlayer = new CellState[dimension][dimension];
-        gridOpponent = new CellState[dimension][dimension];
+        if (gridPlayer == null || gridPlayer.length != dimension) {
+            gridPlayer = new CellState[dimension][dimension];
+            gridOpponent = new CellState[dimension][dimension];
+            changedCells = new BitSet[numOfBoards];
+            for (int board = 0; board < numOfBoards; board++) {
+                changedCells[board] = new BitSet(dimension * dimension);
+                changedCells[board].set(0, dimension * dimension);  // A new grid; every cell has changed
+            }
+        }
 
         for (int row = 0; row < dimension; row++) {
             for (int col = 0; col < dimension; col++) {
-                gridPlayer[row][col] = CellState.E;
-                gridOpponent[row][col] = CellState.E;
+                // Grids of the same dimension are reused, and only cells that were not empty change
+                if (gridPlayer[row][col] != CellState.E) {
+                    gridPlayer[row][col] = CellState.E;
+                    markChanged(0, row, col);
+                }
+                if (gridOpponent[row][col] != CellState.E) {
+                    gridOpponent[row][col] = CellState.E;
+                    markChanged(1, row, col);
+                }
             }
         }
     }
+    /**
+     * Records that a cell has changed since the view last drew it.
+     *
+     * @param boardIndex The index of the board (0 for player, 1 for opponent).
+     * @param row        The row index of the cell.
+     * @param col        The column index of the cell.
+     */
+    private void markChanged(int boardIndex, int row, int col) {
+        changedCells[boardIndex].set(row * dimension + col);
+    }
+    /**
+     * Clears both grids and the hit counts for a new game of the same dimension. The view clears
+     * its boards along with the model, so no cell is left to redraw.
+     */
+    public void reset() {
+        initializeGrid(dimension);
+        playerHits = 0;
+        computerHits = 0;
+        clearChanged();
+    }
+    /**
+     * Forgets the changed cells of every board, for a view whose boards already match the model.
+     */
+    public void clearChanged() {
+        for (BitSet changed : changedCells) {
+            changed.clear();
+        }
+    }
+    /**
+     * Returns the cells of a board that changed since the last call, so the view only has to
+     * redraw those.
+     *
+     * @param boardIndex The index of the board (0 for player, 1 for opponent).
+     * @return The changed cells, each as row * dimension + col.
+     */
+    public BitSet takeChangedCells(int boardIndex) {
+        BitSet changed = changedCells[boardIndex];
+        changedCells[boardIndex] = new BitSet(dimension * dimension);
+        return changed;
+    }
     /**
      * Generates random boats on the game grid and returns the number of boats created.
      *
@@ -149,15 +209,18 @@ public class GameModel {
             validPosition = canPlaceBoat(randRow, randCol, boatSize, grid, orientation);
         } while (!validPosition);
 
+        int boardIndex = grid == gridPlayer ? 0 : 1;
         if (orientation.equalsIgnoreCase("horizontal")) {
             // Place the boat horizontally
             for (int pos = 0; pos < boatSize; pos++) {
                 grid[randRow][randCol + pos] = CellState.B;
+                markChanged(boardIndex, randRow, randCol + pos);
             }
         } else {
             // Place the boat vertically
             for (int pos = 0; pos < boatSize; pos++) {
                 grid[randRow + pos][randCol] = CellState.B;
+                markChanged(boardIndex, randRow + pos, randCol);
             }
 
         }
@@ -180,11 +243,13 @@ public class GameModel {
                 // Place the boat horizontally
                 for (int pos = 0; pos < boatSize; pos++) {
                     gridPlayer[row][col + pos] = CellState.B;
+                    markChanged(0, row, col + pos);
                 }
             } else {
                 // Place the boat vertically
                 for (int pos = 0; pos < boatSize; pos++) {
                     gridPlayer[row + pos][col] = CellState.B;
+                    markChanged(0, row + pos, col);
                 }
             }
         }
@@ -201,7 +266,7 @@ public class GameModel {
      * @param orientation The orientation of the boat ("horizontal" or "vertical").
      * @return True if the boat can be placed, false otherwise.
      */
-    private boolean canPlaceBoat(int row, int col, int boatSize, CellState[][] grid, String orientation) {
+    boolean canPlaceBoat(int row, int col, int boatSize, CellState[][] grid, String orientation) {
         boolean validPosition = true;
 
         // Check if the boat can be placed in the orientation at the given position
@@ -223,6 +288,20 @@ public class GameModel {
 
         return validPosition;
     }
+    /**
+     * Picks a random cell of the player's grid that the computer has not fired at yet.
+     *
+     * @param random The source of random numbers.
+     * @return The cell, as row * dimension + col.
+     */
+    int pickComputerTarget(Random random) {
+        int row, col;
+        do {
+            row = random.nextInt(dimension);
+            col = random.nextInt(dimension);
+        } while (gridPlayer[row][col] == CellState.H || gridPlayer[row][col] == CellState.M);
+        return row * dimension + col;
+    }
     /**
      * Places boats manually on the player's grid.
      */
@@ -241,6 +320,17 @@ public class GameModel {
         printGrids();
         printGridToString(gridPlayer);
     }
+    /**
+     * Places random boats on the player's grid only and returns its layout, without printing.
+     * Used to generate layouts in the background on a model of their own.
+     *
+     * @return A string representation of the player's grid.
+     */
+    String generatePlayerLayout() {
+        initializeGrid(dimension);
+        generateNumberBoats(gridPlayer);
+        return printGridsString();
+    }
     /**
      * Prints the player's and opponent's grids.
      */
@@ -281,6 +371,14 @@ public class GameModel {
     public CellState[][] getGridPlayer() {
         return gridPlayer;
     }
+    /**
+     * Returns the opponent's grid.
+     *
+     * @return The opponent's grid.
+     */
+    public CellState[][] getGridOpponent() {
+        return gridOpponent;
+    }
     /**
      * Returns the number of hits made by the player.
      *
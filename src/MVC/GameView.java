@@ -1,11 +1,13 @@
 package MVC;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.PrintStream;
-import java.util.Locale;
-import java.util.ResourceBundle;
-import java.util.concurrent.atomic.AtomicLong;
+import java.nio.file.Paths;
+import java.util.BitSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 import javax.swing.*;
 import java.io.IOException;
 
@@ -17,9 +19,8 @@ public class GameView extends JFrame {
 	private JDialog designDialog;
 	private int dim=5;
 	private int totalTiles;
-	private ResourceBundle messages;
-	private JPanel[] gridPanel;
-	private JButton[][][] gridButtons;
+	private final List<Runnable> textUpdaters = new ArrayList<>();  // Relabel the main window when the language changes
+	private BoardComponent[] boards;
 	private JPanel controlPanel;
 	private JPanel playerGridPanel;
 	private JPanel opponentGridPanel;
@@ -32,10 +33,11 @@ public class GameView extends JFrame {
 	private final JMenuItem solutionItem;
 	private final JMenuItem exitItem;
 	private final JMenuItem colorItem;
+	private final JMenuItem diagnosticsItem;
 	private JProgressBar playerProgressBar;
 	private JProgressBar opponentProgressBar;
 	private boolean designMode = false;
-	private AtomicLong startTime;
+	private final GameClock gameClock = new GameClock();  // Shared by the main view and the client window
 	private JComboBox<Integer> boatSizeChoiceBox;
 	private JComboBox<String> boatDirectionChoiceBox;
 
@@ -46,24 +48,34 @@ public class GameView extends JFrame {
 	 */
 	public GameView(GameModel gameModel) {
 		this.gameModel = gameModel;
-		this.gameController = new GameController(gameModel, this);
 		int rows = gameModel.getDimension();
 		int columns = gameModel.getDimension();
 		int numOfBoards = gameModel.getNumOfBoards();
 
 		JMenuBar menuBar = new JMenuBar();
-		JMenu fileMenu = new JMenu("Game");
-		JMenu helpMenu = new JMenu("Help");
-
-		newItem = new JMenuItem("New");
-		solutionItem = new JMenuItem("Instructions");
-		exitItem = new JMenuItem("Exit");
-
-		colorItem = new JMenuItem("Colors");
-		JMenuItem aboutItem = new JMenuItem("About");
-
-		JMenuItem serverItem = new JMenuItem("Server");
-		JMenuItem clientItem = new JMenuItem("Client");
+		JMenu fileMenu = new JMenu();
+		localize("menu.game", fileMenu::setText);
+		JMenu helpMenu = new JMenu();
+		localize("menu.help", helpMenu::setText);
+
+		newItem = new JMenuItem();
+		localize("menu.new", newItem::setText);
+		solutionItem = new JMenuItem();
+		localize("menu.instructions", solutionItem::setText);
+		exitItem = new JMenuItem();
+		localize("menu.exit", exitItem::setText);
+
+		colorItem = new JMenuItem();
+		localize("menu.colors", colorItem::setText);
+		JMenuItem aboutItem = new JMenuItem();
+		localize("menu.about", aboutItem::setText);
+		diagnosticsItem = new JMenuItem();
+		localize("menu.diagnostics", diagnosticsItem::setText);
+
+		JMenuItem serverItem = new JMenuItem();
+		localize("menu.server", serverItem::setText);
+		JMenuItem clientItem = new JMenuItem();
+		localize("menu.client", clientItem::setText);
 
 		fileMenu.add(newItem);
 		fileMenu.add(solutionItem);
@@ -75,6 +87,7 @@ public class GameView extends JFrame {
 
 		helpMenu.add(colorItem);
 		helpMenu.add(aboutItem);
+		helpMenu.add(diagnosticsItem);
 
 		menuBar.add(fileMenu);
 		menuBar.add(helpMenu);
@@ -85,18 +98,21 @@ public class GameView extends JFrame {
 		setSize(1250, 600);
 		setLocationRelativeTo(null);
 
-		setTitle("Battleship");
+		localize("window.title", this::setTitle);
 		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
 
-		gridPanel = new JPanel[numOfBoards];
-		gridButtons = new JButton[numOfBoards][rows][columns];
+		boards = new BoardComponent[numOfBoards];
 
 		createGridPanels(rows, columns);
 		createControlPanel();
+		gameClock.addListener(elapsedMillis -> timerLabel.setText(formatTime(elapsedMillis)));
+		Localization.addListener(() -> textUpdaters.forEach(Runnable::run));
 
 		setLayout(new GridLayout(1, 1));
 		add(controlPanel);
+		// The controller is created once the boards and menu items it listens to exist
+		this.gameController = new GameController(gameModel, this);
 		setVisible(true);
 	}
 	/**
@@ -131,6 +147,14 @@ public class GameView extends JFrame {
 	public JMenuItem getColorItem() {
 		return colorItem;
 	}
+	/**
+	 * Returns the "Diagnostics" JMenuItem.
+	 *
+	 * @return The "Diagnostics" JMenuItem.
+	 */
+	public JMenuItem getDiagnosticsItem() {
+		return diagnosticsItem;
+	}
 	/**
 	 * Creates the grid panels for the player and opponent grids.
 	 *
@@ -139,75 +163,40 @@ public class GameView extends JFrame {
 	 */
 	private void createGridPanels(int rows, int columns) {
 	    // Create the player grid panel
-	    playerGridPanel = new JPanel(new GridLayout(rows + 2, columns + 1));
+	    playerGridPanel = new JPanel(new BorderLayout());
 	    playerGridPanel.setPreferredSize(new Dimension(500, 500));
-	    playerGridPanel.removeAll(); // Clear the existing grid panel
-	    playerGridPanel.add(createLabelButton("Player"));
-
-	    for (int j = 0; j < columns; j++) {
-	        JButton labelButton = new JButton(String.valueOf(j + 1));
-	        labelButton.setEnabled(false);
-	        playerGridPanel.add(labelButton);
-	    }
-
-	    char labelChar = 'A';
-
-	    for (int j = 0; j < rows; j++) {
-	        JButton labelButton = new JButton(String.valueOf(labelChar));
-	        labelButton.setEnabled(false);
-	        playerGridPanel.add(labelButton);
-	        labelChar++;
-
-	        for (int k = 0; k < columns; k++) {
-	            gridButtons[0][j][k] = new JButton(); // Assuming gridButtons is a 3D array
-	            playerGridPanel.add(gridButtons[0][j][k]);
-			}
-	    }
+	    boards[0] = new BoardComponent(Localization.text("board.player"), rows, columns);
+	    localize("board.player", boards[0]::setTitle);
+	    playerGridPanel.add(boards[0], BorderLayout.CENTER);
 
 		//Progress bar and text label below the player grid panel
 		playerProgressBar = new JProgressBar(0, 100);
 		playerProgressBar.setStringPainted(true);
 		playerProgressBar.setValue(gameModel.getPlayerHits());
-		playerGridPanel.add(playerProgressBar);
 
-		String labelText = "Player";
-		JLabel playerProgressLabel = new JLabel(labelText);
-		playerGridPanel.add(playerProgressLabel);
+		JLabel playerProgressLabel = new JLabel();
+		localize("board.player", playerProgressLabel::setText);
+		JPanel playerProgressPanel = new JPanel(new GridLayout(1, 2));
+		playerProgressPanel.add(playerProgressBar);
+		playerProgressPanel.add(playerProgressLabel);
+		playerGridPanel.add(playerProgressPanel, BorderLayout.SOUTH);
 
 	    add(playerGridPanel);
 
 	    // Create the opponent grid panel
-	    opponentGridPanel = new JPanel(new GridLayout(rows + 2, columns + 1));
+	    opponentGridPanel = new JPanel(new BorderLayout());
 	    opponentGridPanel.setPreferredSize(new Dimension(500, 500));
-	    opponentGridPanel.removeAll(); // Clear the existing grid panel
-
-	    opponentGridPanel.add(createLabelButton("Opponent"));
-
-	    for (int j = 0; j < columns; j++) {
-	        JButton labelButton = new JButton(String.valueOf(j + 1));
-	        labelButton.setEnabled(false);
-	        opponentGridPanel.add(labelButton);
-	    }
-
-	    labelChar = 'A';
-
-	    for (int j = 0; j < rows; j++) {
-	        JButton labelButton = new JButton(String.valueOf(labelChar));
-	        labelButton.setEnabled(false);
-	        opponentGridPanel.add(labelButton);
-	        labelChar++;
-
-	        for (int k = 0; k < columns; k++) {
-	            gridButtons[1][j][k] = new JButton(); // Assuming gridButtons is a 3D array
-	            opponentGridPanel.add(gridButtons[1][j][k]);
-	        }
-	    }
+	    boards[1] = new BoardComponent(Localization.text("board.opponent"), rows, columns);
+	    localize("board.opponent", boards[1]::setTitle);
+	    opponentGridPanel.add(boards[1], BorderLayout.CENTER);
 
 		// Add a progress bar and text label below the opponent grid panel
 		opponentProgressBar = new JProgressBar(0, 100);
 		opponentProgressBar.setStringPainted(true);
 		opponentProgressBar.setValue(gameModel.getComputerHits());
-		opponentGridPanel.add(opponentProgressBar);
+		JPanel opponentProgressPanel = new JPanel(new GridLayout(1, 2));
+		opponentProgressPanel.add(opponentProgressBar);
+		opponentGridPanel.add(opponentProgressPanel, BorderLayout.SOUTH);
 
 	    add(opponentGridPanel);
 
@@ -240,7 +229,7 @@ public class GameView extends JFrame {
 		JPanel logoPanel = new JPanel();
 		logoPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
 		JLabel logoLabel = new JLabel();
-		ImageIcon logoIcon = new ImageIcon("resources/images/logo.png");
+		ImageIcon logoIcon = AssetManager.getIcon(AssetManager.LOGO);
 		logoLabel.setIcon(logoIcon);
 
 		logoPanel.add(logoLabel);
@@ -249,26 +238,18 @@ public class GameView extends JFrame {
 		// languageSelectorPanel
 		JPanel languageSelectorPanel = new JPanel();
 		languageSelectorPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
-		JLabel languageSelectorLabel = new JLabel("Languages: ");
+		JLabel languageSelectorLabel = new JLabel();
+		localize("languageLabel", languageSelectorLabel::setText);
 		languageSelectorLabel.setPreferredSize(new Dimension(75, 25));
 
 		languageSelectorPanel.add(languageSelectorLabel);
 
-		String[] languages = { "English", "Spanish" };
-		JComboBox<String> languageComboBox = new JComboBox<>(languages);
+		JComboBox<Localization.Language> languageComboBox = new JComboBox<>(Localization.Language.values());
+		languageComboBox.setSelectedItem(Localization.getLanguage());
 		languageComboBox.setPreferredSize(new Dimension(80, 25));
 
-		languageComboBox.addActionListener(e -> {
-			String selectedLanguage = (String) languageComboBox.getSelectedItem();
-			Locale locale = Locale.ENGLISH; // Default to English
-
-			if (selectedLanguage.equals("Spanish")) {
-				locale = Locale.FRENCH;
-			}
-
-			messages = ResourceBundle.getBundle("resources.languages.labels", locale);
-			updateButtonNames();
-		});
+		// The texts of every language are already loaded; switching only relabels the windows
+		languageComboBox.addActionListener(e -> Localization.setLanguage((Localization.Language) languageComboBox.getSelectedItem()));
 
 		languageSelectorPanel.add(languageComboBox);
 		centerPanel.add(languageSelectorPanel);
@@ -277,7 +258,8 @@ public class GameView extends JFrame {
 		JPanel designRandomPanel = new JPanel();
 		designRandomPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
 
-		designButton = new JButton("   Design  ");
+		designButton = new JButton();
+		localize("designButton", designButton::setText);
 		designButton.addActionListener(e -> {
 			switchToDesignMode();
 			gameModel.placeManualBoats();
@@ -285,7 +267,8 @@ public class GameView extends JFrame {
 			numberOfBoats();
 		});
 
-		randomLayoutButton = new JButton(" Random ");
+		randomLayoutButton = new JButton();
+		localize("randomLayoutButton", randomLayoutButton::setText);
 		randomLayoutButton.addActionListener(e -> {
 			System.out.println("Random Layout button clicked");
 			gameModel.placeRandomBoats();
@@ -300,7 +283,8 @@ public class GameView extends JFrame {
 		JPanel dimensionPanel = new JPanel();
 		dimensionPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
 
-		JLabel dimensionLabel = new JLabel("Board Dimension:");
+		JLabel dimensionLabel = new JLabel();
+		localize("dimensionLabel", dimensionLabel::setText);
 		JComboBox<Integer> dimensionChoiceBox = new JComboBox<>();
 		for (int i = 1; i <= 10; i++) {
 			dimensionChoiceBox.addItem(i);
@@ -317,12 +301,11 @@ public class GameView extends JFrame {
 				System.out.println("Dimension set to: " + selectedDimension);
 				gameModel.setDimension(selectedDimension*2);
 				client.setDimension(selectedDimension);
-				if (gridPanel == null || gridButtons == null) {
-					System.out.println("gridPanel or gridButtons is null");
+				if (boards == null) {
+					System.out.println("boards is null");
 					return;
 				}
 				redrawBoard();
-				gameController.attachButtonListeners();
 
 			}
 		});
@@ -351,40 +334,34 @@ public class GameView extends JFrame {
         timerButton.setEnabled(false); // Disable the button
         timerButton.setBackground(Color.WHITE); // Set the background color to white
 
-        JLabel timeLabel = new JLabel("Time: ");
+        JLabel timeLabel = new JLabel();
+        localize("timeLabel", timeLabel::setText);
 		timerLabel = new JLabel("00:00:00");
 
         timeLayout.add(timeLabel);
         timerButton.add(timerLabel);
         timeLayout.add(timerButton);
 
-        startTime = new AtomicLong(0);
-
-        int delay = 1000;
-        Timer timer = new Timer(delay, e -> {
-			long elapsedTime = System.currentTimeMillis() - startTime.get();
-			String formattedTime = formatTime(elapsedTime);
-			timerLabel.setText(formattedTime);
-		});
         bottomPanel.add(timeLayout);
 
 		// Reset and Play Buttons
 		JPanel resetPlayPanel = new JPanel();
 		resetPlayPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
 
-		resetButton = new JButton("Reset");
+		resetButton = new JButton();
+		localize("resetButton", resetButton::setText);
 		resetButton.addActionListener(e -> {
 			System.out.println("Reset button clicked");
 			redrawBoard();
-			startTime.set(System.currentTimeMillis());
-			timer.stop();
+			gameClock.stop();
 		});
 
-		playButton = new JButton("Play");
+		playButton = new JButton();
+		localize("playButton", playButton::setText);
 		playButton.addActionListener(e -> {
 			System.out.println("Play button clicked");
 			numberOfTiles();
-			startTimer();
+			gameClock.start();
 		});
 
 		resetPlayPanel.add(resetButton);
@@ -436,7 +413,7 @@ public class GameView extends JFrame {
 		mainPanel.add(designPanel);
 
 		// Create a non-modal JDialog containing the mainPanel
-		designDialog = new JDialog(this, "Design Mode", false);
+		designDialog = new JDialog(this, Localization.text("design.title"), false);
 		designDialog.setContentPane(mainPanel);
 		designDialog.pack();
 		designDialog.setLocationRelativeTo(this);
@@ -455,19 +432,27 @@ public class GameView extends JFrame {
 			for (int i = 1; i <= dim; i++) { // let user select boat size up to totalBoats
 				this.boatSizeChoiceBox.addItem(i);
 			}
-		designPanel.add(new JLabel("Select Boat Size:"));
+		designPanel.add(new JLabel(Localization.text("design.boatSize")));
 		designPanel.add(boatSizeChoiceBox);
 
 		// Create a box for selecting boat direction
 		this.boatDirectionChoiceBox = new JComboBox<>();
 		this.boatDirectionChoiceBox.addItem("Horizontal");
 		this.boatDirectionChoiceBox.addItem("Vertical");
+		// The items stay the English values the controller checks; only their display is translated
+		this.boatDirectionChoiceBox.setRenderer(new DefaultListCellRenderer() {
+			@Override
+			public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+				String text = value == null ? "" : Localization.text("design." + value.toString().toLowerCase());
+				return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+			}
+		});
 
-		designPanel.add(new JLabel("Select Boat Direction:"));
+		designPanel.add(new JLabel(Localization.text("design.boatDirection")));
 		designPanel.add(this.boatDirectionChoiceBox);
 
 		// Create a "Place" button
-		JButton placeButton = new JButton("Place");
+		JButton placeButton = new JButton(Localization.text("design.place"));
 		placeButton.addActionListener(e -> {
 			Integer selectedItem = (Integer) boatSizeChoiceBox.getSelectedItem();
 			if (selectedItem != null) {
@@ -480,7 +465,7 @@ public class GameView extends JFrame {
 		designPanel.add(placeButton);
 
 		// Create the back button
-		JButton backButton = new JButton("Back");
+		JButton backButton = new JButton(Localization.text("design.back"));
 		backButton.addActionListener(e -> {
 			switchToGameMode();
 			designDialog.dispose();
@@ -509,90 +494,113 @@ public class GameView extends JFrame {
 		this.repaint();
 		this.revalidate();
 	}
-	/**
-	 * Creates a JButton with a label and disables it.
-	 * @param string The label of the button.
-	 * @return The created JButton.
-	 */
-	private JButton createLabelButton(String string) {
-		JButton labelButton = new JButton(string);
-		labelButton.setEnabled(false);
-		labelButton.setFocusable(false);
-		return labelButton;
-	}
 	/**
 	 * Sets the game icon for the JFrame.
 	 */
     private void setGameIcon() {
-        ImageIcon icon = new ImageIcon("resources/images/icon_1.png");
+        ImageIcon icon = AssetManager.getIcon(AssetManager.ICON);
         setIconImage(icon.getImage());
     }
 	/**
-	 * Returns the 3D array of JButtons representing the game grids.
+	 * Returns the component drawing one of the game boards.
+	 *
+	 * @param boardIndex The index of the board (player's or opponent's).
+	 * @return The board component, or null if the boards have not been created yet.
+	 */
+	public BoardComponent getBoard(int boardIndex) {
+		return boards == null ? null : boards[boardIndex];
+	}
+	/**
+	 * Returns the index of a board component.
 	 *
-	 * @return The 3D array of JButtons.
+	 * @param board The board component.
+	 * @return The index of the board (player's or opponent's), or -1 if it is not one of this view's boards.
 	 */
-	public JButton[][][] getGridButtons() {
-		return gridButtons;
+	public int getBoardIndex(BoardComponent board) {
+		for (int i = 0; i < boards.length; i++) {
+			if (boards[i] == board) {
+				return i;
+			}
+		}
+		return -1;
 	}
 	/**
-	 * Updates the colors of the player's grid buttons based on the current state of the game.
+	 * Updates the colors of the player's grid cells that changed in the model since the last update.
 	 *
 	 * @param gameModel The game model containing the grid state.
 	 */
 	public void updatePlayerGridColors(GameModel gameModel) {
-		GameModel.CellState[][] gridPlayer = gameModel.getGridPlayer();
-		int boardIndex = 0; // Player's board
-
-		for (int row = 0; row < gridPlayer.length; row++) {
-			for (int col = 0; col < gridPlayer[row].length; col++) {
-				Color color;
-
-				switch (gridPlayer[row][col]) {
-					case B:
-						color = Color.BLACK;
-						break;
-					case H:
-						color = Color.RED;
-						break;
-					case M:
-						color = Color.BLUE;
-						break;
-					case E:
-					default:
-						color = this.getBackground();
-						break;
-				}
-				gridButtons[boardIndex][row][col].setBackground(color);
-				gridButtons[boardIndex][row][col].setContentAreaFilled(false);
-				gridButtons[boardIndex][row][col].setOpaque(true);
+		updateGridColors(gameModel, 0);
+	}
+	/**
+	 * Updates the colors of a board's cells that changed in the model since the last update.
+	 * Hits and misses are drawn in the chosen ship and water colors; boats are only shown on the
+	 * player's own board.
+	 *
+	 * @param gameModel  The game model containing the grid state.
+	 * @param boardIndex The index of the board (0 for player, 1 for opponent).
+	 */
+	public void updateGridColors(GameModel gameModel, int boardIndex) {
+		paintChangedCells(gameModel, boardIndex, boards[boardIndex]);
+	}
+	/**
+	 * Sets the colors of the cells of a board that changed in the model since they were last taken.
+	 *
+	 * @param gameModel  The game model containing the grid state.
+	 * @param boardIndex The index of the board in the model (0 for player, 1 for opponent).
+	 * @param board      The board drawing that grid.
+	 */
+	static void paintChangedCells(GameModel gameModel, int boardIndex, BoardComponent board) {
+		GameModel.CellState[][] grid = boardIndex == 0 ? gameModel.getGridPlayer() : gameModel.getGridOpponent();
+		BitSet changedCells = gameModel.takeChangedCells(boardIndex);
+		int dimension = grid.length;
+
+		for (int cell = changedCells.nextSetBit(0); cell >= 0; cell = changedCells.nextSetBit(cell + 1)) {
+			int row = cell / dimension;
+			int col = cell % dimension;
+			Color color;
+
+			switch (grid[row][col]) {
+				case B:
+					color = boardIndex == 0 ? Color.BLACK : null; // The opponent's boats stay hidden
+					break;
+				case H:
+					color = ColorModel.Colors.shipColor;
+					break;
+				case M:
+					color = ColorModel.Colors.waterColor;
+					break;
+				case E:
+				default:
+					color = null; // Drawn like a cell that was never touched
+					break;
 			}
+			board.setCellColor(row, col, color);
 		}
-		this.revalidate();
-		this.repaint();
 	}
 	/**
-	 * Redraws the game board by recreating the grid panels and buttons based on the updated game model.
+	 * Redraws the game board for a new game. The existing boards and control panel are kept: the
+	 * cells are cleared, and the boards only change size when the dimension has changed.
 	 */
 	protected void redrawBoard() {
-		// Remove only the controlPanel from the frame
-		getContentPane().remove(controlPanel);
-		// Update rows, columns and numOfBoards based on the updated gameModel
+		startNewGame(gameModel, boards);
+		playerProgressBar.setValue(gameModel.getPlayerHits());
+		opponentProgressBar.setValue(gameModel.getComputerHits());
+	}
+	/**
+	 * Clears the model and the boards for a new game, sizing the boards to the model's dimension.
+	 * The model is cleared along with its changed cells, so nothing of the last game is drawn again.
+	 *
+	 * @param gameModel The game model.
+	 * @param boards    The boards drawing the model's grids.
+	 */
+	static void startNewGame(GameModel gameModel, BoardComponent[] boards) {
+		gameModel.reset();
 		int rows = gameModel.getDimension();
 		int columns = gameModel.getDimension();
-		int numOfBoards = gameModel.getNumOfBoards();
-		// Create new gridPanel and gridButtons with updated size
-		gridPanel = new JPanel[numOfBoards];
-		gridButtons = new JButton[numOfBoards][rows][columns];
-		// Re-initialize gridPanels
-		createGridPanels(rows, columns);
-		// Re-initialize controlPanel
-		createControlPanel();
-		// Add controlPanel to the frame again
-		add(controlPanel);
-		// Refresh the frame
-		revalidate();
-		repaint();
+		for (BoardComponent board : boards) {
+			board.setGridSize(rows, columns);
+		}
 	}
 	/**
 	 * Gets the current design mode state.
@@ -619,51 +627,59 @@ public class GameView extends JFrame {
 		return (String) this.boatDirectionChoiceBox.getSelectedItem();
 	}
 	/**
-	 * Initializes and starts a timer to track game duration.
+	 * Sets a text of the main window in the current language, and again whenever the language changes.
+	 *
+	 * @param key    The key of the text.
+	 * @param setter Sets the text on its component.
 	 */
-	private void startTimer() {
-		startTime.set(System.currentTimeMillis()); // Set the start time using AtomicLong's set() method
-		Timer timer = new Timer(1000, new ActionListener() {
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				long elapsedTime = System.currentTimeMillis() - startTime.get();
-				String formattedTime = formatTime(elapsedTime);
-				timerLabel.setText(formattedTime);
-			}
-		});
-		timer.start(); // Start the timer
+	private void localize(String key, Consumer<String> setter) {
+		localize(textUpdaters, key, setter);
 	}
 	/**
-	 * Updates the button names based on the selected language from the ResourceBundle.
+	 * Sets a text in the current language and records how to set it again when the language changes.
+	 *
+	 * @param updaters The updaters of the window the text belongs to.
+	 * @param key      The key of the text.
+	 * @param setter   Sets the text on its component.
 	 */
-	private void updateButtonNames() {
-		// Update the button names based on the loaded properties
-		designButton.setText(messages.getString("designButton"));
-		randomLayoutButton.setText(messages.getString("randomLayoutButton"));
-		resetButton.setText(messages.getString("resetButton"));
-		playButton.setText(messages.getString("playButton"));
+	private static void localize(List<Runnable> updaters, String key, Consumer<String> setter) {
+		Runnable update = () -> setter.accept(Localization.text(key));
+		update.run();
+		updaters.add(update);
 	}
 	/**
-	 * Updates the player's progress bar based on the current game state.
+	 * Updates the player's progress bar based on the current game state. When the player has
+	 * won, the boards are cleared for a new game.
+	 *
+	 * @return True if the game is over.
 	 */
-	public void updatePlayerProgressBar() {
+	public boolean updatePlayerProgressBar() {
 		int playerProgress = calculateProgressPercentage(gameModel.getPlayerHits());
 		playerProgressBar.setValue(playerProgress);
 		if (playerProgress == 100) {
-			JOptionPane.showMessageDialog(this, "You are the winner!", "Game Over", JOptionPane.INFORMATION_MESSAGE);
+			gameClock.pause(); // The game is over; the final time stays on display
+			JOptionPane.showMessageDialog(this, Localization.text("gameOver.won"), Localization.text("gameOver.title"), JOptionPane.INFORMATION_MESSAGE);
 			redrawBoard();
+			return true;
 		}
+		return false;
 	}
 	/**
-	 * Updates the computer's progress bar based on the current game state.
+	 * Updates the computer's progress bar based on the current game state. When the computer has
+	 * won, the boards are cleared for a new game.
+	 *
+	 * @return True if the game is over.
 	 */
-	public void updateComputerProgressBar() {
+	public boolean updateComputerProgressBar() {
 		int computerProgress = calculateProgressPercentage(gameModel.getComputerHits());
 		opponentProgressBar.setValue(computerProgress);
 		if (computerProgress == 100) {
-			JOptionPane.showMessageDialog(this, "Opponent is the winner!", "Game Over", JOptionPane.INFORMATION_MESSAGE);
+			gameClock.pause(); // The game is over; the final time stays on display
+			JOptionPane.showMessageDialog(this, Localization.text("gameOver.lost"), Localization.text("gameOver.title"), JOptionPane.INFORMATION_MESSAGE);
 			redrawBoard();
+			return true;
 		}
+		return false;
 	}
 	/**
 	 * Updates the total number of tiles based on the game model.
@@ -691,13 +707,18 @@ public class GameView extends JFrame {
 	 */
 	private void clientGUI() {
 
-		JFrame frame = new JFrame("Client");
+		JFrame frame = new JFrame();
 		frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+		// The window follows language changes while it is open
+		List<Runnable> texts = new ArrayList<>();
+		Runnable relabel = () -> texts.forEach(Runnable::run);
+		Localization.addListener(relabel);
+		localize(texts, "client.title", frame::setTitle);
 		frame.setSize(800, 600);
 
 		frame.setLayout(new BorderLayout());
 
-		ImageIcon imageIcon = new ImageIcon(new ImageIcon("src/client.png").getImage().getScaledInstance(800, 300, Image.SCALE_DEFAULT));
+		ImageIcon imageIcon = AssetManager.getIcon(AssetManager.CLIENT_BANNER, AssetManager.BANNER_WIDTH, AssetManager.BANNER_HEIGHT);
 
 		JLabel imageLabel = new JLabel(imageIcon);
 		frame.add(imageLabel, BorderLayout.NORTH);
@@ -715,7 +736,9 @@ public class GameView extends JFrame {
 		JTextField userTextField = new JTextField();
 		userTextField.setText(Config.DEFAULT_USER);
 		userTextField.setPreferredSize(new Dimension(0, 20));
-		userFieldPanel.add(new JLabel("User"), BorderLayout.WEST);
+		JLabel userLabel = new JLabel();
+		localize(texts, "client.user", userLabel::setText);
+		userFieldPanel.add(userLabel, BorderLayout.WEST);
 		userFieldPanel.add(userTextField, BorderLayout.CENTER);
 		textFieldAndButtonPanel.add(userFieldPanel);
 
@@ -724,7 +747,9 @@ public class GameView extends JFrame {
 		JTextField serverTextField = new JTextField();
 		serverTextField.setText(Config.DEFAULT_ADDR);
 		serverTextField.setPreferredSize(new Dimension(0, 20));
-		serverFieldPanel.add(new JLabel("Server"), BorderLayout.WEST);
+		JLabel serverLabel = new JLabel();
+		localize(texts, "client.server", serverLabel::setText);
+		serverFieldPanel.add(serverLabel, BorderLayout.WEST);
 		serverFieldPanel.add(serverTextField, BorderLayout.CENTER);
 		textFieldAndButtonPanel.add(serverFieldPanel);
 
@@ -733,7 +758,9 @@ public class GameView extends JFrame {
 		JTextField portTextField = new JTextField();
 		portTextField.setText(String.valueOf(Config.DEFAULT_PORT));
 		portTextField.setPreferredSize(new Dimension(0, 20));
-		portFieldPanel.add(new JLabel("Port"), BorderLayout.WEST);
+		JLabel portLabel = new JLabel();
+		localize(texts, "portLabel", portLabel::setText);
+		portFieldPanel.add(portLabel, BorderLayout.WEST);
 		portFieldPanel.add(portTextField, BorderLayout.CENTER);
 		textFieldAndButtonPanel.add(portFieldPanel);
 
@@ -744,23 +771,39 @@ public class GameView extends JFrame {
 		scrollPane.setPreferredSize(new Dimension(300, 200));
 		frame.add(scrollPane, BorderLayout.SOUTH);
 
-		JButton connectButton = new JButton("Connect");
-		connectButton.addActionListener(e -> new Thread(() -> {
+		// Network requests run in the background; the bar shows the running one and Cancel abandons it
+		JProgressBar requestProgressBar = new JProgressBar();
+		JButton cancelButton = new JButton();
+		localize(texts, "client.cancel", cancelButton::setText);
+		ClientTaskRunner requests = new ClientTaskRunner(requestProgressBar, cancelButton, clientPrintStream);
+		frame.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				requests.stop();
+				Localization.removeListener(relabel);
+			}
+		});
+
+		JButton connectButton = new JButton();
+		localize(texts, "client.connect", connectButton::setText);
+		connectButton.addActionListener(e -> {
 			String serverAddress = serverTextField.getText();
 			int port = Integer.parseInt(portTextField.getText());
-			client = new Client(serverAddress, port, gameModel, clientPrintStream);
-			client.startConnection();
-		}).start());
+			Client connecting = new Client(serverAddress, port, gameModel, clientPrintStream);
+			connecting.setRequestTimeout(Config.CLIENT_REQUEST_TIMEOUT_SECONDS * 1000);
+			requests.submit(Localization.text("request.connecting"), connecting, connection -> {
+				connection.startConnection();
+				return connection;
+			}, connected -> client = connected);
+		});
 		textFieldAndButtonPanel.add(connectButton);
 
-		JButton endButton = new JButton("End");
-		endButton.addActionListener(e -> new Thread(() -> {
-			try {
-				client.stopConnection();
-			} catch (IOException ex) {
-				ex.printStackTrace();
-			}
-		}).start());
+		JButton endButton = new JButton();
+		localize(texts, "endButton", endButton::setText);
+		endButton.addActionListener(e -> submitClientRequest(requests, clientPrintStream, Localization.text("request.disconnecting"), connection -> {
+			connection.stopConnection();
+			return null;
+		}));
 		textFieldAndButtonPanel.add(endButton);
 
 		c.gridy = 0;
@@ -768,7 +811,8 @@ public class GameView extends JFrame {
 
 		JPanel buttonPanel2 = new JPanel(new GridLayout(1, 5));
 
-		JButton newGameButton = new JButton("New Game");
+		JButton newGameButton = new JButton();
+		localize(texts, "client.newGame", newGameButton::setText);
 		newGameButton.setPreferredSize(new Dimension(0, 60));
 
 		newGameButton.addActionListener(e -> {
@@ -779,65 +823,96 @@ public class GameView extends JFrame {
 
 		buttonPanel2.add(newGameButton);
 
-		JButton sendGameButton = new JButton("Send Game");
-		sendGameButton.addActionListener(e -> {
-			try {
-				client.sendGameConfiguration();
-			} catch (IOException ex) {
-				ex.printStackTrace();
-			}
-		});
+		JButton sendGameButton = new JButton();
+		localize(texts, "client.sendGame", sendGameButton::setText);
+		sendGameButton.addActionListener(e -> submitClientRequest(requests, clientPrintStream, Localization.text("request.sendingGame"), connection -> {
+			connection.sendGameConfiguration();
+			return null;
+		}));
 		buttonPanel2.add(sendGameButton);
 
-		JButton receiveGameButton = new JButton("Receive Game");
-		receiveGameButton.addActionListener(e -> {
-			try {
-				client.requestGameConfiguration();
-			} catch (IOException ex) {
-				ex.printStackTrace();
-			}
-		});
+		JButton receiveGameButton = new JButton();
+		localize(texts, "client.receiveGame", receiveGameButton::setText);
+		receiveGameButton.addActionListener(e -> submitClientRequest(requests, clientPrintStream, Localization.text("request.receivingGame"), connection -> {
+			connection.requestGameConfiguration();
+			return null;
+		}));
 		buttonPanel2.add(receiveGameButton);
 
-		JButton sendDataButton = new JButton("Send Data");
+		JButton sendDataButton = new JButton();
+		localize(texts, "client.sendData", sendDataButton::setText);
 		sendDataButton.addActionListener(e -> {
-			try {
-				String playerName = userTextField.getText();
-
-				client.sendGameResults(playerName, gameModel.getPlayerHits());
-			} catch (IOException ex) {
-				ex.printStackTrace();
-			}
+			// Read on the event dispatch thread; the request only sends them
+			String playerName = userTextField.getText();
+			int points = gameModel.getPlayerHits();
+			submitClientRequest(requests, clientPrintStream, Localization.text("request.sendingData"), connection -> {
+				connection.sendGameResults(playerName, points);
+				return null;
+			});
 		});
 		buttonPanel2.add(sendDataButton);
 
-		JButton playButton = new JButton("Play");
+		JButton playButton = new JButton();
+		localize(texts, "playButton", playButton::setText);
 		playButton.setPreferredSize(new Dimension(0, 60));
 		playButton.addActionListener(e -> {
 			System.out.println("Client Play button clicked");
 			numberOfTiles();
-			startTimer();
+			gameClock.start();
 		});
 		buttonPanel2.add(playButton);
 
 		c.gridy = 1;
 		centerPanel.add(buttonPanel2, c);
 
+		JPanel requestPanel = new JPanel(new BorderLayout());
+		requestPanel.add(requestProgressBar, BorderLayout.CENTER);
+		requestPanel.add(cancelButton, BorderLayout.EAST);
+		c.gridy = 2;
+		centerPanel.add(requestPanel, c);
+
 		frame.add(centerPanel, BorderLayout.CENTER);
 
 		frame.setVisible(true);
 	}
+	/**
+	 * Queues a request of the connected client on the client GUI's task runner.
+	 *
+	 * @param requests    The task runner of the client GUI.
+	 * @param out         The output stream of the client GUI.
+	 * @param description What the request does, shown while it runs.
+	 * @param request     The request.
+	 * @param <T>         The type of the result of the request.
+	 */
+	private <T> void submitClientRequest(ClientTaskRunner requests, PrintStream out, String description, ClientTaskRunner.Request<T> request) {
+		if (client == null) {
+			out.println("Not connected to a server.");
+			return;
+		}
+		requests.submit(description, client, request, null);
+	}
 	/**
 	 * Creates and displays the server GUI for the game.
 	 */
 	private void serverGUI() {
-		JFrame frame = new JFrame("Server");
+		JFrame frame = new JFrame();
 		frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+		// The window follows language changes while it is open
+		List<Runnable> texts = new ArrayList<>();
+		Runnable relabel = () -> texts.forEach(Runnable::run);
+		Localization.addListener(relabel);
+		frame.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				Localization.removeListener(relabel);
+			}
+		});
+		localize(texts, "server.title", frame::setTitle);
 		frame.setSize(800, 600);
 
 		frame.setLayout(new BorderLayout());
 
-		ImageIcon imageIcon = new ImageIcon(new ImageIcon("src/server.png").getImage().getScaledInstance(800, 300, Image.SCALE_DEFAULT));
+		ImageIcon imageIcon = AssetManager.getIcon(AssetManager.SERVER_BANNER, AssetManager.BANNER_WIDTH, AssetManager.BANNER_HEIGHT);
 		JLabel imageLabel = new JLabel(imageIcon);
 		frame.add(imageLabel, BorderLayout.NORTH);
 
@@ -855,7 +930,9 @@ public class GameView extends JFrame {
 		textField.setText(String.valueOf(Config.DEFAULT_PORT));
 		textField.setPreferredSize(new Dimension(0, 20));
 
-		fieldPanel.add(new JLabel("Port"), BorderLayout.WEST);
+		JLabel portLabel = new JLabel();
+		localize(texts, "portLabel", portLabel::setText);
+		fieldPanel.add(portLabel, BorderLayout.WEST);
 		fieldPanel.add(textField, BorderLayout.CENTER);
 		textFieldAndButtonPanel.add(fieldPanel);
 
@@ -865,10 +942,13 @@ public class GameView extends JFrame {
 		scrollPane.setPreferredSize(new Dimension(300, 200));
 		frame.add(scrollPane, BorderLayout.SOUTH);
 
-		JButton startButton = new JButton("Start");
+		JButton startButton = new JButton();
+		localize(texts, "server.start", startButton::setText);
 		startButton.addActionListener(e -> {
 			int port = Integer.parseInt(textField.getText());
 			server = new Server(port, serverPrintStream);
+			server.setSnapshotFile(Paths.get(Config.DEFAULT_SNAPSHOT_FILE));
+			server.setMetricsPort(0); // Metrics are only served by the command-line server, with --metrics-port
 			new Thread(() -> {
 				try {
 					server.start();
@@ -879,15 +959,18 @@ public class GameView extends JFrame {
 		});
 		textFieldAndButtonPanel.add(startButton);
 
-		JButton resultButton = new JButton("Result");
+		JButton resultButton = new JButton();
+		localize(texts, "server.result", resultButton::setText);
 		resultButton.setPreferredSize(new Dimension(0, 60));
 		textFieldAndButtonPanel.add(resultButton);
 
-		JRadioButton finalizeButton = new JRadioButton("Finalize");
+		JRadioButton finalizeButton = new JRadioButton();
+		localize(texts, "server.finalize", finalizeButton::setText);
 		finalizeButton.setPreferredSize(new Dimension(0, 60));
 		textFieldAndButtonPanel.add(finalizeButton);
 
-		JButton endButton = new JButton("End");
+		JButton endButton = new JButton();
+		localize(texts, "endButton", endButton::setText);
 		endButton.addActionListener(e -> {
 			try {
 				server.stop();
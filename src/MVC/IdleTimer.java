@@ -0,0 +1,156 @@
+package MVC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hashed timing wheel that reclaims connections which have been idle for too long.
+ * A single daemon thread advances the wheel one slot per tick. Connections only record
+ * the time of their last activity; when their slot comes up they are either expired or
+ * filed again into the slot matching their new deadline, so activity never touches the wheel.
+ */
+public class IdleTimer {
+    private static final int WHEEL_SIZE = 512;
+    private final long tickNanos;
+    private final long timeoutNanos;
+    private final List<ConcurrentLinkedQueue<Entry>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final long startNanos = System.nanoTime();
+    private ScheduledExecutorService ticker;
+    private long currentTick = 0;  // Only advanced by the ticker thread
+
+    /**
+     * Constructs a new idle timer.
+     * @param timeout How long a connection may stay idle before it is expired.
+     * @param tick The resolution of the wheel; expiry happens up to one tick late.
+     * @param unit The unit of the timeout and tick values.
+     */
+    public IdleTimer(long timeout, long tick, TimeUnit unit) {
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.tickNanos = unit.toNanos(tick);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+    /**
+     * Starts the thread that advances the wheel.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "IdleTimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+    /**
+     * Stops the wheel. Registered entries are left alone.
+     */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+    /**
+     * Registers a connection with the wheel.
+     * @param onExpire The action that closes the connection once it has been idle for the timeout.
+     * @return The entry the connection uses to report activity.
+     */
+    public Entry register(Runnable onExpire) {
+        Entry entry = new Entry(onExpire);
+        schedule(entry, entry.lastActivity + timeoutNanos);
+        return entry;
+    }
+    /**
+     * Files an entry into the slot matching its deadline.
+     * @param entry The entry to file.
+     * @param deadlineNanos The time, in System.nanoTime terms, at which the entry should be checked.
+     */
+    private void schedule(Entry entry, long deadlineNanos) {
+        long tick = Math.max(0, (deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+        entry.deadlineTick = tick;
+        wheel.get((int) (tick % WHEEL_SIZE)).add(entry);
+    }
+    /**
+     * Processes every slot between the last tick handled and the current time.
+     */
+    private void advance() {
+        long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+        while (currentTick <= targetTick) {
+            expireSlot(currentTick++);
+        }
+    }
+    /**
+     * Expires or re-files the entries of one slot.
+     * @param tick The tick whose slot is processed.
+     */
+    private void expireSlot(long tick) {
+        ConcurrentLinkedQueue<Entry> slot = wheel.get((int) (tick % WHEEL_SIZE));
+        List<Entry> laterRounds = new ArrayList<>();
+        long now = System.nanoTime();
+        Entry entry;
+        while ((entry = slot.poll()) != null) {
+            if (entry.cancelled) {
+                continue;
+            }
+            if (entry.deadlineTick > tick) {
+                laterRounds.add(entry);  // Deadline is one or more turns of the wheel away
+            } else if (entry.busy) {
+                schedule(entry, now + timeoutNanos);
+            } else if (now - entry.lastActivity < timeoutNanos) {
+                schedule(entry, entry.lastActivity + timeoutNanos);
+            } else {
+                entry.cancelled = true;
+                try {
+                    entry.onExpire.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        slot.addAll(laterRounds);
+    }
+
+    /**
+     * The handle a connection uses to report activity to the wheel.
+     */
+    public static class Entry {
+        private final Runnable onExpire;
+        private volatile long lastActivity = System.nanoTime();
+        private volatile boolean busy;
+        private volatile boolean cancelled;
+        private volatile long deadlineTick;
+
+        private Entry(Runnable onExpire) {
+            this.onExpire = onExpire;
+        }
+        /**
+         * Records activity on the connection, pushing its expiry back by the full timeout.
+         */
+        public void touch() {
+            lastActivity = System.nanoTime();
+        }
+        /**
+         * Marks the connection as busy with a request. Busy connections are never expired,
+         * so a handler blocked on a long request is not mistaken for an idle one.
+         * @param busy True while a request is being processed.
+         */
+        public void setBusy(boolean busy) {
+            this.busy = busy;
+            lastActivity = System.nanoTime();
+        }
+        /**
+         * Removes the connection from the wheel. It is dropped the next time its slot comes up.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -4,18 +4,15 @@ import javax.swing.*;
 
 public class InstructionsWindow extends JFrame {
     public InstructionsWindow() {
-        setTitle("Instructions");
+        setTitle(Localization.text("menu.instructions"));
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setSize(400, 300);
         setLocationRelativeTo(null);
 
-        ImageIcon icon = new ImageIcon("resources/images/icon_1.png");
+        ImageIcon icon = AssetManager.getIcon(AssetManager.ICON);
         setIconImage(icon.getImage());
 
-        JLabel instructionsLabel = new JLabel("<html>"
-                + "<h2>  Battleship:</h2>"
-                + "<p>   Random or Manual? Press Play to Begin. Choose your style and set sail!</p>"
-                + "</html>");
+        JLabel instructionsLabel = new JLabel(Localization.text("instructions.text"));
         instructionsLabel.setHorizontalAlignment(SwingConstants.CENTER);
         add(instructionsLabel);
     }
@@ -0,0 +1,118 @@
+package MVC;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent latency histogram with HdrHistogram-style log-linear buckets.
+ * Every power of two is split into {@value #HALF_SUB_BUCKETS} linear sub-buckets, each 1/16 of it
+ * wide, so a recorded value is reported at most about 6% above its true value while the whole
+ * range of a long fits into under a thousand counters. Recording is lock-free.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(Long.MAX_VALUE) + 1);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+    private final AtomicLong maxValue = new AtomicLong(0);
+
+    /**
+     * Records one value, normally a duration in nanoseconds.
+     * @param value The value to record. Negative values are recorded as zero.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(indexOf(v));
+        totalCount.increment();
+        totalValue.add(v);
+        maxValue.accumulateAndGet(v, Math::max);
+    }
+    /**
+     * Returns the number of recorded values.
+     * @return The number of recorded values.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+    /**
+     * Returns the largest recorded value.
+     * @return The largest recorded value, or zero if nothing has been recorded.
+     */
+    public long getMax() {
+        return maxValue.get();
+    }
+    /**
+     * Returns the mean of the recorded values.
+     * @return The mean of the recorded values, or zero if nothing has been recorded.
+     */
+    public double getMean() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalValue.sum() / count;
+    }
+    /**
+     * Returns the value below which the given percentage of recorded values fall.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The highest value equivalent to the bucket holding the percentile.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalValue.reset();
+        maxValue.set(0);
+    }
+    /**
+     * Returns a one-line summary of the histogram with nanosecond values shown in microseconds.
+     * @return The summary line.
+     */
+    public String summary() {
+        return String.format("count=%d mean=%.1fus p50=%dus p90=%dus p99=%dus p99.9=%dus max=%dus",
+                getCount(), getMean() / 1000, getValueAtPercentile(50) / 1000, getValueAtPercentile(90) / 1000,
+                getValueAtPercentile(99) / 1000, getValueAtPercentile(99.9) / 1000, getMax() / 1000);
+    }
+    /**
+     * Maps a value to its bucket. Values below {@value #SUB_BUCKETS} get a bucket each; above
+     * that, the highest set bit picks the power of two and the next bits pick the sub-bucket.
+     * @param value A non-negative value.
+     * @return The index of the bucket counting the value.
+     */
+    private static int indexOf(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1));
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+    /**
+     * Returns the largest value that maps to a bucket.
+     * @param index The index of the bucket.
+     * @return The largest value counted by the bucket.
+     */
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long subBucket = index - (long) shift * HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,60 @@
+package MVC;
+
+/**
+ * Packs layout strings, as produced by {@link GameModel#printGridsString()}, into two bits
+ * per cell. Each cell is one of the {@link GameModel.CellState} letters and is stored as the
+ * ordinal of that state, four cells to a byte.
+ */
+public final class LayoutCodec {
+    private static final char[] STATES = {'E', 'B', 'H', 'M'};
+
+    private LayoutCodec() {
+    }
+    /**
+     * Returns the two-bit code of a cell letter.
+     * @param cell A {@link GameModel.CellState} letter.
+     * @return The ordinal of the cell state.
+     */
+    public static int codeOf(char cell) {
+        switch (cell) {
+            case 'E': return 0;
+            case 'B': return 1;
+            case 'H': return 2;
+            case 'M': return 3;
+            default: throw new IllegalArgumentException("Not a cell state: " + cell);
+        }
+    }
+    /**
+     * Returns the cell letter of a two-bit code.
+     * @param code The ordinal of a cell state.
+     * @return The {@link GameModel.CellState} letter.
+     */
+    public static char stateOf(int code) {
+        return STATES[code & 3];
+    }
+    /**
+     * Packs a layout into two bits per cell.
+     * @param layout The layout string.
+     * @return The packed cells; the cell count is not stored.
+     */
+    public static byte[] pack(String layout) {
+        byte[] packed = new byte[(layout.length() + 3) / 4];
+        for (int i = 0; i < layout.length(); i++) {
+            packed[i >> 2] |= codeOf(layout.charAt(i)) << ((i & 3) << 1);
+        }
+        return packed;
+    }
+    /**
+     * Unpacks a layout packed by {@link #pack(String)}.
+     * @param packed The packed cells.
+     * @param cells The number of cells in the layout.
+     * @return The layout string.
+     */
+    public static String unpack(byte[] packed, int cells) {
+        char[] layout = new char[cells];
+        for (int i = 0; i < cells; i++) {
+            layout[i] = stateOf(packed[i >> 2] >> ((i & 3) << 1));
+        }
+        return new String(layout);
+    }
+}
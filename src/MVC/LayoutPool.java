@@ -0,0 +1,148 @@
+package MVC;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of layouts generated ahead of time for each board dimension, so a client asking for a
+ * game configuration when none is queued gets one immediately instead of waiting.
+ * <p>
+ * Layouts are generated by a background thread with {@link GameModel}'s placement rules. A
+ * dimension's pool is filled the first time it is asked for, and refilled to capacity whenever
+ * taking a layout leaves it below the low watermark.
+ */
+public class LayoutPool {
+    private final int capacity;
+    private final int lowWatermark;
+    private final Map<Integer, BlockingQueue<String>> pools = new ConcurrentHashMap<>();
+    private final Set<Integer> refilling = ConcurrentHashMap.newKeySet();
+    private final LongAdder servedCount = new LongAdder();
+    private final LongAdder generatedCount = new LongAdder();
+    private final ExecutorService generator;
+
+    /**
+     * Constructs a new, empty layout pool.
+     * @param capacity The number of layouts kept ready for each dimension.
+     * @param lowWatermark The number of layouts below which a dimension's pool is refilled.
+     */
+    public LayoutPool(int capacity, int lowWatermark) {
+        this.capacity = capacity;
+        this.lowWatermark = lowWatermark;
+        this.generator = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "LayoutPool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);  // Request handling comes first
+            return thread;
+        });
+    }
+    /**
+     * Starts filling the pool of a dimension ahead of the first request for it.
+     * @param dimension The board dimension, as sent by clients.
+     */
+    public void prefill(int dimension) {
+        if (isPooled(dimension)) {
+            refill(dimension);
+        }
+    }
+    /**
+     * Takes a pre-generated layout without waiting.
+     * @param dimension The board dimension, as sent by clients.
+     * @return A layout, or null if the dimension is not pooled or its pool is still empty.
+     */
+    public String poll(int dimension) {
+        if (!isPooled(dimension)) {
+            return null;
+        }
+        BlockingQueue<String> pool = pool(dimension);
+        String layout = pool.poll();
+        if (pool.size() < lowWatermark) {
+            refill(dimension);
+        }
+        if (layout != null) {
+            servedCount.increment();
+        }
+        return layout;
+    }
+    /**
+     * Returns the number of layouts ready in all pools.
+     * @return The number of pooled layouts.
+     */
+    public long getSize() {
+        long total = 0;
+        for (BlockingQueue<String> pool : pools.values()) {
+            total += pool.size();
+        }
+        return total;
+    }
+    /**
+     * Returns the number of layouts served from the pools.
+     * @return The number of served layouts.
+     */
+    public long getServedCount() {
+        return servedCount.sum();
+    }
+    /**
+     * Returns the number of layouts generated for the pools.
+     * @return The number of generated layouts.
+     */
+    public long getGeneratedCount() {
+        return generatedCount.sum();
+    }
+    /**
+     * Stops generating layouts.
+     */
+    public void stop() {
+        generator.shutdownNow();
+    }
+    /**
+     * Checks whether layouts of a dimension are pooled. Dimensions outside the range the game
+     * offers are not, so a client cannot make the server generate arbitrarily large boards.
+     * @param dimension The board dimension, as sent by clients.
+     * @return True if the dimension is pooled.
+     */
+    private boolean isPooled(int dimension) {
+        return dimension >= 1 && dimension <= Config.LAYOUT_POOL_MAX_DIMENSION;
+    }
+    /**
+     * Returns the pool of a dimension, creating it on first use.
+     * @param dimension The board dimension, as sent by clients.
+     * @return The pool.
+     */
+    private BlockingQueue<String> pool(int dimension) {
+        return pools.computeIfAbsent(dimension, d -> new ArrayBlockingQueue<>(capacity));
+    }
+    /**
+     * Schedules a refill of a dimension's pool, unless one is already scheduled.
+     * @param dimension The board dimension, as sent by clients.
+     */
+    private void refill(int dimension) {
+        if (!refilling.add(dimension)) {
+            return;
+        }
+        try {
+            generator.execute(() -> {
+                try {
+                    BlockingQueue<String> pool = pool(dimension);
+                    // The model works on the full grid, which is twice the dimension clients send
+                    GameModel model = new GameModel();
+                    model.setDimension(dimension * 2);
+                    while (pool.remainingCapacity() > 0 && !Thread.currentThread().isInterrupted()) {
+                        pool.offer(model.generatePlayerLayout());
+                        generatedCount.increment();
+                    }
+                } finally {
+                    refilling.remove(dimension);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refilling.remove(dimension);  // Stopped
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package MVC;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stores layouts once per shape. Each layout is turned into its canonical orientation, the
+ * smallest of its 8 rotations and reflections, packed two bits per cell by {@link LayoutCodec}
+ * and interned under the hash of the packed form. Identical and mirror-image layouts then share
+ * one copy, and each is held as a small {@link Ref} naming the shared copy and the symmetry
+ * that turns it back into the layout as it was sent.
+ * <p>
+ * The hash doubles as the canonical ID, so analytics can count equivalent layouts together.
+ * Shared copies are only weakly held by the store and are reclaimed once no queue refers to them.
+ */
+public class LayoutStore {
+    private static final int SYMMETRIES = 8;
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    });
+    private final Map<Long, CanonicalReference> canonicals = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Canonical> reclaimed = new ReferenceQueue<>();
+    private final LongAdder internedCount = new LongAdder();
+    private final LongAdder sharedCount = new LongAdder();
+
+    /**
+     * Interns a layout.
+     * @param layout The layout string, as produced by {@link GameModel#printGridsString()}.
+     * @return A reference to the shared canonical copy of the layout.
+     */
+    public Ref intern(String layout) {
+        purgeReclaimed();
+        int cells = layout.length();
+        int side = (int) Math.round(Math.sqrt(cells));
+        int symmetry = 0;
+        char[] canonical = layout.toCharArray();
+        if (side * side == cells) {
+            // Pick the orientation whose cells compare smallest
+            char[] candidate = new char[cells];
+            for (int s = 1; s < SYMMETRIES; s++) {
+                for (int row = 0; row < side; row++) {
+                    for (int col = 0; col < side; col++) {
+                        candidate[row * side + col] = layout.charAt(source(s, side, row, col));
+                    }
+                }
+                if (Arrays.compare(candidate, canonical) < 0) {
+                    char[] smaller = canonical;
+                    canonical = candidate;
+                    candidate = smaller;
+                    symmetry = s;
+                }
+            }
+        } else {
+            side = 0;  // Not square; stored as sent
+        }
+        byte[] packed = LayoutCodec.pack(new String(canonical));
+        long id = hash(packed, cells);
+        internedCount.increment();
+        CanonicalReference existing = canonicals.get(id);
+        Canonical shared = existing == null ? null : existing.get();
+        if (shared != null && shared.cells == cells && Arrays.equals(shared.packed, packed)) {
+            sharedCount.increment();
+            return new Ref(shared, symmetry);
+        }
+        Canonical created = new Canonical(id, packed, cells, side);
+        CanonicalReference raced = canonicals.merge(id, new CanonicalReference(created, reclaimed),
+                (current, fresh) -> current.get() == null ? fresh : current);
+        Canonical winner = raced.get();
+        if (winner != null && winner != created && winner.cells == cells && Arrays.equals(winner.packed, packed)) {
+            sharedCount.increment();
+            return new Ref(winner, symmetry);
+        }
+        // A hash collision with a different layout is stored on its own rather than interned
+        return new Ref(created, symmetry);
+    }
+    /**
+     * Returns the number of distinct canonical layouts currently stored.
+     * @return The number of stored canonical layouts.
+     */
+    public long getUniqueCount() {
+        return canonicals.size();
+    }
+    /**
+     * Returns the number of layouts interned.
+     * @return The number of interned layouts.
+     */
+    public long getInternedCount() {
+        return internedCount.sum();
+    }
+    /**
+     * Returns the number of interned layouts that shared an existing canonical copy.
+     * @return The number of deduplicated layouts.
+     */
+    public long getSharedCount() {
+        return sharedCount.sum();
+    }
+    /**
+     * Removes the entries of canonical copies that are no longer referred to.
+     */
+    private void purgeReclaimed() {
+        CanonicalReference cleared;
+        while ((cleared = (CanonicalReference) reclaimed.poll()) != null) {
+            canonicals.remove(cleared.id, cleared);
+        }
+    }
+    /**
+     * Returns the cell a symmetry of a square board takes each cell from.
+     * @param symmetry The symmetry, 0 for the identity, 1 to 3 for the rotations and 4 to 7 for the reflections.
+     * @param side The side of the board.
+     * @param row The row of the cell in the transformed board.
+     * @param col The column of the cell in the transformed board.
+     * @return The index of the source cell in the original board.
+     */
+    private static int source(int symmetry, int side, int row, int col) {
+        int last = side - 1;
+        switch (symmetry) {
+            case 0: return row * side + col;
+            case 1: return (last - col) * side + row;
+            case 2: return (last - row) * side + (last - col);
+            case 3: return col * side + (last - row);
+            case 4: return row * side + (last - col);
+            case 5: return (last - row) * side + col;
+            case 6: return col * side + row;
+            default: return (last - col) * side + (last - row);
+        }
+    }
+    /**
+     * Hashes a packed layout into its canonical ID.
+     * @param packed The packed canonical layout.
+     * @param cells The number of cells.
+     * @return The first 64 bits of the SHA-256 of the cell count and the packed cells.
+     */
+    private static long hash(byte[] packed, int cells) {
+        MessageDigest digest = DIGEST.get();
+        digest.update(ByteBuffer.allocate(4).putInt(cells).array());
+        return ByteBuffer.wrap(digest.digest(packed)).getLong();
+    }
+
+    /**
+     * A layout as stored: the shared canonical copy and the symmetry it was canonicalized with.
+     */
+    public static final class Ref {
+        private final Canonical canonical;
+        private final int symmetry;
+
+        private Ref(Canonical canonical, int symmetry) {
+            this.canonical = canonical;
+            this.symmetry = symmetry;
+        }
+        /**
+         * Returns the ID shared by every layout with the same shape up to rotation and reflection.
+         * @return The canonical ID.
+         */
+        public long getCanonicalId() {
+            return canonical.id;
+        }
+        /**
+         * Rebuilds the layout as it was sent.
+         * @return The layout string.
+         */
+        public String layout() {
+            String stored = LayoutCodec.unpack(canonical.packed, canonical.cells);
+            if (symmetry == 0) {
+                return stored;
+            }
+            int side = canonical.side;
+            char[] layout = new char[canonical.cells];
+            for (int row = 0; row < side; row++) {
+                for (int col = 0; col < side; col++) {
+                    layout[source(symmetry, side, row, col)] = stored.charAt(row * side + col);
+                }
+            }
+            return new String(layout);
+        }
+    }
+
+    /**
+     * The shared copy of a canonical layout.
+     */
+    private static final class Canonical {
+        private final long id;
+        private final byte[] packed;
+        private final int cells;
+        private final int side;  // 0 when the layout is not square
+
+        private Canonical(long id, byte[] packed, int cells, int side) {
+            this.id = id;
+            this.packed = packed;
+            this.cells = cells;
+            this.side = side;
+        }
+    }
+
+    /**
+     * The store's weak hold on a canonical copy, remembering its ID for removal once cleared.
+     */
+    private static final class CanonicalReference extends WeakReference<Canonical> {
+        private final long id;
+
+        private CanonicalReference(Canonical canonical, ReferenceQueue<Canonical> queue) {
+            super(canonical, queue);
+            this.id = canonical.id;
+        }
+    }
+}
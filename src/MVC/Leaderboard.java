@@ -0,0 +1,46 @@
+package MVC;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The best score reported by each player through {@link Config#PROTOCOL_DATA}.
+ * Scores are kept in an immutable map that is replaced on every update, so readers such as
+ * the snapshot writer always see a consistent copy without locking out the handlers.
+ */
+public class Leaderboard {
+    private final AtomicReference<Map<String, Integer>> bestScores = new AtomicReference<>(Collections.emptyMap());
+
+    /**
+     * Records a score, keeping it only if it beats the player's best.
+     * @param playerName The name of the player.
+     * @param score The score reported by the player.
+     */
+    public void record(String playerName, int score) {
+        bestScores.updateAndGet(current -> {
+            Integer best = current.get(playerName);
+            if (best != null && best >= score) {
+                return current;
+            }
+            Map<String, Integer> updated = new HashMap<>(current);
+            updated.put(playerName, score);
+            return Collections.unmodifiableMap(updated);
+        });
+    }
+    /**
+     * Returns the best score of every player.
+     * @return An immutable map of player names to best scores.
+     */
+    public Map<String, Integer> getBestScores() {
+        return bestScores.get();
+    }
+    /**
+     * Replaces all scores, used when restoring a snapshot.
+     * @param scores The scores to restore.
+     */
+    public void restore(Map<String, Integer> scores) {
+        bestScores.set(Collections.unmodifiableMap(new HashMap<>(scores)));
+    }
+}
@@ -0,0 +1,262 @@
+package MVC;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A headless load generator for the game server. It opens many simulated clients that speak
+ * the {@link Config} protocol, each connecting, sending and receiving layouts and results at a
+ * fixed rate in a configurable mix, and finally ending its session. When the run is over it
+ * reports throughput and latency percentiles per message type.
+ * <p>
+ * Usage: {@code java -cp A22.jar MVC.LoadGenerator [--host localhost] [--port 12345]
+ * [--clients 1000] [--seconds 30] [--rate 2] [--mix 4:4:1] [--dimension 5] [--games 1] [--embedded]
+ * [--max-sessions 2048]}
+ * <p>
+ * The mix gives the relative weights of P1 (send game), P2 (receive game) and P3 (send data).
+ * P2 requests carry the dimension, so the server answers them from its layout pool when the
+ * game has nothing queued and P2 never blocks.
+ * With {@code --games} each client plays that many games over its one connection, addressing
+ * each request to a randomly chosen game, the way a bot or tournament runner would.
+ * With {@code --embedded} a server is started in the same JVM on the given port.
+ */
+public class LoadGenerator {
+    private final String host;
+    private final int port;
+    private final int clients;
+    private final int seconds;
+    private final double rate;
+    private final int[] mix;
+    private final int dimension;
+    private final int games;
+    private final Map<String, LatencyHistogram> latencies = new TreeMap<>();
+    private final LatencyHistogram connectLatency = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Constructs a new load generator.
+     * @param host The server's hostname or IP address.
+     * @param port The port on which the server is listening.
+     * @param clients The number of simulated clients.
+     * @param seconds How long each client keeps sending requests.
+     * @param rate The number of requests each client sends per second.
+     * @param mix The relative weights of P1, P2 and P3 requests.
+     * @param dimension The board dimension sent with P1 requests.
+     * @param games The number of games each client plays over its connection.
+     */
+    public LoadGenerator(String host, int port, int clients, int seconds, double rate, int[] mix, int dimension, int games) {
+        this.host = host;
+        this.port = port;
+        this.clients = clients;
+        this.seconds = seconds;
+        this.rate = rate;
+        this.mix = mix;
+        this.dimension = dimension;
+        this.games = games;
+        for (String type : new String[] {Config.PROTOCOL_END, Config.PROTOCOL_SENDGAME, Config.PROTOCOL_RECVGAME, Config.PROTOCOL_DATA}) {
+            latencies.put(type, new LatencyHistogram());
+        }
+    }
+    /**
+     * Runs every simulated client to completion and prints the report.
+     * @param report The stream the report is printed to.
+     * @throws InterruptedException if interrupted while waiting for the clients.
+     */
+    public void run(PrintStream report) throws InterruptedException {
+        report.println("Running " + clients + " clients against " + host + ":" + port + " for " + seconds + "s at "
+                + rate + " req/s each, mix P1:P2:P3 = " + mix[0] + ":" + mix[1] + ":" + mix[2] + ", " + games + " games per client");
+        CountDownLatch done = new CountDownLatch(clients);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long started = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            final long seed = i;
+            // Small stacks keep thousands of client threads affordable
+            Thread thread = new Thread(null, () -> {
+                try {
+                    simulateClient(new Random(seed), deadline);
+                } finally {
+                    done.countDown();
+                }
+            }, "LoadClient-" + i, 256 * 1024);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        long elapsedNanos = System.nanoTime() - started;
+        printReport(report, elapsedNanos);
+    }
+    /**
+     * Runs one simulated client: connects, sends requests for its games at the configured rate
+     * until the deadline, then ends its games and the session.
+     * @param random The random source choosing requests for this client.
+     * @param deadline The System.nanoTime value after which no new requests are sent.
+     */
+    private void simulateClient(Random random, long deadline) {
+        long connectStart = System.nanoTime();
+        try (Socket socket = new Socket(host, port);
+             PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())), false);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            String greeting = in.readLine();
+            if (greeting == null || Config.PROTOCOL_BUSY.equals(greeting)) {
+                rejected.increment();
+                return;
+            }
+            connectLatency.record(System.nanoTime() - connectStart);
+            int clientId = Integer.parseInt(greeting.split(Config.PROTOCOL_SEPARATOR)[0]);  // The greeting is clientId#token
+            String layout = randomLayout(random);
+            long intervalNanos = (long) (1_000_000_000L / rate);
+            long next = System.nanoTime() + (long) (random.nextDouble() * intervalNanos);  // Spread the first requests
+            int totalWeight = mix[0] + mix[1] + mix[2];
+            while (next < deadline) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                next += intervalNanos;
+                int game = random.nextInt(games);
+                String address = Session.address(clientId, game);
+                int pick = random.nextInt(totalWeight);
+                String type;
+                String message;
+                if (pick >= mix[0] && pick < mix[0] + mix[1]) {
+                    type = Config.PROTOCOL_RECVGAME;
+                    message = address + Config.PROTOCOL_SEPARATOR + type + Config.PROTOCOL_SEPARATOR + dimension;
+                } else if (pick >= mix[0] + mix[1]) {
+                    type = Config.PROTOCOL_DATA;
+                    message = address + Config.PROTOCOL_SEPARATOR + type + Config.PROTOCOL_SEPARATOR + "load" + clientId
+                            + Config.PROTOCOL_SEPARATOR + random.nextInt(100);
+                } else {
+                    type = Config.PROTOCOL_SENDGAME;
+                    message = address + Config.PROTOCOL_SEPARATOR + type + Config.PROTOCOL_SEPARATOR + dimension
+                            + Config.FIELD_SEPARATOR + layout;
+                }
+                String response = request(out, in, type, message);
+                if (Config.PROTOCOL_THROTTLED.equals(response)) {
+                    throttled.increment();
+                }
+            }
+            for (int game = 1; game < games; game++) {
+                request(out, in, Config.PROTOCOL_END, Session.address(clientId, game) + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_END);
+            }
+            request(out, in, Config.PROTOCOL_END, clientId + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_END);
+        } catch (IOException | NumberFormatException e) {
+            failed.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    /**
+     * Sends one request and records the time until its response arrives.
+     * @param out The writer of the client connection.
+     * @param in The reader of the client connection.
+     * @param type The protocol message type of the request.
+     * @param message The complete request line.
+     * @return The response line.
+     * @throws IOException if the server closed the connection or a network error occurred.
+     */
+    private String request(PrintWriter out, BufferedReader in, String type, String message) throws IOException {
+        long start = System.nanoTime();
+        out.println(message);
+        out.flush();
+        String response = in.readLine();
+        if (response == null) {
+            throw new EOFException("Server closed the connection.");
+        }
+        latencies.get(type).record(System.nanoTime() - start);
+        completed.increment();
+        return response;
+    }
+    /**
+     * Builds a layout string of the size the game uses for the configured dimension.
+     * @param random The random source.
+     * @return A layout with cells in the {@link GameModel.CellState} alphabet.
+     */
+    private String randomLayout(Random random) {
+        int side = dimension * 2;
+        StringBuilder layout = new StringBuilder(side * side);
+        for (int i = 0; i < side * side; i++) {
+            layout.append(random.nextInt(4) == 0 ? GameModel.CellState.B : GameModel.CellState.E);
+        }
+        return layout.toString();
+    }
+    /**
+     * Prints throughput and latency percentiles for the finished run.
+     * @param report The stream the report is printed to.
+     * @param elapsedNanos How long the run took.
+     */
+    private void printReport(PrintStream report, long elapsedNanos) {
+        double elapsedSeconds = elapsedNanos / 1e9;
+        report.printf("Elapsed: %.2fs%n", elapsedSeconds);
+        report.printf("Requests: %d (%.1f req/s), throttled: %d, rejected clients: %d, failed clients: %d%n",
+                completed.sum(), completed.sum() / elapsedSeconds, throttled.sum(), rejected.sum(), failed.sum());
+        report.println("connect " + connectLatency.summary());
+        latencies.forEach((type, histogram) -> report.println(type + " " + histogram.summary()));
+    }
+    /**
+     * Parses the command line, optionally starts an embedded server, and runs the load.
+     * @param args The command line arguments.
+     * @throws Exception if the load cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        String host = Config.DEFAULT_ADDR;
+        int port = Config.DEFAULT_PORT;
+        int clients = 1000;
+        int seconds = 30;
+        double rate = 2;
+        int[] mix = {4, 4, 1};
+        int dimension = 5;
+        int games = 1;
+        boolean embedded = false;
+        int maxSessions = 2048;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host": host = args[++i]; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--clients": clients = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++i]); break;
+                case "--rate": rate = Double.parseDouble(args[++i]); break;
+                case "--dimension": dimension = Integer.parseInt(args[++i]); break;
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--embedded": embedded = true; break;
+                case "--max-sessions": maxSessions = Integer.parseInt(args[++i]); break;
+                case "--mix":
+                    String[] weights = args[++i].split(":");
+                    mix = new int[] {Integer.parseInt(weights[0]), Integer.parseInt(weights[1]), Integer.parseInt(weights[2])};
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+        Server server = null;
+        if (embedded) {
+            server = new Server(port, new PrintStream(OutputStream.nullOutputStream()),
+                    new AdmissionPolicy(maxSessions, maxSessions, maxSessions, maxSessions));
+            Server embeddedServer = server;
+            Thread serverThread = new Thread(() -> {
+                try {
+                    embeddedServer.start();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "EmbeddedServer");
+            serverThread.setDaemon(true);
+            serverThread.start();
+            Thread.sleep(200);  // Give the server socket time to bind
+        }
+        new LoadGenerator(host, port, clients, seconds, rate, mix, dimension, games).run(System.out);
+        if (server != null) {
+            System.out.print(server.getMetrics().render());
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package MVC;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The texts of the game in every supported language. All bundles are read once, by
+ * {@link #preload()} at startup or on first use, into immutable maps; switching the language
+ * afterwards only selects another map and tells the listeners, so windows can relabel themselves
+ * without any I/O.
+ */
+public final class Localization {
+    private static final String BUNDLE = "resources.languages.labels";
+    private static volatile Map<Language, Map<String, String>> texts;
+    private static volatile Language language = Language.ENGLISH;
+    private static final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private Localization() {
+    }
+    /**
+     * Reads the bundles of every supported language, unless they have been read already.
+     */
+    public static void preload() {
+        if (texts == null) {
+            synchronized (Localization.class) {
+                if (texts == null) {
+                    Map<Language, Map<String, String>> loaded = new EnumMap<>(Language.class);
+                    // No fallback to the platform's locale: each language gets its own bundle, or the base one
+                    ResourceBundle.Control control = ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES);
+                    for (Language supported : Language.values()) {
+                        ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE, supported.getLocale(), control);
+                        Map<String, String> bundleTexts = new HashMap<>();
+                        for (String key : bundle.keySet()) {
+                            bundleTexts.put(key, bundle.getString(key));
+                        }
+                        loaded.put(supported, Map.copyOf(bundleTexts));
+                    }
+                    texts = Collections.unmodifiableMap(loaded);
+                }
+            }
+        }
+    }
+    /**
+     * Returns the current language.
+     * @return The current language.
+     */
+    public static Language getLanguage() {
+        return language;
+    }
+    /**
+     * Switches the language and tells the listeners. Must be called on the event dispatch thread.
+     * @param selected The language to switch to.
+     */
+    public static void setLanguage(Language selected) {
+        preload();
+        if (selected == language) {
+            return;
+        }
+        language = selected;
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+    /**
+     * Returns a text in the current language.
+     * @param key The key of the text.
+     * @return The text, the English text if the current language lacks it, or the key if neither has it.
+     */
+    public static String text(String key) {
+        preload();
+        String text = texts.get(language).get(key);
+        if (text == null) {
+            text = texts.get(Language.ENGLISH).getOrDefault(key, key);
+        }
+        return text;
+    }
+    /**
+     * Adds a listener run on the event dispatch thread whenever the language changes.
+     * @param listener The listener to add.
+     */
+    public static void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+    /**
+     * Removes a listener.
+     * @param listener The listener to remove.
+     */
+    public static void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * The supported languages, each named in its own language.
+     */
+    public enum Language {
+        ENGLISH("English", Locale.ENGLISH),
+        SPANISH("Espa\u00f1ol", new Locale("es")),
+        FRENCH("Fran\u00e7ais", Locale.FRENCH);
+
+        private final String displayName;
+        private final Locale locale;
+
+        Language(String displayName, Locale locale) {
+            this.displayName = displayName;
+            this.locale = locale;
+        }
+        /**
+         * Returns the locale of the language's bundle.
+         * @return The locale.
+         */
+        public Locale getLocale() {
+            return locale;
+        }
+        /**
+         * Returns the name of the language, as shown in the language selector.
+         * @return The name of the language in that language.
+         */
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package MVC;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the server metrics as plain text on a separate loopback port. Every connection
+ * receives the current metrics and is closed, so {@code nc localhost <port>} or
+ * {@code curl http://localhost:<port>/} is enough to read them.
+ */
+public class MetricsEndpoint {
+    private static final int HTTP_PROBE_MILLIS = 200;
+    private final int port;
+    private final ServerMetrics metrics;
+    private final PrintStream outStream;
+    private ServerSocket serverSocket;
+
+    /**
+     * Constructs a new metrics endpoint.
+     * @param port The loopback port to serve the metrics on.
+     * @param metrics The metrics to serve.
+     * @param outStream The output stream for server messages.
+     */
+    public MetricsEndpoint(int port, ServerMetrics metrics, PrintStream outStream) {
+        this.port = port;
+        this.metrics = metrics;
+        this.outStream = outStream;
+    }
+    /**
+     * Binds the port and starts serving the metrics from a daemon thread.
+     * @throws IOException if the port cannot be bound.
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 16, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(this::serve, "MetricsEndpoint-" + port);
+        thread.setDaemon(true);
+        thread.start();
+        outStream.println("Serving metrics on localhost:" + port);
+    }
+    /**
+     * Stops serving the metrics.
+     */
+    public void stop() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    /**
+     * Answers connections until the endpoint is stopped.
+     */
+    private void serve() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept();
+                 OutputStream out = socket.getOutputStream()) {
+                byte[] body = metrics.render().getBytes(StandardCharsets.UTF_8);
+                // Answer as HTTP when the request looks like one, so browsers and curl work too
+                if (isHttpRequest(socket)) {
+                    out.write(("HTTP/1.0 200 OK\r\nContent-Type: text/plain\r\nContent-Length: " + body.length + "\r\n\r\n")
+                            .getBytes(StandardCharsets.US_ASCII));
+                }
+                out.write(body);
+            } catch (SocketException e) {
+                // Closed by stop()
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    /**
+     * Waits briefly for the client to send a request line and checks whether it is an HTTP GET.
+     * @param socket The accepted connection.
+     * @return True if the client sent an HTTP GET request.
+     * @throws IOException if there's an error in network communication.
+     */
+    private boolean isHttpRequest(Socket socket) throws IOException {
+        socket.setSoTimeout(HTTP_PROBE_MILLIS);
+        try {
+            boolean isGet = socket.getInputStream().read() == 'G';
+            // Drain the rest of the request so closing the socket does not reset the connection
+            socket.getInputStream().skip(socket.getInputStream().available());
+            return isGet;
+        } catch (SocketTimeoutException e) {
+            return false;
+        }
+    }
+}
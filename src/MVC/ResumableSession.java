@@ -0,0 +1,179 @@
+package MVC;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * What a connection node remembers about a client so that the client can reconnect after a
+ * dropped connection and carry on with the same client ID and session. The client proves it is
+ * the same client with the token it was given on connect. Only a SHA-256 hash of the token is kept,
+ * in memory and in snapshots, so a leaked snapshot does not let anyone take over a session.
+ * <p>
+ * The node also counts the requests it has processed for the client and keeps the last response,
+ * so a client whose connection dropped while a request was in flight can tell whether the request
+ * was processed and get its response without sending it twice.
+ */
+public class ResumableSession {
+    private static final SecureRandom TOKENS = new SecureRandom();
+    private final int clientId;
+    private final byte[] tokenHash;
+    private long processedCount;
+    private String lastResponse;
+    private Server.ClientHandler attachedTo;  // The handler serving the client, or null while detached
+    private IdleTimer.Entry detachedEntry;  // Reaps the session if the client does not come back
+    private boolean reaped = false;
+
+    /**
+     * Constructs the resume state of a newly connected client, attached to its first handler.
+     * @param clientId The ID assigned to the client.
+     * @param token The token sent to the client, from {@link #newToken()}; only its hash is kept.
+     * @param handler The handler serving the client.
+     */
+    public ResumableSession(int clientId, String token, Server.ClientHandler handler) {
+        this.clientId = clientId;
+        this.tokenHash = hashToken(token);
+        this.attachedTo = handler;
+    }
+    /**
+     * Constructs the resume state of a client from a snapshot taken before the server restarted.
+     * The session starts detached, waiting for its client to reconnect; see {@link #detach}.
+     * @param saved The resume state saved in the snapshot.
+     */
+    public ResumableSession(ServerSnapshot.Resume saved) {
+        this.clientId = saved.getClientId();
+        this.tokenHash = saved.getTokenHash();
+        this.processedCount = saved.getProcessedCount();
+        this.lastResponse = saved.getLastResponse();
+    }
+    /**
+     * Returns the ID of the client.
+     * @return The client ID.
+     */
+    public int getClientId() {
+        return clientId;
+    }
+    /**
+     * Generates the token a new client presents to resume its session.
+     * @return A random token.
+     */
+    public static String newToken() {
+        return Long.toHexString(TOKENS.nextLong());
+    }
+    /**
+     * Hashes a session token the way it is kept and compared.
+     * @param token The token.
+     * @return The SHA-256 hash of the token's UTF-8 bytes.
+     */
+    public static byte[] hashToken(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);  // Every Java platform has it
+        }
+    }
+    /**
+     * Records a request processed for the client, unless the client has resumed the session on
+     * another connection while the request was processed. The response is then never read, and
+     * counting it would make the client take a request it abandoned for one it has sent since.
+     * @param handler The handler that processed the request.
+     * @param response The response sent back, or null when the request had no response.
+     * @return True if the request was recorded, false if another handler serves the session.
+     */
+    public synchronized boolean recordProcessed(Server.ClientHandler handler, String response) {
+        if (attachedTo != handler) {
+            return false;
+        }
+        processedCount++;
+        lastResponse = response;
+        return true;
+    }
+    /**
+     * Returns the number of requests processed for the client.
+     * @return The processed count.
+     */
+    public synchronized long getProcessedCount() {
+        return processedCount;
+    }
+    /**
+     * Returns the response to the last processed request.
+     * @return The last response, or null.
+     */
+    public synchronized String getLastResponse() {
+        return lastResponse;
+    }
+    /**
+     * Copies the state the client needs to resume the session after a server restart.
+     * @return The copy, or null if the session has ended.
+     */
+    public synchronized ServerSnapshot.Resume capture() {
+        return reaped ? null : new ServerSnapshot.Resume(clientId, tokenHash, processedCount, lastResponse);
+    }
+    /**
+     * Detaches the session from a handler whose connection has closed and starts the grace
+     * period. Nothing happens when another handler has already taken the session over.
+     * @param handler The handler whose connection closed, or null for a session restored from a snapshot.
+     * @param graceTimer The timer that reaps the session if the client does not come back in time.
+     * @param onReaped Discards the session once the grace period is over.
+     * @return True if the session was detached, false if another handler serves it.
+     */
+    public synchronized boolean detach(Server.ClientHandler handler, IdleTimer graceTimer, Runnable onReaped) {
+        if (attachedTo != handler || reaped) {
+            return false;
+        }
+        attachedTo = null;
+        detachedEntry = graceTimer.register(() -> {
+            if (markReaped()) {
+                onReaped.run();
+            }
+        });
+        return true;
+    }
+    /**
+     * Attaches the session to the handler of a reconnected client. A previous handler that has
+     * not noticed its connection dropping yet is told to hand the session over.
+     * @param token The token the client presented.
+     * @param handler The handler of the new connection.
+     * @return True if the session was resumed, false if the token is wrong or the session was already reaped.
+     */
+    public boolean attach(String token, Server.ClientHandler handler) {
+        Server.ClientHandler previous;
+        synchronized (this) {
+            if (reaped || !MessageDigest.isEqual(tokenHash, hashToken(token))) {
+                return false;
+            }
+            previous = attachedTo;
+            attachedTo = handler;
+            if (detachedEntry != null) {
+                detachedEntry.cancel();
+                detachedEntry = null;
+            }
+        }
+        if (previous != null && previous != handler) {
+            previous.handOver();
+        }
+        return true;
+    }
+    /**
+     * Ends the session for good, so it can no longer be resumed.
+     */
+    public synchronized void end() {
+        reaped = true;
+        if (detachedEntry != null) {
+            detachedEntry.cancel();
+            detachedEntry = null;
+        }
+    }
+    /**
+     * Marks a detached session as reaped, unless its client came back in the meantime.
+     * @return True if the session was reaped.
+     */
+    private synchronized boolean markReaped() {
+        if (attachedTo != null || reaped) {
+            return false;
+        }
+        reaped = true;
+        return true;
+    }
+}
@@ -4,26 +4,102 @@ import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 public class Server {
+    private static final Set<String> CLIENT_PROTOCOLS = Set.of(Config.PROTOCOL_END, Config.PROTOCOL_SENDGAME, Config.PROTOCOL_RECVGAME,
+            Config.PROTOCOL_DATA, Config.PROTOCOL_HEARTBEAT, Config.PROTOCOL_SENDDELTA, Config.PROTOCOL_SPECTATE, Config.PROTOCOL_RESUME);
     private final int port;
     private ServerSocket serverSocket;
     private final AtomicInteger clientCount = new AtomicInteger(0);  // For assigning unique IDs to each client
     private final AtomicInteger activeClientCount = new AtomicInteger(0);  // For tracking active clients
+    private final AtomicLong acceptedCount = new AtomicLong(0);  // Connections handed to the handler pool
+    private final AtomicLong rejectedCount = new AtomicLong(0);  // Connections turned away with PROTOCOL_BUSY
+    private final AtomicInteger queuedCount = new AtomicInteger(0);  // Admitted handlers waiting for a worker
     private final PrintStream outStream;
+    private final AdmissionPolicy policy;
+    private final Semaphore sessionPermits;
+    private final IdleTimer idleTimer;
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final Set<ClientHandler> activeHandlers = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();  // Sessions owned by this node
+    private final Map<Integer, ResumableSession> resumableSessions = new ConcurrentHashMap<>();  // Clients connected to this node
+    private final IdleTimer resumeTimer;
+    private final AtomicLong resumedCount = new AtomicLong(0);
+    private final AtomicLong movedCount = new AtomicLong(0);  // Sessions handed to another cluster node
+    private ClusterNode cluster;  // Null when the server runs on its own
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final SpectatorHub spectators = new SpectatorHub(metrics::addBytesOut);
+    private final LayoutStore layoutStore = new LayoutStore();
+    private final LayoutPool layoutPool = new LayoutPool(Config.LAYOUT_POOL_CAPACITY, Config.LAYOUT_POOL_LOW_WATERMARK);
+    private Path snapshotFile;  // Null when state is not saved across restarts
+    private ScheduledExecutorService snapshotScheduler;
+    private int metricsPort = Config.DEFAULT_METRICS_PORT;
+    private MetricsEndpoint metricsEndpoint;
+    private ThreadPoolExecutor handlerPool;
     private volatile boolean isRunning = true;
 
     /**
-     * Constructs a new game server with a specified port and output stream.
+     * Constructs a new game server with a specified port and output stream, using the default admission policy.
      * @param port The port on which the server will listen for client connections.
      * @param outStream The output stream for server messages.
      */
     public Server(int port, PrintStream outStream) {
+        this(port, outStream, AdmissionPolicy.defaults());
+    }
+    /**
+     * Constructs a new game server with a specified port, output stream and admission policy.
+     * @param port The port on which the server will listen for client connections.
+     * @param outStream The output stream for server messages.
+     * @param policy The limits applied to incoming client connections.
+     */
+    public Server(int port, PrintStream outStream, AdmissionPolicy policy) {
         this.port = port;
         this.outStream = outStream;
+        this.policy = policy;
+        this.sessionPermits = new Semaphore(policy.getMaxSessions());
+        this.idleTimer = new IdleTimer(Config.DEFAULT_IDLE_TIMEOUT_SECONDS, 1, TimeUnit.SECONDS);
+        this.resumeTimer = new IdleTimer(Config.DEFAULT_RESUME_GRACE_SECONDS, 1, TimeUnit.SECONDS);
+        metrics.registerGauge("connections_active", activeClientCount::get);
+        metrics.registerGauge("connections_accepted_total", acceptedCount::get);
+        metrics.registerGauge("connections_rejected_total", rejectedCount::get);
+        metrics.registerGauge("connections_queued", queuedCount::get);
+        metrics.registerGauge("sessions_available", sessionPermits::availablePermits);
+        metrics.registerGauge("game_configurations_queued", this::getQueuedGameConfigurations);
+        metrics.registerGauge("games_active", this::getActiveGames);
+        metrics.registerGauge("sessions_resumable", resumableSessions::size);
+        metrics.registerGauge("sessions_resumed_total", resumedCount::get);
+        metrics.registerGauge("sessions_moved_total", movedCount::get);
+        metrics.registerGauge("layouts_interned_total", layoutStore::getInternedCount);
+        metrics.registerGauge("layouts_shared_total", layoutStore::getSharedCount);
+        metrics.registerGauge("layouts_unique", layoutStore::getUniqueCount);
+        metrics.registerGauge("layout_pool_size", layoutPool::getSize);
+        metrics.registerGauge("layout_pool_served_total", layoutPool::getServedCount);
+        metrics.registerGauge("layout_pool_generated_total", layoutPool::getGeneratedCount);
+        metrics.registerGauge("spectators", spectators::getSubscriberCount);
+        metrics.registerGauge("spectators_dropped_total", spectators::getDroppedCount);
     }
     /**
      * Starts the server to accept client connections.
@@ -31,12 +107,24 @@ public class Server {
      */
     public void start() throws IOException {
         outStream.println("Starting the server...");
-        serverSocket = new ServerSocket(port);
+        restoreSnapshot();
+        serverSocket = new ServerSocket(port, policy.getAcceptBacklog());
+        handlerPool = new ThreadPoolExecutor(policy.getWorkerThreads(), policy.getWorkerThreads(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(policy.getQueueCapacity()));
+        handlerPool.allowCoreThreadTimeOut(true);
+        idleTimer.start();
+        resumeTimer.start();
+        layoutPool.prefill(Config.DEFAULT_DIMENSION);
+        spectators.start();
+        startMetricsEndpoint();
+        startSnapshots();
+        if (cluster != null) {
+            cluster.start();
+        }
         try {
             while (isRunning) {
                 outStream.println("Waiting for client to connect...");
-                new ClientHandler(serverSocket.accept(), clientCount.incrementAndGet()).start();
-                clientConnected();
+                admit(serverSocket.accept());
             }
         } catch (SocketException e) {
             outStream.println("Server has been stopped.");
@@ -50,6 +138,533 @@ public class Server {
         outStream.println("Stopping the server...");
         isRunning = false;
         serverSocket.close();
+        if (handlerPool != null) {
+            handlerPool.shutdown();
+        }
+        idleTimer.stop();
+        resumeTimer.stop();
+        layoutPool.stop();
+        spectators.stop();
+        if (metricsEndpoint != null) {
+            metricsEndpoint.stop();
+        }
+        if (cluster != null) {
+            cluster.leave();
+            cluster.stop();
+        }
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+            saveSnapshot();
+        }
+    }
+    /**
+     * Sets the file the server state is saved to every {@link Config#SNAPSHOT_INTERVAL_SECONDS}
+     * and restored from on start. Must be called before {@link #start()}.
+     * @param snapshotFile The snapshot file.
+     */
+    public void setSnapshotFile(Path snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+    /**
+     * Returns the best score reported by each player.
+     * @return The leaderboard.
+     */
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+    /**
+     * Restores the state saved in the snapshot file, if there is one. Clients that were connected
+     * get {@link Config#DEFAULT_RESUME_GRACE_SECONDS} to reconnect and resume their sessions with the
+     * token they already hold, as after a dropped connection; sessions no client can resume are not restored.
+     * In a cluster every saved session is restored, and those the ring puts on another node move there once the node has started.
+     */
+    private void restoreSnapshot() {
+        if (snapshotFile == null || !Files.exists(snapshotFile)) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            ServerSnapshot snapshot = ServerSnapshot.readFrom(snapshotFile);
+            clientCount.accumulateAndGet(snapshot.getClientCount(), Math::max);
+            for (ServerSnapshot.Resume saved : snapshot.getResumes()) {
+                ResumableSession restored = new ResumableSession(saved);
+                resumableSessions.put(saved.getClientId(), restored);
+                restored.detach(null, resumeTimer, () -> endDetachedSession(restored));
+            }
+            int layouts = 0;
+            int restoredSessions = 0;
+            for (Map.Entry<Integer, Map<Integer, List<String>>> saved : snapshot.getSessions().entrySet()) {
+                if (cluster == null && !resumableSessions.containsKey(saved.getKey())) {
+                    // In a cluster the client may resume through another node, which then ends the session if it does not
+                    continue;
+                }
+                restoredSessions++;
+                adoptSession(saved.getKey(), saved.getValue());
+                for (List<String> game : saved.getValue().values()) {
+                    layouts += game.size();
+                }
+            }
+            leaderboard.restore(snapshot.getLeaderboard());
+            outStream.println("Restored " + restoredSessions + " sessions, " + layouts + " game configurations, " + snapshot.getResumes().size()
+                    + " resumable clients and " + snapshot.getLeaderboard().size() + " scores in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms.");
+        } catch (IOException e) {
+            outStream.println("Could not restore the server state: " + e.getMessage());
+        }
+    }
+    /**
+     * Starts saving the server state in the background.
+     */
+    private void startSnapshots() {
+        if (snapshotFile == null) {
+            return;
+        }
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ServerSnapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(this::saveSnapshot,
+                Config.SNAPSHOT_INTERVAL_SECONDS, Config.SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+    /**
+     * Captures the server state and writes it to the snapshot file. Each session queue and resume
+     * state is copied on its own and the leaderboard is already immutable, so handlers keep running
+     * during the capture and the file is written from the copy.
+     */
+    private void saveSnapshot() {
+        Map<Integer, Map<Integer, List<String>>> capturedSessions = new HashMap<>();
+        for (Session session : sessions.values()) {
+            capturedSessions.put(session.getClientId(), captureGames(session));
+        }
+        List<ServerSnapshot.Resume> capturedResumes = new ArrayList<>();
+        for (ResumableSession resume : resumableSessions.values()) {
+            ServerSnapshot.Resume captured = resume.capture();
+            if (captured != null) {
+                capturedResumes.add(captured);
+            }
+        }
+        ServerSnapshot snapshot = new ServerSnapshot(clientCount.get(), capturedSessions, leaderboard.getBestScores(), capturedResumes);
+        try {
+            snapshot.writeTo(snapshotFile);
+        } catch (IOException e) {
+            outStream.println("Could not save the server state: " + e.getMessage());
+        }
+    }
+    /**
+     * Copies the queued game configurations of each game of a session.
+     * @param session The session.
+     * @return The layouts of each game, by game ID, oldest first.
+     */
+    private static Map<Integer, List<String>> captureGames(Session session) {
+        Map<Integer, List<String>> capturedGames = new HashMap<>();
+        for (Session.Game game : session.getGames()) {
+            List<String> layouts = new ArrayList<>();
+            for (LayoutStore.Ref layout : game.getGameConfigurations()) {
+                layouts.add(layout.layout());
+            }
+            capturedGames.put(game.getGameId(), layouts);
+        }
+        return capturedGames;
+    }
+    /**
+     * Moves every session held here that the cluster ring puts on another node to that node, after
+     * the cluster members changed. A session that cannot be moved stays here until the next change;
+     * once one move to a node fails, the other sessions for that node are not tried.
+     */
+    void handOverSessions() {
+        Set<Integer> unreachable = new HashSet<>();
+        for (Session session : sessions.values()) {
+            int clientId = session.getClientId();
+            int owner = cluster.ownerOf(clientId);
+            if (cluster.isLocal(clientId) || unreachable.contains(owner) || !sessions.remove(clientId, session)) {
+                continue;
+            }
+            // Taken out first, so a P2 waiting on it gives up and requests go to the new owner
+            Map<Integer, List<String>> games = captureGames(session);
+            try {
+                cluster.moveSession(clientId, games);
+                movedCount.incrementAndGet();
+            } catch (IOException e) {
+                outStream.println("Could not move the session of client " + clientId + " to cluster node " + owner + ": " + e.getMessage());
+                unreachable.add(owner);
+                adoptSession(clientId, games);
+            } catch (InterruptedException e) {
+                adoptSession(clientId, games);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    /**
+     * Takes in a session moved here from another node, or restored from a snapshot. Its layouts
+     * go ahead of any queued here since, which the client sent after them.
+     * @param clientId The client ID of the session.
+     * @param games The queued layouts of each game of the session, by game ID, oldest first.
+     */
+    void adoptSession(int clientId, Map<Integer, List<String>> games) {
+        Session session = getSession(clientId);
+        for (Map.Entry<Integer, List<String>> game : games.entrySet()) {
+            BlockingDeque<LayoutStore.Ref> queue = session.getGame(game.getKey()).getGameConfigurations();
+            List<String> layouts = game.getValue();
+            for (int i = layouts.size() - 1; i >= 0; i--) {
+                queue.offerFirst(layoutStore.intern(layouts.get(i)));
+            }
+        }
+    }
+    /**
+     * Makes this server a node of a cluster. Must be called before {@link #start()}.
+     * @param cluster The cluster node sharing the session space with the other servers.
+     */
+    public void setCluster(ClusterNode cluster) {
+        this.cluster = cluster;
+        metrics.registerGauge("cluster_members", cluster::getNodeCount);
+    }
+    /**
+     * Sets the loopback port the plain-text metrics are served on. Must be called before {@link #start()}.
+     * @param metricsPort The metrics port, or 0 to not serve metrics.
+     */
+    public void setMetricsPort(int metricsPort) {
+        this.metricsPort = metricsPort;
+    }
+    /**
+     * Returns the metrics registry of this server.
+     * @return The server metrics.
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+    /**
+     * Starts serving the metrics on the metrics port. The game server keeps running if the port is unavailable.
+     */
+    private void startMetricsEndpoint() {
+        if (metricsPort <= 0) {
+            return;
+        }
+        metricsEndpoint = new MetricsEndpoint(metricsPort, metrics, outStream);
+        try {
+            metricsEndpoint.start();
+        } catch (IOException e) {
+            outStream.println("Could not serve metrics on port " + metricsPort + ": " + e.getMessage());
+            metricsEndpoint = null;
+        }
+    }
+    /**
+     * Returns the number of game configurations waiting in the sessions owned by this node.
+     * @return The number of queued game configurations.
+     */
+    private long getQueuedGameConfigurations() {
+        long total = 0;
+        for (Session session : sessions.values()) {
+            for (Session.Game game : session.getGames()) {
+                total += game.getGameConfigurations().size();
+            }
+        }
+        return total;
+    }
+    /**
+     * Returns the number of games held by the sessions owned by this node.
+     * @return The number of games.
+     */
+    private long getActiveGames() {
+        long total = 0;
+        for (Session session : sessions.values()) {
+            total += session.getGames().size();
+        }
+        return total;
+    }
+    /**
+     * Assigns the ID of a new client. In a cluster every node draws from its own residue class
+     * modulo {@link Config#CLUSTER_MAX_NODES}, so IDs are unique across the cluster whatever the
+     * members, and skips the IDs the ring puts on other nodes, so the session of a client connected
+     * here is handled here without forwarding until the members change.
+     * @return The new client ID.
+     */
+    private int nextClientId() {
+        if (cluster == null) {
+            return clientCount.incrementAndGet();
+        }
+        int clientId;
+        do {
+            clientId = clientCount.incrementAndGet() * Config.CLUSTER_MAX_NODES + cluster.getNodeId();
+        } while (!cluster.isLocal(clientId) && cluster.isMember());  // Once this node has left, it owns no ID
+        return clientId;
+    }
+    /**
+     * Handles a request for a session owned by this node and returns the response to send back.
+     * Requests for this node's sessions that arrive at other cluster nodes are handled here too.
+     * A P0 addressed to a game other than 0 ends only that game; otherwise it ends the whole session.
+     * A P2 with nothing queued or pooled waits for a layout only on a connection carrying a single
+     * game; on one carrying several it is answered with PROTOCOL_UNAVAILABLE straight away.
+     * @param request The request line, starting with the client ID or clientId:gameId.
+     * @param abandoned Tells whether the client has stopped waiting for the response, checked while a P2 waits.
+     * @return The response line, or null when the request has no response.
+     * @throws InterruptedException if interrupted while waiting for a game configuration.
+     */
+    String handleRequest(String request, BooleanSupplier abandoned) throws InterruptedException {
+        String[] parts = request.split(Config.PROTOCOL_SEPARATOR);
+        int clientId = Session.clientIdOf(parts[0]);
+        int gameId = Session.gameIdOf(parts[0]);
+        String address = parts[0];
+        switch (parts[1]) {
+            case Config.PROTOCOL_END:
+                if (gameId == 0) {
+                    sessions.remove(clientId);
+                } else {
+                    Session session = sessions.get(clientId);
+                    if (session != null) {
+                        session.endGame(gameId);
+                    }
+                }
+                return "ACK_END";
+            case Config.PROTOCOL_SENDGAME:
+                try {
+                    // Split the received data into dimension and game configuration
+                    String[] gameData = parts[2].split(Config.FIELD_SEPARATOR);
+                    int receivedDimension = Integer.parseInt(gameData[0]);
+                    String receivedGameConfiguration = gameData[1];
+
+                    Session.Game game = getSession(clientId).getGame(gameId);
+                    LayoutStore.Ref stored = layoutStore.intern(receivedGameConfiguration);
+                    game.resetBoard(receivedDimension, receivedGameConfiguration);
+                    game.getGameConfigurations().add(stored);
+                    spectators.publish(address, receivedGameConfiguration);
+                    outStream.println("Received game configuration with dimension " + receivedDimension + " from Client " + address
+                            + " (layout " + Long.toHexString(stored.getCanonicalId()) + "): " + receivedGameConfiguration);
+                    return "ACK";
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    outStream.println("Error handling PROTOCOL_SENDGAME: " + e.getMessage());
+                    return null;
+                }
+            case Config.PROTOCOL_SENDDELTA:
+                try {
+                    // The data holds the sequence number, then the dimension and the delta from the last layout
+                    int sequence = Integer.parseInt(parts[2]);
+                    String[] deltaData = parts[3].split(Config.FIELD_SEPARATOR);
+                    int receivedDimension = Integer.parseInt(deltaData[0]);
+                    byte[] delta = BoardDelta.fromWire(deltaData.length > 1 ? deltaData[1] : "");
+
+                    Session.Game game = getSession(clientId).getGame(gameId);
+                    String receivedGameConfiguration = game.applyDelta(receivedDimension, sequence, delta);
+                    if (receivedGameConfiguration == null) {
+                        outStream.println("Game configuration delta " + sequence + " from Client " + address + " is out of sequence, asking for a resync.");
+                        return Config.PROTOCOL_RESYNC;
+                    }
+                    LayoutStore.Ref stored = layoutStore.intern(receivedGameConfiguration);
+                    game.getGameConfigurations().add(stored);
+                    spectators.publish(address, receivedGameConfiguration);
+                    outStream.println("Received game configuration delta " + sequence + " (" + delta.length + " bytes) from Client " + address
+                            + " (layout " + Long.toHexString(stored.getCanonicalId()) + "): " + receivedGameConfiguration);
+                    return "ACK";
+                } catch (Exception e) {
+                    outStream.println("Error handling PROTOCOL_SENDDELTA: " + e.getMessage());
+                    return Config.PROTOCOL_RESYNC;
+                }
+            case Config.PROTOCOL_RECVGAME:
+                Session session = getSession(clientId);
+                Session.Game game = session.getGame(gameId);
+                LayoutStore.Ref queued = game.getGameConfigurations().poll();
+                if (queued != null) {
+                    return queued.layout();
+                }
+                // Nothing queued: serve a pre-generated layout of the requested dimension, or of the last one the client sent
+                int requestedDimension = game.getBoardDimension();
+                if (parts.length > 2) {
+                    try {
+                        requestedDimension = Integer.parseInt(parts[2]);
+                    } catch (NumberFormatException e) {
+                        outStream.println("Invalid dimension in PROTOCOL_RECVGAME from Client " + address + ": " + parts[2]);
+                    }
+                }
+                String pooled = layoutPool.poll(requestedDimension);
+                if (pooled != null) {
+                    return pooled;
+                }
+                if (gameId != 0 || session.getGames().size() > 1) {
+                    // The games of a connection are answered in order, so waiting here would hold up all the others
+                    return Config.PROTOCOL_UNAVAILABLE;
+                }
+                // This will block until there's a game configuration available, the client is gone or the session has ended or moved
+                LayoutStore.Ref waited = awaitGameConfiguration(game, abandoned, () -> sessions.get(clientId) != session);
+                return waited == null ? Config.PROTOCOL_UNAVAILABLE : waited.layout();
+            case Config.PROTOCOL_REQUEUE:
+                Session owner = sessions.get(clientId);
+                if (owner != null && parts.length > 2) {
+                    owner.getGame(gameId).getGameConfigurations().offerFirst(layoutStore.intern(parts[2]));
+                }
+                return null;
+            case Config.PROTOCOL_DATA:
+                try {
+                    String playerName = parts[2];
+                    int score = Integer.parseInt(parts[3]);
+
+                    leaderboard.record(playerName, score);
+
+                    // Log the received data
+                    outStream.println("Received game results from Client " + address + ". Player: " + playerName + ", Score: " + score);
+
+                    // Acknowledge the receipt of game results
+                    return "ACK_GAME_RESULTS";
+                } catch (Exception e) {
+                    outStream.println("Error processing game results from Client " + address + ".");
+                    return null;
+                }
+            default:
+                return null;
+        }
+    }
+    /**
+     * Waits for a game configuration to be queued for a game. The client is checked every
+     * {@link Config#RECVGAME_CHECK_MILLIS}, so a request whose client has gone gives up its thread
+     * instead of taking the next layout the client sends; a layout taken just as the client goes is put back.
+     * No request waits longer than {@link Config#RECVGAME_MAX_WAIT_SECONDS}, whatever the check tells.
+     * The wait also ends once the session has ended or moved to another cluster node, where the
+     * client's layouts now arrive.
+     * @param game The game to wait on.
+     * @param abandoned Tells whether the client has stopped waiting for the response.
+     * @param released Tells whether this node no longer holds the session.
+     * @return The game configuration, or null if the client stopped waiting, the session was released, the wait timed out or the server is stopping.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private LayoutStore.Ref awaitGameConfiguration(Session.Game game, BooleanSupplier abandoned, BooleanSupplier released) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Config.RECVGAME_MAX_WAIT_SECONDS);
+        while (isRunning && !abandoned.getAsBoolean() && !released.getAsBoolean() && System.nanoTime() - deadline < 0) {
+            LayoutStore.Ref queued = game.getGameConfigurations().poll(Config.RECVGAME_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            if (queued != null) {
+                if (!abandoned.getAsBoolean()) {
+                    return queued;
+                }
+                game.getGameConfigurations().offerFirst(queued);
+            }
+        }
+        return null;
+    }
+    /**
+     * Puts a game configuration back at the head of its game's queue, wherever in the cluster the
+     * session lives, after the client that requested it went away without receiving it.
+     * @param address The address of the game, clientId or clientId:gameId.
+     * @param layout The game configuration.
+     */
+    void requeueGameConfiguration(String address, String layout) {
+        int clientId = Session.clientIdOf(address);
+        String request = address + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_REQUEUE + Config.PROTOCOL_SEPARATOR + layout;
+        try {
+            if (cluster == null || cluster.isLocal(clientId)) {
+                handleRequest(request, () -> false);
+            } else {
+                cluster.forward(clientId, request);
+            }
+        } catch (IOException e) {
+            outStream.println("Could not put back a game configuration for client " + address + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    /**
+     * Discards the session of a client, wherever in the cluster it lives.
+     * @param clientId The client ID of the session.
+     */
+    private void endSession(int clientId) {
+        String request = clientId + Config.PROTOCOL_SEPARATOR + Config.PROTOCOL_END;
+        try {
+            if (cluster == null || cluster.isLocal(clientId)) {
+                handleRequest(request, () -> false);
+            } else {
+                cluster.forward(clientId, request);
+            }
+        } catch (IOException e) {
+            outStream.println("Could not end the session of client " + clientId + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    /**
+     * Discards the session of a client that did not reconnect within the grace period.
+     * @param resume The resume state of the client.
+     */
+    private void endDetachedSession(ResumableSession resume) {
+        resumableSessions.remove(resume.getClientId(), resume);
+        outStream.println("Client " + resume.getClientId() + " did not reconnect within " + Config.DEFAULT_RESUME_GRACE_SECONDS + " seconds, ending its session.");
+        endSession(resume.getClientId());
+    }
+    /**
+     * Checks that a protocol address names a client and a game.
+     * @param address The address, clientId or clientId:gameId.
+     * @return True if both IDs parse and the game ID is not negative.
+     */
+    private static boolean isAddress(String address) {
+        try {
+            Session.clientIdOf(address);
+            return Session.gameIdOf(address) >= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    /**
+     * Returns the session of a client owned by this node, creating it on first use.
+     * @param clientId The client ID of the session.
+     * @return The session.
+     */
+    private Session getSession(int clientId) {
+        return sessions.computeIfAbsent(clientId, Session::new);
+    }
+    /**
+     * Hands a newly accepted connection to the handler pool, or rejects it straight away
+     * when the session limit is reached or no worker can take it.
+     * @param socket The socket of the accepted connection.
+     */
+    private void admit(Socket socket) {
+        if (!sessionPermits.tryAcquire()) {
+            reject(socket, "session limit of " + policy.getMaxSessions() + " reached");
+            return;
+        }
+        ClientHandler handler = new ClientHandler(socket, nextClientId());
+        queuedCount.incrementAndGet();
+        try {
+            handlerPool.execute(handler);
+        } catch (RejectedExecutionException e) {
+            queuedCount.decrementAndGet();
+            sessionPermits.release();
+            reject(socket, "handler queue is full");
+            return;
+        }
+        acceptedCount.incrementAndGet();
+        clientConnected();
+    }
+    /**
+     * Tells the client the server is busy and closes its socket without starting a handler.
+     * @param socket The socket of the rejected connection.
+     * @param reason The reason written to the server log.
+     */
+    private void reject(Socket socket, String reason) {
+        outStream.println("Rejected a connection: " + reason + ". Total rejected: " + rejectedCount.incrementAndGet());
+        try (Socket rejected = socket;
+             PrintWriter busyOut = new PrintWriter(rejected.getOutputStream(), true)) {
+            busyOut.println(Config.PROTOCOL_BUSY);
+        } catch (IOException e) {
+            // The client may already be gone; nothing else to release
+        }
+    }
+    /**
+     * Returns the number of connections that have been admitted since the server started.
+     * @return The number of accepted connections.
+     */
+    public long getAcceptedCount() {
+        return acceptedCount.get();
+    }
+    /**
+     * Returns the number of connections that have been rejected because the server was at capacity.
+     * @return The number of rejected connections.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+    /**
+     * Returns the number of admitted connections that are still waiting for a worker thread.
+     * @return The number of queued connections.
+     */
+    public int getQueuedCount() {
+        return queuedCount.get();
     }
     /**
      * Notifies that a client has connected to the server and increments the active client count.
@@ -59,28 +674,35 @@ public class Server {
     }
     /**
      * Notifies that a client has disconnected from the server and decrements the active client count.
+     * The server keeps running with no clients; it only stops when {@link #stop()} is called.
      */
     public void clientDisconnected() {
-        int currentCount = activeClientCount.decrementAndGet();
-        outStream.println("A client has disconnected. Total active clients: " + currentCount);
-        if (currentCount == 0) {
-            try {
-                stop();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
+        outStream.println("A client has disconnected. Total active clients: " + activeClientCount.decrementAndGet());
     }
 
     /**
      * Represents a handler for individual client connections.
+     * <p>
+     * When a connection closes without PROTOCOL_END, the client's session is kept for
+     * {@link Config#DEFAULT_RESUME_GRACE_SECONDS} so the client can reconnect to this node and
+     * resume it with PROTOCOL_RESUME and the token it received in the greeting.
      */
-    public class ClientHandler extends Thread {
+    public class ClientHandler implements Runnable {
         private final Socket clientSocket;
-        private PrintWriter out;
+        private OutputStream out;
+        private final ByteArrayOutputStream pendingOut = new ByteArrayOutputStream();  // Responses not yet written to the socket
         private BufferedReader in;
-        private final int clientId;
-        private final BlockingQueue<String> gameConfigurations = new LinkedBlockingQueue<>();
+        private int clientId;  // Replaced by the resumed client's ID when the client reconnects
+        private ResumableSession resume;
+        private IdleTimer.Entry idleEntry;
+        private volatile boolean expired = false;
+        private volatile boolean handedOver = false;  // Set when a reconnected client takes over the session
+        private boolean sessionEnded = false;
+        private boolean spectating = false;
+        private boolean streaming = false;  // Set once the connection belongs to the spectator hub
+        private boolean firstRequest = true;
+        private final Map<String, TokenBucket> rateLimits = new HashMap<>();
+        private final TokenBucket invalidLimit = new TokenBucket(Config.RATE_INVALID_PER_SECOND, Config.RATE_INVALID_BURST);
 
         /**
          * Constructs a new client handler for a given socket and client ID.
@@ -91,95 +713,116 @@ public class Server {
         public ClientHandler(Socket socket, int clientId) {
             this.clientSocket = socket;
             this.clientId = clientId;
+            TokenBucket sendGameLimit = new TokenBucket(Config.RATE_SENDGAME_PER_SECOND, Config.RATE_SENDGAME_BURST);
+            rateLimits.put(Config.PROTOCOL_SENDGAME, sendGameLimit);
+            rateLimits.put(Config.PROTOCOL_SENDDELTA, sendGameLimit);
+            rateLimits.put(Config.PROTOCOL_RECVGAME, new TokenBucket(Config.RATE_RECVGAME_PER_SECOND, Config.RATE_RECVGAME_BURST));
+            rateLimits.put(Config.PROTOCOL_DATA, new TokenBucket(Config.RATE_DATA_PER_SECOND, Config.RATE_DATA_BURST));
+            rateLimits.put(Config.PROTOCOL_HEARTBEAT, new TokenBucket(Config.RATE_HEARTBEAT_PER_SECOND, Config.RATE_HEARTBEAT_BURST));
         }
         /**
          * The main execution method for handling client requests.
          */
         @Override
         public void run() {
+            queuedCount.decrementAndGet();
+            Thread.currentThread().setName("ClientHandler-" + clientId);
+            idleEntry = idleTimer.register(this::expire);
+            activeHandlers.add(this);
             try {
-                out = new PrintWriter(clientSocket.getOutputStream(), true);
-                in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+                out = clientSocket.getOutputStream();
+                in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream(), StandardCharsets.UTF_8));
 
-                out.println(clientId);
+                String token = ResumableSession.newToken();
+                resume = new ResumableSession(clientId, token, this);
+                resumableSessions.put(clientId, resume);
+                respond(clientId + Config.PROTOCOL_SEPARATOR + token);
 
                 String inputLine;
-                while ((inputLine = in.readLine()) != null) {
+                while ((inputLine = nextLine()) != null) {
+                    long receivedNanos = System.nanoTime();
+                    metrics.addBytesIn(inputLine.getBytes(StandardCharsets.UTF_8).length + 1);  // The line as it was sent, with its newline
                     outStream.println("Received a message from client " + clientId + ": " + inputLine);
                     // Split the input into parts
                     String[] parts = inputLine.split(Config.PROTOCOL_SEPARATOR);
-                    if (parts.length < 2) {
-                        outStream.println("Invalid message format from client " + clientId + ": " + inputLine);
+                    if (!isWellFormed(parts)) {
+                        // Refused before it is dispatched or counted, and charged to a bucket of its own so junk is throttled too
+                        outStream.println("Invalid message from client " + clientId + ": " + inputLine);
+                        respond(invalidLimit.tryAcquire() ? Config.PROTOCOL_INVALID : Config.PROTOCOL_THROTTLED);
+                        idleEntry.touch();
                         continue;
                     }
+                    int gameId = Session.gameIdOf(parts[0]);
                     String protocol = parts[1];
-                    switch (protocol) {
-                        case Config.PROTOCOL_END:
-                            outStream.println("Client " + clientId + " has ended the connection.");
-                            // Respond back to the client before closing resources
-                            out.println("ACK_END");
-
-                            // Close client's resources
-                            try {
-                                if (out != null) {
-                                    out.close();
-                                }
-                                if (in != null) {
-                                    in.close();
-                                }
-                                clientSocket.close();
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-
-                            clientDisconnected();
-
-                            // Exit from the run method to end this thread
-                            return;
-                        case Config.PROTOCOL_SENDGAME:
-                            try {
-                                // Split the received data into dimension and game configuration
-                                String[] gameData = parts[2].split(Config.FIELD_SEPARATOR);
-                                int receivedDimension = Integer.parseInt(gameData[0]);
-                                String receivedGameConfiguration = gameData[1];
-
-                                gameConfigurations.add(receivedGameConfiguration);
-                                outStream.println("Received game configuration with dimension " + receivedDimension + " from Client " + clientId + ": " + receivedGameConfiguration);
-                                out.println("ACK");
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                outStream.println("Error handling PROTOCOL_SENDGAME: " + e.getMessage());
-                            }
-                            break;
-                        case Config.PROTOCOL_RECVGAME:
-                            // This will block until there's a game configuration available
-                            String gameConfig = gameConfigurations.take();
-
-                            // Send the game configuration to the client
-                            out.println(gameConfig);
-                            break;
-                        case Config.PROTOCOL_DATA:
-                            try {
-                                String playerName = parts[2];
-                                int score = Integer.parseInt(parts[3]);
-
-                                // Acknowledge the receipt of game results
-                                out.println("ACK_GAME_RESULTS");
-
-                                // Log the received data
-                                outStream.println("Received game results from Client " + clientId + ". Player: " + playerName + ", Score: " + score);
-                            } catch (Exception e) {
-                                outStream.println("Error processing game results from Client " + clientId + ".");
+                    TokenBucket bucket = rateLimits.get(protocol);
+                    if (bucket != null && !bucket.tryAcquire()) {
+                        respond(Config.PROTOCOL_THROTTLED);
+                        metrics.recordThrottled(protocol);
+                        idleEntry.touch();
+                        continue;
+                    }
+                    idleEntry.setBusy(true);
+                    if (protocol.equals(Config.PROTOCOL_HEARTBEAT)) {
+                        respond("ACK_HEARTBEAT");
+                    } else if (protocol.equals(Config.PROTOCOL_RESUME)) {
+                        respond(resumeSession(parts));
+                    } else if (protocol.equals(Config.PROTOCOL_SPECTATE)) {
+                        // From here on this connection only receives the watched client's board updates
+                        metrics.recordMessage(protocol, System.nanoTime() - receivedNanos);
+                        spectating = true;
+                        streaming = spectate(parts[2]);
+                        return;
+                    } else {
+                        String response = route(gameId, inputLine);
+                        // Counted so a reconnecting client knows whether its last request went through
+                        if (!Config.PROTOCOL_UNAVAILABLE.equals(response) && !resume.recordProcessed(this, response)) {
+                            // The client resumed on another connection while the request ran, so nobody reads the response
+                            if (protocol.equals(Config.PROTOCOL_RECVGAME) && response != null) {
+                                requeueGameConfiguration(Session.address(clientId, gameId), response);
                             }
-                            break;
+                            response = null;
+                        }
+                        if (response != null) {
+                            respond(response);
+                        }
+                    }
+                    firstRequest = false;
+                    metrics.recordMessage(protocol, System.nanoTime() - receivedNanos);
+                    idleEntry.setBusy(false);
+                    if (protocol.equals(Config.PROTOCOL_END) && gameId == 0) {
+                        // Ending any other game leaves the connection open for the remaining games
+                        sessionEnded = true;
+                        resume.end();
+                        resumableSessions.remove(clientId, resume);
+                        outStream.println("Client " + clientId + " has ended the connection.");
+                        // Respond back to the client before the finally block closes its resources
+                        flushResponses();
+                        return;
                     }
                 }
                 outStream.println("ClientHandler for client " + clientId + " has ended.");
 
 
             } catch (Exception e) {
-                e.printStackTrace();
+                if (handedOver) {
+                    outStream.println("ClientHandler for client " + clientId + " has handed its session over.");
+                } else if (expired) {
+                    outStream.println("ClientHandler for client " + clientId + " has been reclaimed.");
+                } else {
+                    e.printStackTrace();
+                }
             } finally {
+                idleEntry.cancel();
+                activeHandlers.remove(this);
+                if (!sessionEnded && !handedOver) {
+                    detachSession();
+                }
+                sessionPermits.release();
+                if (streaming) {
+                    // The spectator hub writes to the connection from now on and closes it
+                    activeClientCount.decrementAndGet();
+                    return;
+                }
                 try {
                     if (out != null) {
                         out.close();
@@ -193,7 +836,275 @@ public class Server {
                 } catch (IOException e) {
                     e.printStackTrace();
                 }
+                clientDisconnected();
+            }
+        }
+        /**
+         * Checks that a request is addressed to a game, is of a type clients may send, and has
+         * the fields the handler reads before dispatching it.
+         * @param parts The request split at the protocol separator.
+         * @return True if the request can be dispatched.
+         */
+        private boolean isWellFormed(String[] parts) {
+            if (parts.length < 2 || !CLIENT_PROTOCOLS.contains(parts[1]) || !isAddress(parts[0])) {
+                return false;
+            }
+            // A spectator names the game it watches
+            return !parts[1].equals(Config.PROTOCOL_SPECTATE) || parts.length > 2 && isAddress(parts[2]);
+        }
+        /**
+         * Handles a request locally when this node owns the client's session, or forwards it to the owning cluster node.
+         * All games of a connection belong to its session, so they are always owned by the same node.
+         * @param gameId The game the request is addressed to.
+         * @param inputLine The request line as received from the client.
+         * @return The response line, or null when the request has no response.
+         * @throws InterruptedException if interrupted while waiting for the response.
+         */
+        private String route(int gameId, String inputLine) throws InterruptedException {
+            // Always address the session of this connection, whatever ID the client put in the message
+            String request = Session.address(clientId, gameId) + inputLine.substring(inputLine.indexOf(Config.PROTOCOL_SEPARATOR));
+            if (cluster == null || cluster.isLocal(clientId)) {
+                return handleRequest(request, this::isGone);
+            }
+            try {
+                return cluster.forward(clientId, request);
+            } catch (IOException e) {
+                outStream.println("Could not forward a message from client " + clientId + ": " + e.getMessage());
+                return Config.PROTOCOL_UNAVAILABLE;
+            }
+        }
+        /**
+         * Turns this connection into a stream of the board updates of another client's game. The
+         * connection is handed to the {@link SpectatorHub}, which writes the updates from its own
+         * threads, so this handler gives its worker thread and session slot back straight away.
+         * @param watchedAddress The address of the watched game, clientId or clientId:gameId.
+         * @return True if the connection now belongs to the hub, false if the request was refused.
+         * @throws IOException if there's an error in network communication.
+         */
+        private boolean spectate(String watchedAddress) throws IOException {
+            String watched = Session.address(Session.clientIdOf(watchedAddress), Session.gameIdOf(watchedAddress));
+            if (cluster != null && !cluster.isLocal(Session.clientIdOf(watched))) {
+                // Updates are published by the node owning the watched session
+                respond(Config.PROTOCOL_UNAVAILABLE);
+                flushResponses();
+                return false;
             }
+            flushResponses();  // Earlier responses go out before the stream starts
+            int spectatorId = clientId;
+            spectators.subscribe(watched, clientSocket, () -> outStream.println("Spectator " + spectatorId + " fell behind and has been dropped."));
+            outStream.println("Client " + clientId + " is watching the game of client " + watched + ".");
+            return true;
         }
+        /**
+         * Keeps the session of a client whose connection closed without PROTOCOL_END until the
+         * client resumes it or the grace period is over. Spectator sessions are not resumable
+         * and are discarded straight away.
+         */
+        private void detachSession() {
+            if (resume != null && !spectating) {
+                ResumableSession detached = resume;
+                if (detached.detach(this, resumeTimer, () -> endDetachedSession(detached))) {
+                    outStream.println("Keeping the session of client " + clientId + " for " + Config.DEFAULT_RESUME_GRACE_SECONDS + " seconds.");
+                }
+                return;
+            }
+            if (resume != null) {
+                resume.end();
+                resumableSessions.remove(clientId, resume);
+            }
+            endSession(clientId);
+        }
+        /**
+         * Resumes the session of a client that reconnected after its connection dropped. Only
+         * accepted as the first request of a connection; on success this handler serves the
+         * resumed client ID from then on.
+         * @param parts The request, newClientId#P7#clientId#token.
+         * @return ACK_RESUME with the number of requests processed for the session and the last
+         * response, or PROTOCOL_RESUME_FAILED when the session cannot be resumed.
+         */
+        private String resumeSession(String[] parts) {
+            if (!firstRequest || parts.length < 4) {
+                return Config.PROTOCOL_RESUME_FAILED;
+            }
+            int resumedId;
+            try {
+                resumedId = Integer.parseInt(parts[2]);
+            } catch (NumberFormatException e) {
+                return Config.PROTOCOL_RESUME_FAILED;
+            }
+            ResumableSession resumed = resumableSessions.get(resumedId);
+            if (resumed == null || !resumed.attach(parts[3], this)) {
+                outStream.println("Client " + clientId + " could not resume the session of client " + resumedId + ".");
+                return Config.PROTOCOL_RESUME_FAILED;
+            }
+            resume.end();
+            resumableSessions.remove(clientId, resume);
+            outStream.println("Client " + clientId + " has resumed the session of client " + resumedId + ".");
+            clientId = resumedId;
+            resume = resumed;
+            Thread.currentThread().setName("ClientHandler-" + clientId);
+            resumedCount.incrementAndGet();
+            String lastResponse = resumed.getLastResponse();
+            return "ACK_RESUME" + Config.PROTOCOL_SEPARATOR + resumed.getProcessedCount()
+                    + (lastResponse == null ? "" : Config.PROTOCOL_SEPARATOR + lastResponse);
+        }
+        /**
+         * Tells whether this connection no longer serves its client: it was closed, the client
+         * hung up, or the client resumed the session on another connection.
+         * @return True if a response to the request in progress would never be read.
+         */
+        private boolean isGone() {
+            return handedOver || clientSocket.isClosed() || hungUp();
+        }
+        /**
+         * Checks whether the client has closed its end of the connection, waiting at most a
+         * millisecond for input. Only called on the handler thread while a request is in progress,
+         * so nothing else reads from the connection; a byte that arrives is left for {@link #nextLine()}.
+         * @return True if the connection has reached end of stream or failed.
+         */
+        private boolean hungUp() {
+            try {
+                if (in.ready()) {
+                    return false;  // The client sent more requests; the wait is bounded if it left after them
+                }
+                clientSocket.setSoTimeout(1);
+                try {
+                    in.mark(1);
+                    if (in.read() < 0) {
+                        return true;
+                    }
+                    in.reset();
+                    return false;
+                } finally {
+                    clientSocket.setSoTimeout(0);
+                }
+            } catch (SocketTimeoutException e) {
+                return false;
+            } catch (IOException e) {
+                return true;
+            }
+        }
+        /**
+         * Closes this connection because its client has reconnected and resumed the session on
+         * another connection. The session is left to the new handler.
+         */
+        void handOver() {
+            handedOver = true;
+            outStream.println("Client " + clientId + " has reconnected, closing its previous connection.");
+            try {
+                clientSocket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        /**
+         * Queues a response line. Responses are written to the socket in batches by {@link #nextLine()}.
+         * @param response The response to send to the client.
+         */
+        private void respond(String response) {
+            byte[] bytes = (response + "\n").getBytes(StandardCharsets.UTF_8);
+            pendingOut.write(bytes, 0, bytes.length);
+        }
+        /**
+         * Writes all queued responses to the socket. Blocks while the client is not reading.
+         * @throws IOException if there's an error in network communication.
+         */
+        private void flushResponses() throws IOException {
+            if (pendingOut.size() > 0) {
+                metrics.addBytesOut(pendingOut.size());
+                pendingOut.writeTo(out);
+                out.flush();
+                pendingOut.reset();
+            }
+        }
+        /**
+         * Reads the next request line. Queued responses are flushed first when no more input is
+         * waiting, or when they exceed the outbound watermark, so a client that sends faster than
+         * it reads stops being read until it has drained its responses.
+         * @return The next line from the client, or null when the client has closed the connection.
+         * @throws IOException if there's an error in network communication.
+         */
+        private String nextLine() throws IOException {
+            if (pendingOut.size() >= Config.OUTBOUND_HIGH_WATERMARK || !in.ready()) {
+                flushResponses();
+            }
+            return in.readLine();
+        }
+        /**
+         * Closes the connection of a client that has been idle for longer than the idle timeout.
+         * Called by the idle timer; the handler thread then finishes through its usual cleanup.
+         */
+        private void expire() {
+            expired = true;
+            outStream.println("Client " + clientId + " has been idle for " + Config.DEFAULT_IDLE_TIMEOUT_SECONDS + " seconds, closing the connection.");
+            try {
+                clientSocket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    /**
+     * Runs a server without the game window. Start several with the same --cluster list,
+     * different --node indices and the same secret in {@link Config#CLUSTER_SECRET_ENV} to run a cluster, for example on loopback:
+     * {@code A22_CLUSTER_SECRET=... java -cp A22.jar MVC.Server --port 12345 --metrics-port 12346 --node 0 --cluster localhost:13345,localhost:13346}
+     * Another node joins the running cluster with an unused --node ID, its own cluster address and the address of any member:
+     * {@code A22_CLUSTER_SECRET=... java -cp A22.jar MVC.Server --port 12347 --metrics-port 12348 --node 2 --cluster-address localhost:13347 --join localhost:13345}
+     * A node that is stopped leaves the cluster and hands its sessions to the remaining members.
+     * Add {@code --snapshot file} to save the server state to a file and restore it on the next start.
+     * Plain-text metrics are served on loopback port {@link Config#DEFAULT_METRICS_PORT} unless {@code --metrics-port 0} is given.
+     * @param args The command line arguments.
+     * @throws IOException if the server cannot be started.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = Config.DEFAULT_PORT;
+        int metricsPort = Config.DEFAULT_METRICS_PORT;
+        int node = 0;
+        String clusterNodes = null;
+        String clusterAddress = null;
+        String seed = null;
+        String snapshot = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--metrics-port": metricsPort = Integer.parseInt(args[++i]); break;
+                case "--node": node = Integer.parseInt(args[++i]); break;
+                case "--cluster": clusterNodes = args[++i]; break;
+                case "--cluster-address": clusterAddress = args[++i]; break;
+                case "--join": seed = args[++i]; break;
+                case "--snapshot": snapshot = args[++i]; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+        Server server = new Server(port, System.out);
+        server.setMetricsPort(metricsPort);
+        if (snapshot != null) {
+            server.setSnapshotFile(Paths.get(snapshot));
+        }
+        if (clusterNodes != null || seed != null) {
+            String secret = System.getenv(Config.CLUSTER_SECRET_ENV);
+            if (secret == null || secret.isEmpty()) {
+                System.err.println("Set " + Config.CLUSTER_SECRET_ENV + " to the secret shared by the cluster nodes.");
+                return;
+            }
+            if (seed == null) {
+                server.setCluster(new ClusterNode(node, ClusterNode.parseNodes(clusterNodes), server, secret, System.out));
+            } else if (clusterAddress == null) {
+                System.err.println("A node joining with --join needs its own --cluster-address.");
+                return;
+            } else {
+                server.setCluster(new ClusterNode(node, ClusterNode.parseAddress(clusterAddress), ClusterNode.parseAddress(seed), server, secret, System.out));
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.stop();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+        server.start();
     }
 }
@@ -0,0 +1,133 @@
+package MVC;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * An in-process registry of server metrics: message counts and latency histograms per
+ * protocol message type, bytes read and written, and gauges sampled from the server
+ * when the metrics are rendered. Recording only touches striped counters, so handlers
+ * can record every message without contending with each other.
+ * <p>
+ * Message types come from clients, so only the types of the protocol get series of their own;
+ * anything else is counted under {@link #UNKNOWN_TYPE}, which keeps the number of series fixed.
+ */
+public class ServerMetrics {
+    public static final String UNKNOWN_TYPE = "unknown";
+    private static final Set<String> TYPES = Set.of(Config.PROTOCOL_END, Config.PROTOCOL_SENDGAME, Config.PROTOCOL_RECVGAME, Config.PROTOCOL_DATA,
+            Config.PROTOCOL_HEARTBEAT, Config.PROTOCOL_SENDDELTA, Config.PROTOCOL_SPECTATE, Config.PROTOCOL_RESUME);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.9", "0.99", "0.999"};
+    private final Map<String, LongAdder> messages = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> throttled = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * Records a processed message and how long it took to handle.
+     * @param type The protocol message type, such as {@link Config#PROTOCOL_SENDGAME}.
+     * @param latencyNanos The time between reading the message and finishing its response.
+     */
+    public void recordMessage(String type, long latencyNanos) {
+        messages.computeIfAbsent(label(type), k -> new LongAdder()).increment();
+        latencies.computeIfAbsent(label(type), k -> new LatencyHistogram()).record(latencyNanos);
+    }
+    /**
+     * Records a message that was refused because its client was over the rate limit.
+     * @param type The protocol message type.
+     */
+    public void recordThrottled(String type) {
+        throttled.computeIfAbsent(label(type), k -> new LongAdder()).increment();
+    }
+    /**
+     * Adds to the number of bytes read from clients.
+     * @param bytes The number of bytes read.
+     */
+    public void addBytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+    /**
+     * Adds to the number of bytes written to clients.
+     * @param bytes The number of bytes written.
+     */
+    public void addBytesOut(long bytes) {
+        bytesOut.add(bytes);
+    }
+    /**
+     * Returns the number of bytes read from clients.
+     * @return The number of bytes read.
+     */
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+    /**
+     * Returns the number of bytes written to clients.
+     * @return The number of bytes written.
+     */
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+    /**
+     * Registers a value that is read from the server every time the metrics are rendered.
+     * @param name The name the value is rendered under.
+     * @param gauge The supplier of the current value.
+     */
+    public void registerGauge(String name, LongSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+    /**
+     * Returns the latency histogram of a message type.
+     * @param type The protocol message type.
+     * @return The histogram, or null if no message of that type has been recorded.
+     */
+    public LatencyHistogram getLatency(String type) {
+        return latencies.get(label(type));
+    }
+    /**
+     * Returns the label a message type is recorded under.
+     * @param type The protocol message type, as received.
+     * @return The type itself if it is a protocol message type, otherwise {@link #UNKNOWN_TYPE}.
+     */
+    private static String label(String type) {
+        return TYPES.contains(type) ? type : UNKNOWN_TYPE;
+    }
+    /**
+     * Renders all metrics as plain text, one "name value" pair per line, sorted by name.
+     * Latencies are rendered in microseconds.
+     * @return The rendered metrics.
+     */
+    public String render() {
+        StringBuilder text = new StringBuilder();
+        new TreeMap<>(gauges).forEach((name, gauge) -> line(text, name, gauge.getAsLong()));
+        line(text, "bytes_in_total", bytesIn.sum());
+        line(text, "bytes_out_total", bytesOut.sum());
+        new TreeMap<>(messages).forEach((type, count) -> line(text, "messages_total{type=\"" + type + "\"}", count.sum()));
+        new TreeMap<>(throttled).forEach((type, count) -> line(text, "messages_throttled_total{type=\"" + type + "\"}", count.sum()));
+        new TreeMap<>(latencies).forEach((type, histogram) -> {
+            String labels = "{type=\"" + type + "\"";
+            line(text, "latency_us_count" + labels + "}", histogram.getCount());
+            line(text, "latency_us_mean" + labels + "}", Math.round(histogram.getMean() / 1000));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                line(text, "latency_us" + labels + ",quantile=\"" + QUANTILE_LABELS[i] + "\"}",
+                        histogram.getValueAtPercentile(PERCENTILES[i]) / 1000);
+            }
+            line(text, "latency_us_max" + labels + "}", histogram.getMax() / 1000);
+        });
+        return text.toString();
+    }
+    /**
+     * Appends one metric line.
+     * @param text The text being rendered.
+     * @param name The metric name and labels.
+     * @param value The metric value.
+     */
+    private static void line(StringBuilder text, String name, long value) {
+        text.append(name).append(' ').append(value).append('\n');
+    }
+}
@@ -0,0 +1,273 @@
+package MVC;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A point-in-time copy of the server state that survives a restart: the client ID counter,
+ * the queued game configurations of every game of every session, the leaderboard and what
+ * the connected clients need to resume their sessions once they reconnect.
+ * <p>
+ * The file is a compact binary format: a header, then each session with the layouts of each of
+ * its games packed
+ * two bits per cell by {@link LayoutCodec}, then the leaderboard, then the resume state. It is written to a temporary
+ * file and moved into place, so a crash mid-write leaves the previous snapshot intact, and it is
+ * read back through a memory-mapped buffer.
+ */
+public class ServerSnapshot {
+    private static final int MAGIC = 0x41323253;  // "A22S"
+    private static final int VERSION = 4;  // Version 1 had a single game per session, version 2 no resume state, version 3 plaintext tokens
+    private final int clientCount;
+    private final Map<Integer, Map<Integer, List<String>>> sessions;
+    private final Map<String, Integer> leaderboard;
+    private final List<Resume> resumes;
+
+    /**
+     * Constructs a snapshot from state already copied out of the server.
+     * @param clientCount The value of the client ID counter.
+     * @param sessions The queued game configurations of each session, by client ID and game ID.
+     * @param leaderboard The best score of each player.
+     * @param resumes The resume state of each client connected to the server.
+     */
+    public ServerSnapshot(int clientCount, Map<Integer, Map<Integer, List<String>>> sessions, Map<String, Integer> leaderboard, List<Resume> resumes) {
+        this.clientCount = clientCount;
+        this.sessions = sessions;
+        this.leaderboard = leaderboard;
+        this.resumes = resumes;
+    }
+    /**
+     * Returns the value of the client ID counter.
+     * @return The client count.
+     */
+    public int getClientCount() {
+        return clientCount;
+    }
+    /**
+     * Returns the queued game configurations of each session.
+     * @return The layouts by client ID and game ID.
+     */
+    public Map<Integer, Map<Integer, List<String>>> getSessions() {
+        return sessions;
+    }
+    /**
+     * Returns the best score of each player.
+     * @return The leaderboard.
+     */
+    public Map<String, Integer> getLeaderboard() {
+        return leaderboard;
+    }
+    /**
+     * Returns the resume state of each client that was connected to the server.
+     * @return The resume state, empty for snapshots written before it was saved.
+     */
+    public List<Resume> getResumes() {
+        return resumes;
+    }
+    /**
+     * Writes the snapshot, replacing the file atomically.
+     * @param file The snapshot file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeTo(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(clientCount);
+            out.writeInt(sessions.size());
+            for (Map.Entry<Integer, Map<Integer, List<String>>> session : sessions.entrySet()) {
+                out.writeInt(session.getKey());
+                out.writeInt(session.getValue().size());
+                for (Map.Entry<Integer, List<String>> game : session.getValue().entrySet()) {
+                    out.writeInt(game.getKey());
+                    out.writeInt(game.getValue().size());
+                    for (String layout : game.getValue()) {
+                        out.writeInt(layout.length());
+                        out.write(LayoutCodec.pack(layout));
+                    }
+                }
+            }
+            out.writeInt(leaderboard.size());
+            for (Map.Entry<String, Integer> score : leaderboard.entrySet()) {
+                writeString(out, score.getKey());
+                out.writeInt(score.getValue());
+            }
+            out.writeInt(resumes.size());
+            for (Resume resume : resumes) {
+                out.writeInt(resume.clientId);
+                out.writeInt(resume.tokenHash.length);
+                out.write(resume.tokenHash);
+                out.writeLong(resume.processedCount);
+                out.writeBoolean(resume.lastResponse != null);
+                if (resume.lastResponse != null) {
+                    writeString(out, resume.lastResponse);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    /**
+     * Reads a snapshot through a memory-mapped view of the file.
+     * @param file The snapshot file.
+     * @return The snapshot.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public static ServerSnapshot readFrom(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a server snapshot.");
+            }
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException(file + " has unsupported snapshot version " + version + ".");
+            }
+            int clientCount = buffer.getInt();
+            int sessionCount = buffer.getInt();
+            Map<Integer, Map<Integer, List<String>>> sessions = new LinkedHashMap<>();
+            for (int i = 0; i < sessionCount; i++) {
+                int clientId = buffer.getInt();
+                Map<Integer, List<String>> games = new LinkedHashMap<>();
+                if (version == 1) {
+                    games.put(0, layouts(buffer));
+                } else {
+                    int gameCount = buffer.getInt();
+                    for (int j = 0; j < gameCount; j++) {
+                        int gameId = buffer.getInt();
+                        games.put(gameId, layouts(buffer));
+                    }
+                }
+                sessions.put(clientId, games);
+            }
+            int scoreCount = buffer.getInt();
+            Map<String, Integer> leaderboard = new HashMap<>();
+            for (int i = 0; i < scoreCount; i++) {
+                String name = readString(buffer);
+                leaderboard.put(name, buffer.getInt());
+            }
+            List<Resume> resumes = new ArrayList<>();
+            if (version >= 3) {
+                int resumeCount = buffer.getInt();
+                for (int i = 0; i < resumeCount; i++) {
+                    int clientId = buffer.getInt();
+                    byte[] tokenHash = version == 3 ? ResumableSession.hashToken(readString(buffer)) : bytes(buffer, buffer.getInt());
+                    long processedCount = buffer.getLong();
+                    String lastResponse = buffer.get() != 0 ? readString(buffer) : null;
+                    resumes.add(new Resume(clientId, tokenHash, processedCount, lastResponse));
+                }
+            }
+            return new ServerSnapshot(clientCount, sessions, leaderboard, resumes);
+        } catch (RuntimeException e) {
+            throw new IOException(file + " is damaged.", e);
+        }
+    }
+    /**
+     * Reads the layouts of one game.
+     * @param buffer The buffer, positioned at the layout count.
+     * @return The layouts.
+     */
+    private static List<String> layouts(ByteBuffer buffer) {
+        int layoutCount = buffer.getInt();
+        List<String> layouts = new ArrayList<>(layoutCount);
+        for (int i = 0; i < layoutCount; i++) {
+            int cells = buffer.getInt();
+            layouts.add(LayoutCodec.unpack(bytes(buffer, (cells + 3) / 4), cells));
+        }
+        return layouts;
+    }
+    /**
+     * Writes a string as its length in UTF-8 bytes followed by the bytes.
+     * @param out The output stream.
+     * @param value The string.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     * @param buffer The buffer, positioned at the length.
+     * @return The string.
+     */
+    private static String readString(ByteBuffer buffer) {
+        return new String(bytes(buffer, buffer.getInt()), StandardCharsets.UTF_8);
+    }
+    /**
+     * Reads the next bytes of a buffer.
+     * @param buffer The buffer.
+     * @param length The number of bytes to read.
+     * @return The bytes.
+     */
+    private static byte[] bytes(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * What a client needs to resume its session after a restart: the hash of the token it proves
+     * itself with, and the processed count and last response it compares its requests against.
+     */
+    public static final class Resume {
+        private final int clientId;
+        private final byte[] tokenHash;
+        private final long processedCount;
+        private final String lastResponse;
+
+        /**
+         * Constructs the saved resume state of a client.
+         * @param clientId The ID of the client.
+         * @param tokenHash The hash of the token the client presents to resume the session, see {@link ResumableSession#hashToken}.
+         * @param processedCount The number of requests processed for the client.
+         * @param lastResponse The response to the last processed request, or null.
+         */
+        public Resume(int clientId, byte[] tokenHash, long processedCount, String lastResponse) {
+            this.clientId = clientId;
+            this.tokenHash = tokenHash;
+            this.processedCount = processedCount;
+            this.lastResponse = lastResponse;
+        }
+        /**
+         * Returns the ID of the client.
+         * @return The client ID.
+         */
+        public int getClientId() {
+            return clientId;
+        }
+        /**
+         * Returns the hash of the token the client presents to resume the session.
+         * @return The token hash.
+         */
+        public byte[] getTokenHash() {
+            return tokenHash;
+        }
+        /**
+         * Returns the number of requests processed for the client.
+         * @return The processed count.
+         */
+        public long getProcessedCount() {
+            return processedCount;
+        }
+        /**
+         * Returns the response to the last processed request.
+         * @return The last response, or null.
+         */
+        public String getLastResponse() {
+            return lastResponse;
+        }
+    }
+}
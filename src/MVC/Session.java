@@ -0,0 +1,152 @@
+package MVC;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * The state the server keeps for one client session. It is held by the node that owns the
+ * session, separately from the connection serving the client, so a request can be handled
+ * wherever the session lives.
+ * <p>
+ * One connection can carry many games at once. Each game has its own state, addressed as
+ * {@code clientId:gameId} in the protocol; a plain {@code clientId} addresses game 0.
+ */
+public class Session {
+    private final int clientId;
+    private final Map<Integer, Game> games = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new, empty session.
+     * @param clientId The ID of the client the session belongs to.
+     */
+    public Session(int clientId) {
+        this.clientId = clientId;
+    }
+    /**
+     * Returns the ID of the client the session belongs to.
+     * @return The client ID.
+     */
+    public int getClientId() {
+        return clientId;
+    }
+    /**
+     * Returns the state of one game of the session, creating it on first use.
+     * @param gameId The ID of the game within the session.
+     * @return The game state.
+     */
+    public Game getGame(int gameId) {
+        return games.computeIfAbsent(gameId, Game::new);
+    }
+    /**
+     * Discards the state of one game of the session.
+     * @param gameId The ID of the game within the session.
+     */
+    public void endGame(int gameId) {
+        games.remove(gameId);
+    }
+    /**
+     * Returns the games of the session.
+     * @return The game states.
+     */
+    public Collection<Game> getGames() {
+        return games.values();
+    }
+    /**
+     * Builds the protocol address of a game.
+     * @param clientId The ID of the client.
+     * @param gameId The ID of the game within the client's session.
+     * @return The client ID alone for game 0, otherwise clientId:gameId.
+     */
+    public static String address(int clientId, int gameId) {
+        return gameId == 0 ? String.valueOf(clientId) : clientId + Config.CHANNEL_SEPARATOR + gameId;
+    }
+    /**
+     * Returns the client ID of a protocol address.
+     * @param address The address, clientId or clientId:gameId.
+     * @return The client ID.
+     * @throws NumberFormatException if the address is malformed.
+     */
+    public static int clientIdOf(String address) {
+        int separator = address.indexOf(Config.CHANNEL_SEPARATOR);
+        return Integer.parseInt(separator < 0 ? address : address.substring(0, separator));
+    }
+    /**
+     * Returns the game ID of a protocol address.
+     * @param address The address, clientId or clientId:gameId.
+     * @return The game ID, 0 when the address has none.
+     * @throws NumberFormatException if the address is malformed.
+     */
+    public static int gameIdOf(String address) {
+        int separator = address.indexOf(Config.CHANNEL_SEPARATOR);
+        return separator < 0 ? 0 : Integer.parseInt(address.substring(separator + 1));
+    }
+
+    /**
+     * The state of one game: the layouts queued for it and the board that deltas apply to.
+     */
+    public static class Game {
+        private final int gameId;
+        private final BlockingDeque<LayoutStore.Ref> gameConfigurations = new LinkedBlockingDeque<>();
+        private String board;  // The last full layout the client sent, which deltas apply to
+        private int boardDimension;
+        private int boardSequence;
+
+        /**
+         * Constructs a new, empty game.
+         * @param gameId The ID of the game within its session.
+         */
+        public Game(int gameId) {
+            this.gameId = gameId;
+        }
+        /**
+         * Returns the ID of the game within its session.
+         * @return The game ID.
+         */
+        public int getGameId() {
+            return gameId;
+        }
+        /**
+         * Returns the game configurations the client has sent and not yet received back.
+         * @return The queue of game configurations, interned in the server's {@link LayoutStore}. One
+         * taken for a client that went away before receiving it is put back at the head.
+         */
+        public BlockingDeque<LayoutStore.Ref> getGameConfigurations() {
+            return gameConfigurations;
+        }
+        /**
+         * Returns the dimension of the last full layout the client sent.
+         * @return The dimension, or 0 if the client has not sent a layout.
+         */
+        public synchronized int getBoardDimension() {
+            return boardDimension;
+        }
+        /**
+         * Replaces the layout that deltas apply to with a full layout from the client and restarts the sequence.
+         * @param dimension The dimension of the layout.
+         * @param layout The full layout.
+         */
+        public synchronized void resetBoard(int dimension, String layout) {
+            board = layout;
+            boardDimension = dimension;
+            boardSequence = 0;
+        }
+        /**
+         * Applies a delta from the client to its last layout.
+         * @param dimension The dimension the client says the layout has.
+         * @param sequence The sequence number of the delta; the first delta after a full layout is 1.
+         * @param delta The delta, as encoded by {@link BoardDelta}.
+         * @return The new layout, or null if the delta does not follow the last one and the client must resend the full layout.
+         */
+        public synchronized String applyDelta(int dimension, int sequence, byte[] delta) {
+            if (board == null || dimension != boardDimension || sequence != boardSequence + 1) {
+                return null;
+            }
+            board = BoardDelta.apply(board, delta);
+            boardSequence = sequence;
+            return board;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package MVC;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Fans board updates out to the spectators watching a game. Each update is encoded
+ * once into a {@link Frame} that every subscriber shares; subscribers only queue a reference to
+ * it, so the cost of an update does not grow with the bytes times the number of watchers.
+ * A subscriber whose queue is full is too slow to keep up and is dropped instead of holding
+ * back the others.
+ * <p>
+ * The hub takes over the spectator's connection from its client handler and writes the frames
+ * from a small pool of its own threads, {@link Config#SPECTATOR_WRITER_THREADS}, so watchers hold
+ * neither a handler thread nor a session slot. A subscriber is only given to a writer while it
+ * has frames queued, and a keep-alive frame is queued for every subscriber that has been sent
+ * nothing for the heartbeat interval, which is also how closed spectator connections are noticed.
+ * A spectator that stops reading is dropped once a write to it has been blocked for that long,
+ * so it cannot keep a writer from the others.
+ */
+public class SpectatorHub {
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private final LongConsumer onBytesWritten;
+    private ScheduledExecutorService writers;
+
+    /**
+     * Constructs a new hub.
+     * @param onBytesWritten Told how many bytes are written to spectators, for the server metrics.
+     */
+    public SpectatorHub(LongConsumer onBytesWritten) {
+        this.onBytesWritten = onBytesWritten;
+    }
+    /**
+     * Starts the writer threads and the keep-alive frames.
+     */
+    public synchronized void start() {
+        if (writers != null) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        writers = Executors.newScheduledThreadPool(Config.SPECTATOR_WRITER_THREADS, r -> {
+            Thread thread = new Thread(r, "SpectatorWriter-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        writers.scheduleWithFixedDelay(this::sendKeepAlives, Config.DEFAULT_HEARTBEAT_SECONDS, Config.DEFAULT_HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+    /**
+     * Stops the writer threads and closes every spectator connection.
+     */
+    public synchronized void stop() {
+        if (writers != null) {
+            writers.shutdownNow();
+            writers = null;
+        }
+        for (List<Subscriber> watchers : subscribers.values()) {
+            for (Subscriber subscriber : watchers) {
+                unsubscribe(subscriber);
+            }
+        }
+    }
+    /**
+     * Subscribes a connection to the board updates of a game. From then on the hub owns the
+     * connection: it writes the frames to it and closes it once the subscriber is removed.
+     * @param address The address of the watched game, as built by {@link Session#address(int, int)}.
+     * @param socket The spectator's connection, with any earlier responses already written.
+     * @param onDrop Called if the subscriber falls too far behind and is dropped.
+     * @return The subscriber.
+     * @throws IOException if the connection is already closed.
+     */
+    public Subscriber subscribe(String address, Socket socket, Runnable onDrop) throws IOException {
+        Subscriber subscriber = new Subscriber(address, socket, onDrop);
+        // The acknowledgement is held back until the subscriber is listed, so no update published after it is missed
+        subscriber.frames.offer(new Frame("ACK_SPECTATE"));
+        subscribers.compute(address, (k, watchers) -> {
+            List<Subscriber> updated = watchers == null ? new CopyOnWriteArrayList<>() : watchers;
+            updated.add(subscriber);
+            return updated;
+        });
+        subscriber.scheduleIfQueued();
+        return subscriber;
+    }
+    /**
+     * Removes a subscriber and closes its connection. The list of a game's subscribers is
+     * discarded with its last subscriber.
+     * @param subscriber The subscriber to remove.
+     * @return True if the subscriber was removed, false if it had been already.
+     */
+    public boolean unsubscribe(Subscriber subscriber) {
+        if (!subscriber.removed.compareAndSet(false, true)) {
+            return false;
+        }
+        subscribers.computeIfPresent(subscriber.address, (k, watchers) -> {
+            watchers.remove(subscriber);
+            return watchers.isEmpty() ? null : watchers;
+        });
+        subscriber.close();
+        return true;
+    }
+    /**
+     * Publishes a board update to everyone watching a game. Nothing is encoded when nobody is watching.
+     * @param address The address of the game whose board changed.
+     * @param layout The new layout.
+     */
+    public void publish(String address, String layout) {
+        List<Subscriber> watchers = subscribers.get(address);
+        if (watchers == null || watchers.isEmpty()) {
+            return;
+        }
+        Frame frame = new Frame(Config.PROTOCOL_SPECTATE + Config.PROTOCOL_SEPARATOR + address + Config.PROTOCOL_SEPARATOR + layout);
+        for (Subscriber subscriber : watchers) {
+            if (!subscriber.queue(frame)) {
+                drop(subscriber);
+            }
+        }
+    }
+    /**
+     * Removes a subscriber that cannot keep up.
+     * @param subscriber The subscriber.
+     */
+    private void drop(Subscriber subscriber) {
+        if (unsubscribe(subscriber)) {
+            droppedCount.incrementAndGet();
+            subscriber.onDrop.run();
+        }
+    }
+    /**
+     * Returns the number of subscribers currently watching a game.
+     * @return The number of subscribers.
+     */
+    public long getSubscriberCount() {
+        long total = 0;
+        for (List<Subscriber> watchers : subscribers.values()) {
+            total += watchers.size();
+        }
+        return total;
+    }
+    /**
+     * Returns the number of subscribers dropped for falling behind.
+     * @return The number of dropped subscribers.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+    /**
+     * Queues a keep-alive frame for every subscriber that has been sent nothing since the last round,
+     * and drops the subscribers whose writes have been blocked since before it.
+     */
+    private void sendKeepAlives() {
+        long now = System.nanoTime();
+        for (Map.Entry<String, List<Subscriber>> watched : subscribers.entrySet()) {
+            Frame keepAlive = null;
+            for (Subscriber subscriber : watched.getValue()) {
+                long writingSince = subscriber.writingSinceNanos;
+                if (writingSince != 0 && now - writingSince > TimeUnit.SECONDS.toNanos(Config.DEFAULT_HEARTBEAT_SECONDS)) {
+                    drop(subscriber);
+                    continue;
+                }
+                if (subscriber.active.getAndSet(false)) {
+                    continue;
+                }
+                if (keepAlive == null) {
+                    keepAlive = new Frame(Config.PROTOCOL_SPECTATE + Config.PROTOCOL_SEPARATOR + watched.getKey());
+                }
+                subscriber.queue(keepAlive);  // A full queue is dropped by the next update
+            }
+        }
+    }
+    /**
+     * Hands a subscriber with queued frames to a writer thread.
+     * @param subscriber The subscriber.
+     */
+    private void schedule(Subscriber subscriber) {
+        ScheduledExecutorService pool = writers;
+        try {
+            if (pool != null) {
+                pool.execute(subscriber::drain);
+                return;
+            }
+        } catch (RejectedExecutionException e) {
+            // Stopped while the frame was queued
+        }
+        unsubscribe(subscriber);
+    }
+
+    /**
+     * One encoded line of the spectator stream. The bytes are never handed out, only written,
+     * so a single frame can be shared by every subscriber without copying.
+     */
+    public static final class Frame {
+        private final byte[] bytes;
+
+        /**
+         * Encodes a frame.
+         * @param line The line to send, without its line terminator.
+         */
+        Frame(String line) {
+            this.bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+        /**
+         * Writes the frame to a spectator's connection.
+         * @param out The output stream of the connection.
+         * @throws IOException if there's an error in network communication.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(bytes);
+        }
+        /**
+         * Returns the size of the encoded frame.
+         * @return The number of bytes.
+         */
+        public int length() {
+            return bytes.length;
+        }
+    }
+
+    /**
+     * A spectator's connection and its queue of frames still to be written.
+     */
+    public class Subscriber {
+        private final String address;
+        private final Socket socket;
+        private final OutputStream out;
+        private final Runnable onDrop;
+        private final BlockingQueue<Frame> frames = new ArrayBlockingQueue<>(Config.SPECTATOR_QUEUE_FRAMES);
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);  // Set while a writer owns the subscriber
+        private final AtomicBoolean removed = new AtomicBoolean(false);  // Set once, by whoever removes the subscriber first
+        private final AtomicBoolean active = new AtomicBoolean(true);  // Set when a frame was written since the last keep-alive round
+        private volatile long writingSinceNanos;  // When the write in progress started, 0 when not writing
+
+        /**
+         * Constructs a subscriber writing to a spectator's connection.
+         * @param address The address of the watched game.
+         * @param socket The spectator's connection.
+         * @param onDrop Called if the subscriber falls too far behind and is dropped.
+         * @throws IOException if the connection is already closed.
+         */
+        private Subscriber(String address, Socket socket, Runnable onDrop) throws IOException {
+            this.address = address;
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+            this.onDrop = onDrop;
+        }
+        /**
+         * Queues a frame and makes sure a writer will send it.
+         * @param frame The frame.
+         * @return False if the queue is full.
+         */
+        private boolean queue(Frame frame) {
+            if (!frames.offer(frame)) {
+                return false;
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                schedule(this);
+            }
+            return true;
+        }
+        /**
+         * Writes every queued frame and flushes them together. Runs on a writer thread; a
+         * subscriber is drained by one writer at a time. The subscriber is removed if its
+         * connection fails.
+         */
+        private void drain() {
+            long written = 0;
+            writingSinceNanos = System.nanoTime();
+            try {
+                Frame frame;
+                while ((frame = frames.poll()) != null) {
+                    frame.writeTo(out);
+                    written += frame.length();
+                }
+                out.flush();
+                active.set(true);
+            } catch (IOException e) {
+                unsubscribe(this);
+                return;
+            } finally {
+                writingSinceNanos = 0;
+                onBytesWritten.accept(written);
+                scheduled.set(false);
+            }
+            // A frame queued after the last poll but before the flag was cleared still needs a writer
+            scheduleIfQueued();
+        }
+        /**
+         * Hands the subscriber to a writer if it has frames queued and no writer owns it.
+         */
+        private void scheduleIfQueued() {
+            if (!frames.isEmpty() && scheduled.compareAndSet(false, true)) {
+                schedule(this);
+            }
+        }
+        /**
+         * Closes the spectator's connection.
+         */
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
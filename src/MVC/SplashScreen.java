@@ -5,7 +5,7 @@ import java.awt.*;
 
 public class SplashScreen extends JWindow {
     public void showSplashScreen() {
-        JLabel splashLabel = new JLabel(new ImageIcon(getClass().getResource("/splash.jpg")));
+        JLabel splashLabel = new JLabel(AssetManager.getIcon(AssetManager.SPLASH));
         getContentPane().add(splashLabel, BorderLayout.CENTER);
         pack();
 
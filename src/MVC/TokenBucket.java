@@ -0,0 +1,40 @@
+package MVC;
+
+/**
+ * A token bucket used to rate limit the messages of a single client connection.
+ * Tokens are refilled lazily from {@link System#nanoTime()} whenever one is requested,
+ * so an idle bucket costs nothing. Each bucket belongs to one client handler thread and
+ * is not safe for use by several threads.
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Constructs a new token bucket that starts full.
+     * @param ratePerSecond The number of tokens added every second.
+     * @param burst The maximum number of tokens the bucket can hold.
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        this.capacity = burst;
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+    /**
+     * Takes one token from the bucket if one is available.
+     * @return True if a token was taken, false if the caller is over its rate.
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+}